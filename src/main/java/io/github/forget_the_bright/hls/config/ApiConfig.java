@@ -41,6 +41,20 @@ public class ApiConfig {
      */
     private long tokenExpireSeconds = 1800L;
 
+    /**
+     * 访问令牌提前刷新比例
+     * <p>令牌使用时间达到有效期的该比例时由后台线程换取新令牌，请求线程无锁读取当前令牌，例如 0.8；
+     * 多个节点共用 Redis 缓存时，先刷新的节点换取新令牌，其他节点从缓存中采用</p>
+     * <p>小于等于 0 或大于等于 1 时关闭提前刷新，令牌失效后由请求线程同步刷新，默认 0（关闭）</p>
+     */
+    private double tokenRefreshAheadRatio = 0D;
+
+    /**
+     * 令牌失效时的请求重放次数
+     * <p>请求返回 401 或无效 token（4004）时，重新获取令牌后自动重放请求的最大次数，默认 1，0 表示不重放</p>
+     */
+    private int authRetryLimit = 1;
+
     /**
      * 读取超时时间（毫秒）
      * -1 表示使用默认值 代表不限制超时时间
@@ -61,4 +75,292 @@ public class ApiConfig {
      * <p>其他值为 Redis，表示使用Redis缓存模式</p>
      */
     private String cacheModel = "Local";
+
+    /**
+     * 近端缓存保留时间（单位：秒）
+     * <p>仅在 Redis 缓存模式下生效，在 Redis 前增加一层进程内缓存，本地副本保留时间不超过该值和 Redis 键的剩余有效期</p>
+     * <p>节点间通过 Redis 发布/订阅同步失效，默认 60 秒，小于等于 0 表示关闭近端缓存，每次读取都访问 Redis</p>
+     */
+    private long nearCacheSeconds = 60L;
+
+    /**
+     * 近端缓存最大条目数
+     * <p>本地副本达到该数量时先清理已过期的条目，仍然已满则新读取的值不再放入本地缓存，直接访问 Redis，默认 10000，小于等于 0 表示不限制</p>
+     */
+    private int nearCacheMaxEntries = 10000;
+
+    /**
+     * HTTP 传输模式
+     * <p>默认值为 Hutool，表示每次请求新建 Hutool HttpRequest，不复用连接</p>
+     * <p>其他值为 Pooled，表示使用 Apache HttpClient 连接池复用长连接，需要引入 httpclient 依赖</p>
+     */
+    private String transportModel = "Hutool";
+
+    /**
+     * 连接池单路由最大连接数
+     * <p>仅在 Pooled 传输模式下生效，默认 20</p>
+     */
+    private int maxConnectionsPerRoute = 20;
+
+    /**
+     * 连接池总最大连接数
+     * <p>仅在 Pooled 传输模式下生效，默认 50</p>
+     */
+    private int maxConnectionsTotal = 50;
+
+    /**
+     * 空闲连接回收时间（单位：秒）
+     * <p>仅在 Pooled 传输模式下生效，空闲超过该时间的连接会被后台线程关闭，默认 30 秒</p>
+     */
+    private long connectionIdleEvictSeconds = 30L;
+
+    /**
+     * 异步调用线程池大小
+     * <p>异步接口（*Async）默认在该线程池中执行，默认 16</p>
+     */
+    private int asyncPoolSize = 16;
+
+    /**
+     * 异步调用线程池队列容量
+     * <p>队列满时由调用线程直接执行，形成背压，默认 1024</p>
+     */
+    private int asyncQueueCapacity = 1024;
+
+    /**
+     * 单次请求最大标签数
+     * <p>实时库、历史库查询的标签数超过该值时自动拆分为多批请求并行执行，结果合并后返回，小于等于 0 表示不限制，默认 0</p>
+     * <p>无论是否限制，服务端返回查询点数超过最大限制（3018）时都会将批次对半拆分重试并记住更小的批次大小</p>
+     */
+    private int maxTagsPerRequest = 0;
+
+    /**
+     * 拆分请求并行度
+     * <p>同一次查询拆分出的批次最多同时执行的请求数，默认 4；时间范围切分和标签拆分嵌套时只有最外层并行，总数同样不超过该值</p>
+     */
+    private int fanOutParallelism = 4;
+
+    /**
+     * 实时库读取合并窗口（单位：毫秒）
+     * <p>大于 0 时，该窗口内并发的实时库读取合并为一次请求（标签取去重并集），每个调用方只返回自己的标签值</p>
+     * <p>默认 0，表示不合并</p>
+     */
+    private long ddbCoalesceWindowMillis = 0L;
+
+    /**
+     * 实时库读取合并标签上限
+     * <p>合并窗口内累计的不同标签数达到该值时立即发送，不再等待窗口结束，默认 100</p>
+     */
+    private int ddbCoalesceMaxTags = 100;
+
+    /**
+     * 实时库快照缓存的新鲜时长（单位：毫秒）
+     * <p>大于 0 时按标签缓存最新值，取得时间在该时长内的值直接返回；超过后仍先返回旧值，并在后台合并刷新所有过期标签</p>
+     * <p>默认 0，表示不缓存</p>
+     */
+    private long ddbCacheFreshMillis = 0L;
+
+    /**
+     * 实时库快照缓存的最大可容忍时长（单位：毫秒）
+     * <p>超过该时长的缓存值不再返回，改为同步读取；超过该时长未被读取的标签从缓存中移除，默认 30000</p>
+     */
+    private long ddbCacheMaxStaleMillis = 30000L;
+
+    /**
+     * 标签订阅轮询线程数
+     * <p>各轮询周期的订阅共用该调度线程池，默认 2</p>
+     */
+    private int subscriptionPollThreads = 2;
+
+    /**
+     * 是否启用实时库标签值 SSE 推送端点
+     * <p>仅在 Servlet Web 应用中生效，默认关闭</p>
+     */
+    private boolean sseEnabled = false;
+
+    /**
+     * SSE 推送端点路径，默认 /hls/tags/stream
+     */
+    private String ssePath = "/hls/tags/stream";
+
+    /**
+     * SSE 推送的轮询周期（单位：毫秒）
+     * <p>所有连接共用同一个轮询，默认 1000</p>
+     */
+    private long ssePeriodMillis = 1000L;
+
+    /**
+     * SSE 每个连接的发送队列容量
+     * <p>慢连接的队列满时按 sseDropPolicy 处理，默认 256</p>
+     */
+    private int sseClientBufferSize = 256;
+
+    /**
+     * SSE 发送队列满时的处理策略
+     * <p>drop-oldest：丢弃最旧的事件；drop-newest：丢弃新事件；disconnect：断开该连接。默认 drop-oldest</p>
+     */
+    private String sseDropPolicy = "drop-oldest";
+
+    /**
+     * SSE 心跳间隔（单位：秒）
+     * <p>定期发送注释行以发现已断开的连接，小于等于 0 表示不发送，默认 15</p>
+     */
+    private long sseHeartbeatSeconds = 15L;
+
+    /**
+     * 历史库查询单飞去重
+     * <p>开启后同一时刻完全相同的历史数据查询（标签、时间范围、查询间隔和查询标志均相同）只发出一次请求并共享结果，默认开启</p>
+     */
+    private boolean hdbSingleFlight = true;
+
+    /**
+     * 历史库单次查询最大时间范围（单位：秒）
+     * <p>超过该范围的历史数据查询会被切分为多个子区间并行查询后拼接，小于等于 0 表示不限制，默认 0</p>
+     * <p>不限制时，服务端返回时间范围或点数超过限制的错误后仍会将时间范围对半切分重试</p>
+     */
+    private long maxQueryTimeRangeSeconds = 0L;
+
+    /**
+     * 历史库单次查询每个标签的最大点数
+     * <p>按开始时间、结束时间和查询间隔估算点数，超过该值时切分时间范围，小于等于 0 表示不限制，默认 0</p>
+     */
+    private long maxPointsPerTag = 0L;
+
+    /**
+     * 历史库分段缓存最大分段数
+     * <p>每个标签的每个分段计为一条，超过时按最近最少使用淘汰当前进程的副本，默认 0，小于等于 0 表示不启用分段缓存；
+     * 只约束当前进程记录的条目，使用 Redis 时淘汰不删除 Redis 中的条目，总条目数只受过期时间和 Redis 自身的内存策略约束</p>
+     */
+    private int hdbCacheMaxSegments = 0;
+
+    /**
+     * 历史库分段缓存的分段时长，单位为秒
+     * <p>按查询间隔向上取整对齐，默认 3600</p>
+     */
+    private long hdbCacheSegmentSeconds = 3600L;
+
+    /**
+     * 历史库分段缓存的可变边界，单位为秒
+     * <p>结束时间晚于当前时间减去该值的分段可能仍在写入，不做缓存，默认 300</p>
+     */
+    private long hdbCacheMutableEdgeSeconds = 300L;
+
+    /**
+     * 历史库分段缓存的过期时间，单位为秒，默认 86400
+     */
+    private long hdbCacheTtlSeconds = 86400L;
+
+    /**
+     * 本地历史数据归档目录，为空时不启用，默认为空
+     */
+    private String hdbArchiveDir = "";
+
+    /**
+     * 本地历史数据归档每个分段文件的最大记录数，文件按需增长，默认 65536
+     */
+    private int hdbArchiveSegmentRecords = 65536;
+
+    /**
+     * 本地历史数据归档同时打开（映射到内存）的归档数，每个（标签，查询间隔）一个，超过时关闭最久未使用的，默认 1024
+     */
+    private int hdbArchiveMaxOpenTags = 1024;
+
+    /**
+     * 自适应并发限制
+     * <p>开启后所有 API 请求共享一个动态调整的并发上限：服务端返回查询超时、内存不足或请求异常时上限减半，
+     * 响应延迟明显高于基线时小幅下调，并发已用满且响应正常时逐步上调；超过上限的请求排队等待而不是失败，默认关闭</p>
+     */
+    private boolean adaptiveConcurrencyEnabled = false;
+
+    /**
+     * 自适应并发限制的初始并发上限，默认 8
+     */
+    private int adaptiveConcurrencyInitialLimit = 8;
+
+    /**
+     * 自适应并发限制的最小并发上限，默认 1
+     */
+    private int adaptiveConcurrencyMinLimit = 1;
+
+    /**
+     * 自适应并发限制的最大并发上限，默认 64
+     */
+    private int adaptiveConcurrencyMaxLimit = 64;
+
+    /**
+     * 自适应并发限制的延迟容忍倍数
+     * <p>同一接口的平滑响应时间超过基线响应时间的该倍数时下调并发上限，默认 2.0，小于等于 0 表示不按延迟调整</p>
+     */
+    private double adaptiveConcurrencyLatencyTolerance = 2.0D;
+
+    /**
+     * 对冲请求
+     * <p>开启后幂等接口的请求在超过近期响应时间的 {@code hedgePercentile} 分位仍未返回时，再发送一次相同的请求，
+     * 先返回的结果生效，另一个请求被取消，用于降低长尾延迟，默认关闭</p>
+     */
+    private boolean hedgeEnabled = false;
+
+    /**
+     * 对冲请求的延迟分位，取值 0 到 100，默认 95
+     */
+    private double hedgePercentile = 95D;
+
+    /**
+     * 对冲请求的最小延迟（单位：毫秒），默认 5
+     */
+    private long hedgeMinDelayMillis = 5L;
+
+    /**
+     * 对冲请求的预算，对冲请求数不超过普通请求数的该百分比，默认 10
+     */
+    private double hedgeBudgetPercent = 10D;
+
+    /**
+     * 熔断器
+     * <p>开启后每个 API 模块各有一个熔断器：最近的请求中失败（请求异常、查询超时、内存不足、响应慢于 {@code circuitBreakerSlowCallMillis}）
+     * 的比例达到阈值时打开，打开期间的请求立即抛出 {@link io.github.forget_the_bright.hls.exception.CircuitOpenException}，
+     * 经过 {@code circuitBreakerOpenSeconds} 后放行少量探测请求，全部成功则关闭，默认关闭</p>
+     */
+    private boolean circuitBreakerEnabled = false;
+
+    /**
+     * 熔断器统计的最近请求数，默认 20
+     */
+    private int circuitBreakerWindowSize = 20;
+
+    /**
+     * 熔断器开始判断前至少需要的请求数，默认 10
+     */
+    private int circuitBreakerMinimumCalls = 10;
+
+    /**
+     * 熔断器打开的失败比例阈值（百分比），默认 50
+     */
+    private double circuitBreakerFailureRateThreshold = 50D;
+
+    /**
+     * 慢请求阈值（单位：毫秒）
+     * <p>响应时间超过该值，或仍未返回但已执行超过该值的请求计为失败，默认 30000，小于等于 0 表示不按响应时间判断</p>
+     */
+    private long circuitBreakerSlowCallMillis = 30000L;
+
+    /**
+     * 熔断器打开后转为半开前的等待时间（单位：秒），默认 10
+     */
+    private long circuitBreakerOpenSeconds = 10L;
+
+    /**
+     * 熔断器半开时放行的探测请求数，默认 3
+     */
+    private int circuitBreakerHalfOpenCalls = 3;
+
+    /**
+     * 熔断器打开时实时库读取是否返回最近一次成功读取的值
+     * <p>开启后返回的 {@code DataResult} 的 {@code stale} 为 true，默认关闭</p>
+     */
+    private boolean circuitBreakerDdbFallback = false;
+
+    /**
+     * 熔断时可返回的最近一次成功读取的值的最大时长（单位：秒），超过后不再返回，默认 3600，小于等于 0 表示不限制
+     */
+    private long circuitBreakerDdbFallbackMaxAgeSeconds = 3600L;
 }
@@ -3,8 +3,14 @@ package io.github.forget_the_bright.hls.config;
 import io.github.forget_the_bright.hls.core.ApiClient;
 import io.github.forget_the_bright.hls.core.CacheHolder;
 import io.github.forget_the_bright.hls.core.LocalTimedCacheHolder;
+import io.github.forget_the_bright.hls.core.NearCacheHolder;
 import io.github.forget_the_bright.hls.core.RedisCacheHolder;
 import io.github.forget_the_bright.hls.core.TokenHolder;
+import io.github.forget_the_bright.hls.core.transport.HttpTransport;
+import io.github.forget_the_bright.hls.core.transport.HutoolHttpTransport;
+import io.github.forget_the_bright.hls.core.transport.PooledHttpTransport;
+import io.github.forget_the_bright.hls.service.HistorianArchive;
+import io.github.forget_the_bright.hls.service.HistorianSegmentCache;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -39,20 +45,37 @@ import org.springframework.data.redis.core.RedisTemplate;
 @Import({LocalTimedCacheHolder.class, RedisCacheHolder.class})
 public class DataCollectionAutoConfiguration {
 
+    /**
+     * 创建并注册HTTP传输层的Bean实例。
+     * <p>
+     * 根据配置中的传输模式选择使用 {@link PooledHttpTransport} 或 {@link HutoolHttpTransport}。
+     * 容器中已存在自定义的 {@link HttpTransport} 时不再创建。
+     *
+     * @param config API配置对象，包含传输模式、连接池大小等参数。
+     * @return 初始化完成的HTTP传输层实例。
+     * @see HttpTransport HTTP传输层扩展点。
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public HttpTransport httpTransport(ApiConfig config) {
+        return HttpTransport.create(config);
+    }
+
     /**
      * 创建并注册API客户端的Bean实例。
      * <p>
      * 此方法基于传入的配置对象初始化一个 {@link ApiClient} 实例，并将其注入到Spring容器中。
      *
-     * @param config API配置对象，包含服务端地址、超时设置等参数。
-     *               该对象由 {@link ApiConfig} 提供。
+     * @param config    API配置对象，包含服务端地址、超时设置等参数。
+     *                  该对象由 {@link ApiConfig} 提供。
+     * @param transport HTTP传输层实例，负责实际的网络发送。
      * @return 初始化完成的API客户端实例。
      * @see ApiConfig 配置类，定义了API客户端所需的各项参数。
      */
     @Bean
     @ConditionalOnMissingBean
-    public ApiClient apiClient(ApiConfig config) {
-        return new ApiClient(config);
+    public ApiClient apiClient(ApiConfig config, HttpTransport transport) {
+        return new ApiClient(config, transport);
     }
 
     /**
@@ -73,10 +96,42 @@ public class DataCollectionAutoConfiguration {
         return new TokenHolder(cacheHolder, config);
     }
 
+    /**
+     * 创建并注册历史数据分段缓存的Bean实例。
+     * <p>
+     * 分段数据存入 {@link CacheHolder}，{@code hdbCacheMaxSegments} 小于等于 0 时不启用。
+     *
+     * @param cacheHolder 缓存持有者实例，用于存储历史数据分段。
+     * @param config      API配置对象，包含分段时长、可变边界等参数。
+     * @return 初始化完成的历史数据分段缓存实例。
+     * @see HistorianSegmentCache 历史数据分段缓存类。
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public HistorianSegmentCache historianSegmentCache(CacheHolder<String, String> cacheHolder, ApiConfig config) {
+        return new HistorianSegmentCache(cacheHolder, config);
+    }
+
+    /**
+     * 创建并注册本地历史数据归档的Bean实例。
+     * <p>
+     * {@code hdbArchiveDir} 为空时不启用。
+     *
+     * @param config API配置对象，包含归档目录、分段容量和可变边界等参数。
+     * @return 初始化完成的本地历史数据归档实例。
+     * @see HistorianArchive 本地历史数据归档类。
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public HistorianArchive historianArchive(ApiConfig config) {
+        return new HistorianArchive(config);
+    }
+
     /**
      * 创建并注册缓存持有者的Bean实例。
      * <p>
      * 根据配置中的缓存模式选择使用 {@link RedisCacheHolder} 或 {@link LocalTimedCacheHolder}。
+     * Redis 模式下开启近端缓存时使用 {@link NearCacheHolder}。
      *
      * @param config        API配置对象，包含缓存模式等参数。
      *                      该对象由 {@link ApiConfig} 提供。
@@ -84,11 +139,15 @@ public class DataCollectionAutoConfiguration {
      * @return 初始化完成的缓存持有者实例。
      * @see ApiConfig       配置类，定义了缓存模式等参数。
      * @see RedisCacheHolder 使用 Redis 实现的缓存持有者。
+     * @see NearCacheHolder 在 Redis 前增加进程内近端缓存的缓存持有者。
      * @see LocalTimedCacheHolder 使用 Hutool TimedCache 实现的缓存持有者。
      */
     @Bean
     public CacheHolder<String, String> cacheHolder(ApiConfig config, RedisTemplate<String, String> redisTemplate) {
         if (config.getCacheModel().equals("Redis")) {
+            if (config.getNearCacheSeconds() > 0) {
+                return new NearCacheHolder<>(redisTemplate, config);
+            }
             return new RedisCacheHolder<>(redisTemplate, config);
         } else {
             return new LocalTimedCacheHolder<>(config);
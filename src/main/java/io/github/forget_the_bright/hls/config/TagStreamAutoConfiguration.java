@@ -0,0 +1,59 @@
+package io.github.forget_the_bright.hls.config;
+
+import io.github.forget_the_bright.hls.web.TagStreamController;
+import io.github.forget_the_bright.hls.web.TagStreamHub;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 实时库标签值 SSE 推送的自动配置类。
+ * <p>
+ * 生效条件：
+ * <ul>
+ *     <li>{@link ConditionalOnWebApplication}: 当前为 Servlet Web 应用。</li>
+ *     <li>{@link ConditionalOnClass}: 类路径中存在 Spring MVC 的 {@link SseEmitter}。</li>
+ *     <li>{@link ConditionalOnProperty}: 配置了 {@code hls.datacollection.sse-enabled=true}。</li>
+ * </ul>
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(SseEmitter.class)
+@ConditionalOnProperty(prefix = "hls.datacollection", name = "sse-enabled", havingValue = "true")
+@AutoConfigureAfter(DataCollectionAutoConfiguration.class)
+public class TagStreamAutoConfiguration {
+
+    /**
+     * 创建并注册推送中心的Bean实例。
+     *
+     * @param config API配置对象，包含轮询周期、发送队列容量和丢弃策略等参数。
+     * @return 初始化完成的推送中心实例。
+     * @see TagStreamHub 推送中心类。
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TagStreamHub tagStreamHub(ApiConfig config) {
+        return new TagStreamHub(config);
+    }
+
+    /**
+     * 创建并注册推送端点的Bean实例。
+     *
+     * @param tagStreamHub 推送中心实例。
+     * @return 初始化完成的推送端点实例。
+     * @see TagStreamController 推送端点类。
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TagStreamController tagStreamController(TagStreamHub tagStreamHub) {
+        return new TagStreamController(tagStreamHub);
+    }
+}
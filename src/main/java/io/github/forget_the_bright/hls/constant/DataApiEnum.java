@@ -1,5 +1,6 @@
 package io.github.forget_the_bright.hls.constant;
 
+import io.github.forget_the_bright.hls.constant.attach.ApiEndpoint;
 import io.github.forget_the_bright.hls.constant.attach.ParamPosition;
 
 import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
@@ -12,7 +13,7 @@ import cn.hutool.http.Method;
 
 @ToString
 @Getter
-public enum DataApiEnum {
+public enum DataApiEnum implements ApiEndpoint {
 
     Get_DDB_TAGVALUE_POST(
             "实时库读取标签实时值",
@@ -51,4 +52,14 @@ public enum DataApiEnum {
         this.entityType = entityType;
         this.resultType = resultType;
     }
-}
\ No newline at end of file
+
+    /**
+     * 读取接口，均为幂等
+     *
+     * @return 总是返回 true
+     */
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.forget_the_bright.hls.constant;
 
+import io.github.forget_the_bright.hls.constant.attach.ApiEndpoint;
 import io.github.forget_the_bright.hls.constant.attach.ParamPosition;
 import io.github.forget_the_bright.hls.entity.response.TokenResult;
 import lombok.Getter;
@@ -12,7 +13,7 @@ import cn.hutool.http.Method;
  */
 @ToString
 @Getter
-public enum OAuthApiEnum {
+public enum OAuthApiEnum implements ApiEndpoint {
 
     /**
      * 获取 OAuth Token 接口
@@ -1,5 +1,6 @@
 package io.github.forget_the_bright.hls.constant;
 
+import io.github.forget_the_bright.hls.constant.attach.ApiEndpoint;
 import io.github.forget_the_bright.hls.constant.attach.ParamPosition;
 import io.github.forget_the_bright.hls.entity.response.TagsResult;
 import lombok.Getter;
@@ -13,7 +14,7 @@ import cn.hutool.http.Method;
  */
 @ToString
 @Getter
-public enum TagsApiEnum {
+public enum TagsApiEnum implements ApiEndpoint {
 
     /**
      * 查询标签列表
@@ -49,4 +50,14 @@ public enum TagsApiEnum {
         this.entityType = entityType;
         this.resultType = resultType;
     }
+
+    /**
+     * 读取接口，均为幂等
+     *
+     * @return 总是返回 true
+     */
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
 }
@@ -0,0 +1,73 @@
+package io.github.forget_the_bright.hls.constant.attach;
+
+import cn.hutool.http.Method;
+
+/**
+ * API 接口描述
+ * <p>由各模块的接口枚举（DataApiEnum、TagsApiEnum、OAuthApiEnum）实现，
+ * {@link io.github.forget_the_bright.hls.core.ApiClient} 通过该接口直接读取接口元数据，无需反射</p>
+ *
+ * @author wanghao(helloworlwh @ 163.com)
+ * @since 2025/3/21
+ */
+public interface ApiEndpoint {
+
+    /**
+     * 获取接口描述
+     *
+     * @return 接口描述
+     */
+    String getDesc();
+
+    /**
+     * 获取接口路径（不含服务基础地址和模块上下文路径）
+     *
+     * @return 接口路径
+     */
+    String getPath();
+
+    /**
+     * 获取请求方法
+     *
+     * @return 请求方法
+     */
+    Method getMethod();
+
+    /**
+     * 获取主要参数位置
+     *
+     * @return 主要参数位置
+     */
+    ParamPosition getPrimaryParamPosition();
+
+    /**
+     * 获取次要参数位置
+     *
+     * @return 次要参数位置
+     */
+    ParamPosition getSecondaryParamPosition();
+
+    /**
+     * 获取请求体对应的实体类型
+     *
+     * @return 请求体实体类型，没有请求体时为 null
+     */
+    Class<?> getEntityType();
+
+    /**
+     * 获取返回值实体类型
+     *
+     * @return 返回值实体类型，为 null 时按 JSONObject 解析
+     */
+    Class<?> getResultType();
+
+    /**
+     * 判断接口是否幂等
+     * <p>幂等接口重复发送不会产生副作用，可以对冲请求（见 {@link io.github.forget_the_bright.hls.core.RequestHedger}）</p>
+     *
+     * @return 幂等时返回 true，默认返回 false
+     */
+    default boolean isIdempotent() {
+        return false;
+    }
+}
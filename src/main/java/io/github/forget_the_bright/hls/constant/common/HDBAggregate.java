@@ -0,0 +1,149 @@
+package io.github.forget_the_bright.hls.constant.common;
+
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 历史库查询的聚合值类型枚举，对应 {@link OneTagHDBValue} 中的各个值和质量字段。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public enum HDBAggregate {
+
+    /**
+     * 平均值，没有对应的质量字段。
+     */
+    AVG,
+
+    /**
+     * 最小值。
+     */
+    MIN,
+
+    /**
+     * 最大值。
+     */
+    MAX,
+
+    /**
+     * 边界值。
+     */
+    BOUND;
+
+    /**
+     * 从数据点中取出该聚合值。
+     *
+     * @param value 数据点
+     * @return 聚合值字符串
+     */
+    public String getValue(OneTagHDBValue value) {
+        switch (this) {
+            case AVG:
+                return value.getTagValueAVG();
+            case MIN:
+                return value.getTagValueMIN();
+            case MAX:
+                return value.getTagValueMAX();
+            default:
+                return value.getTagValueBound();
+        }
+    }
+
+    /**
+     * 设置数据点的该聚合值。
+     *
+     * @param value    数据点
+     * @param tagValue 聚合值字符串
+     */
+    public void setValue(OneTagHDBValue value, String tagValue) {
+        switch (this) {
+            case AVG:
+                value.setTagValueAVG(tagValue);
+                break;
+            case MIN:
+                value.setTagValueMIN(tagValue);
+                break;
+            case MAX:
+                value.setTagValueMAX(tagValue);
+                break;
+            default:
+                value.setTagValueBound(tagValue);
+        }
+    }
+
+    /**
+     * 从数据点中取出该聚合值的质量。
+     *
+     * @param value 数据点
+     * @return 质量，{@link #AVG} 总是返回 null
+     */
+    public Quality getQuality(OneTagHDBValue value) {
+        switch (this) {
+            case MIN:
+                return value.getQualityMIN();
+            case MAX:
+                return value.getQualityMAX();
+            case BOUND:
+                return value.getQualityBound();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 设置数据点的该聚合值的质量，{@link #AVG} 没有质量字段，忽略。
+     *
+     * @param value   数据点
+     * @param quality 质量
+     */
+    public void setQuality(OneTagHDBValue value, Quality quality) {
+        switch (this) {
+            case MIN:
+                value.setQualityMIN(quality);
+                break;
+            case MAX:
+                value.setQualityMAX(quality);
+                break;
+            case BOUND:
+                value.setQualityBound(quality);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 判断该聚合值是否有质量字段。
+     *
+     * @return {@link #AVG} 返回 false
+     */
+    public boolean hasQuality() {
+        return this != AVG;
+    }
+
+    /**
+     * 取出请求中要求查询的聚合值类型。
+     *
+     * @param historianRequest 历史数据请求
+     * @return 要求查询的聚合值类型
+     */
+    public static Set<HDBAggregate> requested(HistorianRequest historianRequest) {
+        Set<HDBAggregate> aggregates = EnumSet.noneOf(HDBAggregate.class);
+        if (Boolean.TRUE.equals(historianRequest.getNeedQueryAVG())) {
+            aggregates.add(AVG);
+        }
+        if (Boolean.TRUE.equals(historianRequest.getNeedQueryMIN())) {
+            aggregates.add(MIN);
+        }
+        if (Boolean.TRUE.equals(historianRequest.getNeedQueryMAX())) {
+            aggregates.add(MAX);
+        }
+        if (Boolean.TRUE.equals(historianRequest.getNeedQueryBound())) {
+            aggregates.add(BOUND);
+        }
+        return aggregates;
+    }
+}
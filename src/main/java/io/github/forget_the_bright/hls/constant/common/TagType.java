@@ -106,6 +106,24 @@ public enum TagType {
         return description;
     }
 
+    /**
+     * 判断该类型的标签值是否为数值（包括布尔）。
+     *
+     * @return BOOL 到 DOUBLE 之间的类型返回 true
+     */
+    public boolean isNumeric() {
+        return code >= BOOL.code && code <= DOUBLE.code;
+    }
+
+    /**
+     * 判断该类型的标签值是否为整数（包括布尔）。
+     *
+     * @return BOOL 到 SDWORD 之间的类型返回 true
+     */
+    public boolean isIntegral() {
+        return code >= BOOL.code && code <= SDWORD.code;
+    }
+
     /**
      * 根据代码值查找对应的标签类型。
      *
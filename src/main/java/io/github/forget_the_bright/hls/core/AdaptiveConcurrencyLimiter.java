@@ -0,0 +1,223 @@
+package io.github.forget_the_bright.hls.core;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 自适应并发限制器。
+ * <p>
+ * 并发上限按加性增、乘性减（AIMD）调整，并参考响应延迟的变化：
+ * <ul>
+ *     <li>服务端过载（查询超时、内存不足）或请求异常时，上限减半；</li>
+ *     <li>某个接口的平滑响应时间超过其基线响应时间的 {@link ApiConfig#getAdaptiveConcurrencyLatencyTolerance()} 倍时，上限下调 10%；</li>
+ *     <li>响应正常且并发已用满（有请求在排队或在途请求数达到上限）时，每完成约一个上限数量的请求，上限加一。</li>
+ * </ul>
+ * 一次下调后，在一个响应时间内的其他下调信号被忽略，它们通常是同一次过载的结果。
+ * <p>
+ * 基线响应时间按接口分别记录，取观测到的最小值并缓慢向近期响应时间漂移，以适应查询规模的变化；
+ * 平滑响应时间对单个样本做截断，只有持续升高的延迟才会触发下调，偶发的长尾请求不会。
+ * 超过上限的请求在 {@link #acquire()} 中排队等待，不会失败。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public final class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 过载时上限的缩减比例。
+     */
+    private static final double OVERLOAD_DECREASE = 0.5D;
+
+    /**
+     * 延迟升高时上限的缩减比例。
+     */
+    private static final double LATENCY_DECREASE = 0.9D;
+
+    /**
+     * 响应时间上升时平滑响应时间的权重。
+     */
+    private static final double SMOOTHING_UP = 0.05D;
+
+    /**
+     * 响应时间下降时平滑响应时间的权重，下降时更快跟随，避免启动阶段的慢请求长时间拉高平滑值。
+     */
+    private static final double SMOOTHING_DOWN = 0.2D;
+
+    /**
+     * 单个样本计入平滑响应时间时的上限，相对当前平滑响应时间的倍数，避免偶发的长尾请求被当作负载升高。
+     */
+    private static final double OUTLIER_CLAMP = 2D;
+
+    /**
+     * 基线响应时间向近期响应时间漂移的比例。
+     */
+    private static final double BASELINE_DRIFT = 0.01D;
+
+    /**
+     * 按延迟调整前每个接口至少需要的样本数。
+     */
+    private static final int MIN_SAMPLES = 10;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double latencyTolerance;
+
+    /**
+     * 当前上限，取整后生效。
+     */
+    private double limit;
+
+    private int inFlight;
+
+    private int queued;
+
+    private long lastDecreaseNanos;
+
+    /**
+     * 按接口索引的响应时间统计。
+     */
+    private final Map<Object, Latency> latencies = new HashMap<>();
+
+    /**
+     * 构造函数。
+     *
+     * @param config API 配置对象，包含初始、最小、最大并发上限和延迟容忍倍数
+     */
+    public AdaptiveConcurrencyLimiter(ApiConfig config) {
+        this.minLimit = Math.max(1, config.getAdaptiveConcurrencyMinLimit());
+        this.maxLimit = Math.max(minLimit, config.getAdaptiveConcurrencyMaxLimit());
+        this.latencyTolerance = config.getAdaptiveConcurrencyLatencyTolerance();
+        this.limit = Math.min(maxLimit, Math.max(minLimit, config.getAdaptiveConcurrencyInitialLimit()));
+    }
+
+    /**
+     * 获取一个并发许可，在途请求数达到上限时阻塞等待。
+     * <p>获取成功后必须调用 {@link #onSuccess(Object, long)}、{@link #onOverload(long)} 或 {@link #onIgnore()} 之一释放。</p>
+     *
+     * @throws ApiException 等待时线程被中断
+     */
+    public synchronized void acquire() {
+        if (inFlight >= (int) limit) {
+            queued++;
+            ApiMetrics.increment("limiter.queued");
+            try {
+                while (inFlight >= (int) limit) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("等待并发许可时被中断", e);
+            } finally {
+                queued--;
+            }
+        }
+        inFlight++;
+    }
+
+    /**
+     * 释放许可，记录一次正常响应。
+     *
+     * @param key       接口标识，用于分别统计响应时间
+     * @param rttNanos  响应时间（纳秒）
+     */
+    public synchronized void onSuccess(Object key, long rttNanos) {
+        boolean saturated = queued > 0 || inFlight >= (int) limit;
+        inFlight--;
+        Latency latency = latencies.computeIfAbsent(key, k -> new Latency());
+        latency.update(rttNanos);
+        if (latencyTolerance > 0 && latency.samples >= MIN_SAMPLES && latency.smoothed > latency.baseline * latencyTolerance) {
+            decrease(LATENCY_DECREASE, rttNanos, "响应延迟升高");
+        } else if (saturated && limit < maxLimit) {
+            limit = Math.min(maxLimit, limit + 1D / limit);
+        }
+        notifyAll();
+    }
+
+    /**
+     * 释放许可，记录一次过载响应。
+     *
+     * @param rttNanos 响应时间（纳秒）
+     */
+    public synchronized void onOverload(long rttNanos) {
+        inFlight--;
+        ApiMetrics.increment("limiter.overload");
+        decrease(OVERLOAD_DECREASE, rttNanos, "服务端过载");
+        notifyAll();
+    }
+
+    /**
+     * 释放许可，不调整上限，用于与负载无关的失败（例如令牌失效）。
+     */
+    public synchronized void onIgnore() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * 当前并发上限。
+     *
+     * @return 并发上限
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 当前在途请求数。
+     *
+     * @return 在途请求数
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 当前排队等待的请求数。
+     *
+     * @return 排队请求数
+     */
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    private void decrease(double factor, long rttNanos, String reason) {
+        long now = System.nanoTime();
+        if (limit <= minLimit || now - lastDecreaseNanos < rttNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * factor);
+        ApiMetrics.increment("limiter.decrease");
+        log.debug("{}，并发上限降为 {}", reason, (int) limit);
+    }
+
+    /**
+     * 单个接口的响应时间统计。
+     */
+    private static final class Latency {
+
+        private int samples;
+
+        private double baseline;
+
+        private double smoothed;
+
+        void update(long rttNanos) {
+            if (samples++ == 0) {
+                baseline = rttNanos;
+                smoothed = rttNanos;
+                return;
+            }
+            smoothed += rttNanos < smoothed ? SMOOTHING_DOWN * (rttNanos - smoothed)
+                    : SMOOTHING_UP * (Math.min(rttNanos, smoothed * OUTLIER_CLAMP) - smoothed);
+            baseline = rttNanos < baseline ? rttNanos : baseline + BASELINE_DRIFT * (rttNanos - baseline);
+        }
+    }
+}
@@ -3,25 +3,44 @@ package io.github.forget_the_bright.hls.core;
 import cn.hutool.core.codec.Base64;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.convert.Convert;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.*;
 import cn.hutool.http.*;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.attach.ApiEndpoint;
 import io.github.forget_the_bright.hls.constant.attach.ApiModule;
 import io.github.forget_the_bright.hls.constant.attach.AuthScheme;
 import io.github.forget_the_bright.hls.constant.attach.ParamPosition;
 import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.transport.HttpTransport;
+import io.github.forget_the_bright.hls.core.transport.TransportRequest;
+import io.github.forget_the_bright.hls.core.transport.TransportResponse;
 import io.github.forget_the_bright.hls.entity.response.base.BaseResult;
 import io.github.forget_the_bright.hls.exception.ApiException;
+import io.github.forget_the_bright.hls.exception.CircuitOpenException;
+import io.github.forget_the_bright.hls.exception.UnauthorizedException;
 
 import cn.hutool.http.Method;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,14 +55,140 @@ public class ApiClient {
 
     private static ApiConfig config;
 
+    private static HttpTransport transport;
+
+    private static volatile Executor asyncExecutor;
+
+    /**
+     * 自适应并发限制器，未开启时为 null
+     */
+    private static volatile AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 对冲请求执行器，未开启时为 null
+     */
+    private static volatile RequestHedger requestHedger;
+
+    /**
+     * 按模块索引的熔断器，未开启时为 null
+     */
+    private static volatile Map<ApiModule, CircuitBreaker> circuitBreakers;
+
+    /**
+     * 预编译接口描述缓存，数组下标为 {@link ApiModule#ordinal()}
+     */
+    private static final Map<ApiEndpoint, CompiledEndpoint[]> COMPILED_ENDPOINTS = new ConcurrentHashMap<>();
+
     /**
-     * 构造API客户端实例
+     * 构造API客户端实例，传输层按配置中的传输模式创建
      *
      * @param config API配置信息，包含基础URL、客户端凭证等
      */
-    @Autowired
     public ApiClient(ApiConfig config) {
+        this(config, HttpTransport.create(config));
+    }
+
+    /**
+     * 构造API客户端实例，之前使用的传输层与新传输层不同时将其关闭
+     *
+     * @param config    API配置信息，包含基础URL、客户端凭证等
+     * @param transport HTTP传输层实现
+     */
+    @Autowired
+    public ApiClient(ApiConfig config, HttpTransport transport) {
+        HttpTransport previous = ApiClient.transport;
         this.config = config;
+        this.transport = transport;
+        if (previous != null && previous != transport) {
+            // 替换后旧的连接池不再被使用，关闭以释放连接和后台线程
+            previous.close();
+        }
+        concurrencyLimiter = config.isAdaptiveConcurrencyEnabled() ? new AdaptiveConcurrencyLimiter(config) : null;
+        requestHedger = config.isHedgeEnabled() ? new RequestHedger(config) : null;
+        circuitBreakers = config.isCircuitBreakerEnabled() ? createCircuitBreakers(config) : null;
+        // 基础地址可能变化，清空已编译的接口描述
+        COMPILED_ENDPOINTS.clear();
+    }
+
+    /**
+     * 获取当前使用的HTTP传输层
+     *
+     * @return HTTP传输层实现
+     */
+    public static HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * 获取当前使用的API配置
+     *
+     * @return API配置信息
+     */
+    public static ApiConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 获取自适应并发限制器
+     *
+     * @return 自适应并发限制器，未开启 {@link ApiConfig#isAdaptiveConcurrencyEnabled()} 时返回 null
+     */
+    public static AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * 获取模块的熔断器
+     *
+     * @param module API模块
+     * @return 熔断器，未开启 {@link ApiConfig#isCircuitBreakerEnabled()} 时返回 null
+     */
+    public static CircuitBreaker getCircuitBreaker(ApiModule module) {
+        Map<ApiModule, CircuitBreaker> breakers = circuitBreakers;
+        return breakers == null ? null : breakers.get(module);
+    }
+
+    private static Map<ApiModule, CircuitBreaker> createCircuitBreakers(ApiConfig config) {
+        Map<ApiModule, CircuitBreaker> breakers = new EnumMap<>(ApiModule.class);
+        for (ApiModule module : ApiModule.values()) {
+            breakers.put(module, new CircuitBreaker(module, config));
+        }
+        return breakers;
+    }
+
+    /**
+     * 获取异步调用使用的线程池
+     * <p>未通过 {@link #setAsyncExecutor(Executor)} 指定时，按配置懒加载创建一个守护线程池</p>
+     *
+     * @return 异步调用线程池
+     */
+    public static Executor getAsyncExecutor() {
+        Executor executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (ApiClient.class) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    executor = ExecutorBuilder.create()
+                            .setCorePoolSize(config.getAsyncPoolSize())
+                            .setMaxPoolSize(config.getAsyncPoolSize())
+                            .setWorkQueue(new LinkedBlockingQueue<>(config.getAsyncQueueCapacity()))
+                            .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix("hls-async-").setDaemon(true).build())
+                            .setHandler(new ThreadPoolExecutor.CallerRunsPolicy())
+                            .build();
+                    asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 指定异步调用使用的线程池，例如使用应用中已有的业务线程池
+     *
+     * @param executor 异步调用线程池
+     */
+    public static void setAsyncExecutor(Executor executor) {
+        asyncExecutor = executor;
     }
 
     /**
@@ -58,7 +203,7 @@ public class ApiClient {
      * @return 解析后的JSON响应，返回类型由API定义决定。
      * @throws ApiException 如果API调用过程中发生异常。
      */
-    public static <T> T execute(ApiModule module, Enum<?> apiEnum, Object body) {
+    public static <T> T execute(ApiModule module, ApiEndpoint apiEnum, Object body) {
         return execute(module, apiEnum, null, body);
     }
 
@@ -74,7 +219,7 @@ public class ApiClient {
      * @return 解析后的JSON响应，返回类型由API定义决定。
      * @throws ApiException 如果API调用过程中发生异常。
      */
-    public static <T> T execute(ApiModule module, Enum<?> apiEnum, Map<String, Object> params) {
+    public static <T> T execute(ApiModule module, ApiEndpoint apiEnum, Map<String, Object> params) {
         return execute(module, apiEnum, params, null);
     }
 
@@ -89,7 +234,7 @@ public class ApiClient {
      * @return 解析后的JSON响应，返回类型由API定义决定。
      * @throws ApiException 如果API调用过程中发生异常。
      */
-    public static <T> T execute(ApiModule module, Enum<?> apiEnum) {
+    public static <T> T execute(ApiModule module, ApiEndpoint apiEnum) {
         return execute(module, apiEnum, null, null);
     }
 
@@ -98,6 +243,9 @@ public class ApiClient {
      *
      * <p>此方法是所有API调用的核心入口，支持带参数和请求体的API调用。它负责构建完整的URL、创建HTTP请求、添加认证头以及处理响应。</p>
      *
+     * <p>开启 {@link ApiConfig#isHedgeEnabled()} 时，幂等接口（{@link ApiEndpoint#isIdempotent()}）的请求由 {@link RequestHedger} 执行，
+     * 响应过慢时发送对冲请求，先返回的结果生效。</p>
+     *
      * @param <T>     返回类型的泛型参数，表示API调用返回的数据类型。
      * @param module  API模块配置，定义了API的基础路径和其他配置信息。
      * @param apiEnum API接口枚举定义，指定了具体的API端点和相关属性。
@@ -106,70 +254,302 @@ public class ApiClient {
      * @return 解析后的JSON响应，返回类型由API定义决定。
      * @throws ApiException 如果API调用过程中发生异常。
      */
-    public static <T> T execute(ApiModule module, Enum<?> apiEnum, Map<String, Object> params, Object body) {
-        String fullUrl = buildUrl(module, apiEnum);
-        HttpRequest request = createRequest(apiEnum, fullUrl, params, body);
-        request.header("Content-Type", "application/json");
-        addAuthHeader(request, module);
-        return (T) handleResponse(request, apiEnum);
+    public static <T> T execute(ApiModule module, ApiEndpoint apiEnum, Map<String, Object> params, Object body) {
+        CompiledEndpoint endpoint = compile(module, apiEnum);
+        RequestHedger hedger = requestHedger;
+        if (hedger != null && apiEnum.isIdempotent()) {
+            return (T) hedger.execute(endpoint,
+                    () -> exchange(module, endpoint, params, body, request -> handleResponse(request, endpoint)), getAsyncExecutor());
+        }
+        return (T) exchange(module, endpoint, params, body, request -> handleResponse(request, endpoint));
+    }
+
+    /**
+     * 执行API调用并以流的方式解析响应体。
+     *
+     * <p>响应体不会被整体读入内存，而是以字符流交给 {@code decoder} 增量解析，适用于结果集很大的接口。</p>
+     *
+     * @param <R>     解析结果类型。
+     * @param module  API模块配置，定义了API的基础路径和其他配置信息。
+     * @param apiEnum API接口枚举定义，指定了具体的API端点和相关属性。
+     * @param params  请求参数集合，可以为null。
+     * @param body    请求体对象，可以为null。
+     * @param decoder 响应体字符流解析函数，字符流在函数返回后关闭。
+     * @return 解析函数的返回值。
+     * @throws ApiException 如果API调用过程中发生异常。
+     */
+    public static <R> R executeStreaming(ApiModule module, ApiEndpoint apiEnum, Map<String, Object> params, Object body, Function<Reader, R> decoder) {
+        CompiledEndpoint endpoint = compile(module, apiEnum);
+        return exchange(module, endpoint, params, body, request -> {
+            try (TransportResponse response = send(request)) {
+                if (response.getBodyStream() == null) {
+                    throw new ApiException("API响应体为空: " + request.getUrl());
+                }
+                return decoder.apply(new InputStreamReader(response.getBodyStream(), response.getCharset()));
+            }
+        });
     }
 
+    /**
+     * 构建请求、添加认证头并交换请求，令牌失效时重新获取令牌后重放请求。
+     *
+     * <p>HTTP 401 或响应码 {@link StateCode#UNAUTHORIZED_TOKEN_IS_INVALID} 视为令牌失效：先作废本次请求使用的令牌
+     * （多个并发请求同时失效时只会重新获取一次），再用新令牌重放请求，最多重放 {@link ApiConfig#getAuthRetryLimit()} 次。</p>
+     *
+     * <p>开启熔断时，每次发送都先获取模块 {@link CircuitBreaker} 的许可，熔断器打开时直接失败；
+     * 开启自适应并发限制时，再获取 {@link AdaptiveConcurrencyLimiter} 的许可，超过上限时排队等待。</p>
+     *
+     * @param <R>      交换结果类型。
+     * @param module   API模块配置。
+     * @param endpoint 预编译的接口描述。
+     * @param params   请求参数集合，可以为null。
+     * @param body     请求体对象，可以为null。
+     * @param exchange 发送请求并解析响应的函数。
+     * @return 交换结果。
+     * @throws ApiException 如果API调用过程中发生异常，或重放次数用尽后仍然认证失败。
+     */
+    private static <R> R exchange(ApiModule module, CompiledEndpoint endpoint, Map<String, Object> params, Object body,
+                                  Function<TransportRequest, R> exchange) {
+        int replays = 0;
+        while (true) {
+            TransportRequest request = createRequest(endpoint, params, body);
+            request.header("Content-Type", "application/json");
+            String token = addAuthHeader(request, module);
+            try {
+                R result = guarded(module, endpoint, request, exchange);
+                if (token == null || !isTokenInvalid(result)) {
+                    return result;
+                }
+                TokenHolder.invalidateToken(token);
+                if (replays >= config.getAuthRetryLimit()) {
+                    return result;
+                }
+            } catch (UnauthorizedException e) {
+                if (token == null) {
+                    throw e;
+                }
+                TokenHolder.invalidateToken(token);
+                if (replays >= config.getAuthRetryLimit()) {
+                    throw e;
+                }
+            }
+            replays++;
+            ApiMetrics.increment("auth.replays");
+            log.debug("令牌失效，重新获取令牌后重放请求: {} {}", request.getMethod(), request.getUrl());
+        }
+    }
 
     /**
-     * 构建完整URL
+     * 在熔断器和自适应并发限制下发送请求，按响应码和响应时间记录结果。
+     *
+     * <p>先获取模块熔断器的许可，熔断器打开时直接抛出 {@link CircuitOpenException}，不再排队等待并发许可。</p>
+     *
+     * <p>响应码为 {@link StateCode#QUERY_TIMEOUT} 或 {@link StateCode#OUT_OF_MEMORY}，或发送时抛出异常，视为服务端过载和请求失败；
+     * 令牌失效和请求被中断（例如对冲请求中被取消的一方）与服务端状态无关，不计入统计。</p>
+     *
+     * @param <R>      交换结果类型。
+     * @param module   API模块配置，按模块选择熔断器。
+     * @param endpoint 预编译的接口描述，按接口分别统计响应时间。
+     * @param request  待发送的请求描述对象。
+     * @param exchange 发送请求并解析响应的函数。
+     * @return 交换结果。
+     * @throws CircuitOpenException 模块熔断器打开时抛出。
+     */
+    private static <R> R guarded(ApiModule module, CompiledEndpoint endpoint, TransportRequest request, Function<TransportRequest, R> exchange) {
+        Map<ApiModule, CircuitBreaker> breakers = circuitBreakers;
+        CircuitBreaker breaker = breakers == null ? null : breakers.get(module);
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiter;
+        if (breaker == null && limiter == null) {
+            return exchange.apply(request);
+        }
+        CircuitBreaker.Permit permit = breaker == null ? null : breaker.acquire();
+        if (limiter != null) {
+            try {
+                limiter.acquire();
+            } catch (RuntimeException e) {
+                if (permit != null) {
+                    breaker.onIgnore(permit);
+                }
+                throw e;
+            }
+        }
+        if (permit != null) {
+            permit.markStarted();
+        }
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = exchange.apply(request);
+        } catch (UnauthorizedException e) {
+            if (limiter != null) {
+                limiter.onIgnore();
+            }
+            if (permit != null) {
+                breaker.onIgnore(permit);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            boolean interrupted = isInterruption(e);
+            if (limiter != null) {
+                if (interrupted) {
+                    limiter.onIgnore();
+                } else {
+                    limiter.onOverload(System.nanoTime() - start);
+                }
+            }
+            if (permit != null) {
+                if (interrupted) {
+                    breaker.onIgnore(permit);
+                } else {
+                    breaker.onFailure(permit);
+                }
+            }
+            throw e;
+        }
+        Integer code = resultCode(result);
+        if (code != null && (code == StateCode.QUERY_TIMEOUT.getCode() || code == StateCode.OUT_OF_MEMORY.getCode())) {
+            if (limiter != null) {
+                limiter.onOverload(System.nanoTime() - start);
+            }
+            if (permit != null) {
+                breaker.onFailure(permit);
+            }
+        } else if (code != null && code == StateCode.UNAUTHORIZED_TOKEN_IS_INVALID.getCode()) {
+            if (limiter != null) {
+                limiter.onIgnore();
+            }
+            if (permit != null) {
+                breaker.onIgnore(permit);
+            }
+        } else {
+            if (limiter != null) {
+                limiter.onSuccess(endpoint, System.nanoTime() - start);
+            }
+            if (permit != null) {
+                breaker.onSuccess(permit);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 判断异常是否由线程中断引起。
+     *
+     * @param e 发送请求时抛出的异常。
+     * @return 当前线程已被中断，或异常链中包含中断异常时返回 true。
+     */
+    private static boolean isInterruption(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException
+                    || cause instanceof ClosedByInterruptException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断响应是否表示令牌失效。
+     *
+     * @param result 解析后的响应。
+     * @return 响应码为 {@link StateCode#UNAUTHORIZED_TOKEN_IS_INVALID} 时返回 true。
+     */
+    private static boolean isTokenInvalid(Object result) {
+        Integer code = resultCode(result);
+        return code != null && code == StateCode.UNAUTHORIZED_TOKEN_IS_INVALID.getCode();
+    }
+
+    /**
+     * 取出响应码。
+     *
+     * @param result 解析后的响应。
+     * @return 响应码，响应不是 {@link BaseResult} 或 {@link JSONObject} 时返回 null。
+     */
+    private static Integer resultCode(Object result) {
+        if (result instanceof BaseResult) {
+            return ((BaseResult) result).getCode();
+        }
+        if (result instanceof JSONObject) {
+            return ((JSONObject) result).getIntValue("code");
+        }
+        return null;
+    }
+
+    /**
+     * 异步执行API调用。
+     *
+     * <p>在 {@link #getAsyncExecutor()} 线程池中执行 {@link #execute(ApiModule, ApiEndpoint, Map, Object)}，调用线程不会被阻塞。</p>
+     *
+     * @param <T>     返回类型的泛型参数，表示API调用返回的数据类型。
+     * @param module  API模块配置，定义了API的基础路径和其他配置信息。
+     * @param apiEnum API接口枚举定义，指定了具体的API端点和相关属性。
+     * @param params  请求参数集合，可以为null。
+     * @param body    请求体对象，可以为null。
+     * @return 完成时携带解析后响应的 {@link CompletableFuture}，调用失败时以 {@link ApiException} 异常完成。
+     */
+    public static <T> CompletableFuture<T> executeAsync(ApiModule module, ApiEndpoint apiEnum, Map<String, Object> params, Object body) {
+        return CompletableFuture.supplyAsync(() -> execute(module, apiEnum, params, body), getAsyncExecutor());
+    }
+
+
+    /**
+     * 获取预编译的接口描述，每个（模块，接口）组合只在首次调用时解析一次
      *
      * @param module  API模块配置
      * @param apiEnum API接口枚举定义
-     * @return 完整请求URL
+     * @return 预编译的接口描述，包含完整URL
      */
-    private static String buildUrl(ApiModule module, Enum<?> apiEnum) {
-        String contextPath = module.getContextPath();
-        String apiPath = getPathFromEnum(apiEnum);
-        return StrUtil.format("{}{}{}", config.getBaseUrl(), contextPath, apiPath);
+    public static CompiledEndpoint compile(ApiModule module, ApiEndpoint apiEnum) {
+        CompiledEndpoint[] byModule = COMPILED_ENDPOINTS.computeIfAbsent(apiEnum, key -> new CompiledEndpoint[ApiModule.values().length]);
+        CompiledEndpoint endpoint = byModule[module.ordinal()];
+        if (endpoint == null) {
+            endpoint = new CompiledEndpoint(config.getBaseUrl(), module, apiEnum);
+            byModule[module.ordinal()] = endpoint;
+        }
+        return endpoint;
     }
 
     /**
      * 创建HTTP请求对象
      *
-     * @param apiEnum API接口枚举定义
-     * @param url     完整请求URL
-     * @param params  请求参数集合
-     * @param body    请求体对象
-     * @return 配置完成的HttpRequest对象
+     * @param endpoint 预编译的接口描述
+     * @param params   请求参数集合
+     * @param body     请求体对象
+     * @return 配置完成的请求描述对象
      */
-    private static HttpRequest createRequest(Enum<?> apiEnum, String url, Map<String, Object> params, Object body) {
-        Method method = getMethodFromEnum(apiEnum);
-        ParamPosition primaryParamPosition = getPrimaryParamPositionFromEnum(apiEnum);
-        ParamPosition secondaryParamPosition = getSecondaryParamPositionFromEnum(apiEnum);
-
-        HttpRequest request = new HttpRequest(url)
+    private static TransportRequest createRequest(CompiledEndpoint endpoint, Map<String, Object> params, Object body) {
+        TransportRequest request = new TransportRequest()
+                .setUrl(endpoint.getUrl())
                 .setConnectionTimeout(config.getConnectionTimeout())
                 .setReadTimeout(config.getReadTimeout())
-                .method(method);
+                .setMethod(endpoint.getMethod());
 
-        fillMessage(request, primaryParamPosition, url, params, body);
-        fillMessage(request, secondaryParamPosition, url, params, body);
+        fillMessage(request, endpoint.getPrimaryParamPosition(), endpoint, params, body);
+        fillMessage(request, endpoint.getSecondaryParamPosition(), endpoint, params, body);
         return request;
     }
 
     /**
      * 填充请求参数到指定位置
      *
-     * @param request       HTTP请求对象
+     * @param request       请求描述对象
      * @param paramPosition 参数位置枚举
-     * @param url           当前请求URL（用于路径参数替换）
+     * @param endpoint      预编译的接口描述（用于路径参数替换）
      * @param params        请求参数集合
      * @param body          请求体对象
      * @throws ApiException 参数不符合要求时抛出
      */
-    private static void fillMessage(HttpRequest request, ParamPosition paramPosition, String url, Map<String, Object> params, Object body) {
+    private static void fillMessage(TransportRequest request, ParamPosition paramPosition, CompiledEndpoint endpoint, Map<String, Object> params, Object body) {
         switch (paramPosition) {
             case QUERY:
                 if (ObjectUtil.isEmpty(params)) {
                     throw new ApiException("params参数不能为空");
                 } else if (params instanceof Map) {
                     if (CollUtil.isNotEmpty(params)) {
-                        String encodedUrl = buildUrlParams(url, params);
+                        String encodedUrl = buildUrlParams(request.getUrl(), params);
                         request.setUrl(encodedUrl);
                     }
                 } else {
@@ -180,7 +560,7 @@ public class ApiClient {
                 if (ObjectUtil.isEmpty(params)) {
                     throw new ApiException("params参数不能为空");
                 } else if (params instanceof Map) {
-                    request.setUrl(replacePathParams(url, params));
+                    request.setUrl(endpoint.expand(params));
                 } else {
                     throw new ApiException("Path参数必须是Map类型");
                 }
@@ -189,16 +569,16 @@ public class ApiClient {
                 if (ObjectUtil.isEmpty(body)) {
                     throw new ApiException("body参数不能为空");
                 } else if (body instanceof String) {
-                    request.body((String) body);
+                    request.setBody((String) body);
                 } else {
-                    request.body(JSONObject.toJSONString(body, SerializerFeature.WriteEnumUsingToString));
+                    request.setBody(JSONObject.toJSONString(body, SerializerFeature.WriteEnumUsingToString));
                 }
                 break;
             case FORM:
                 if (ObjectUtil.isEmpty(params)) {
                     throw new ApiException("params参数不能为空");
                 } else if (params instanceof Map) {
-                    request.form(params);
+                    request.setForm(params);
                 } else {
                     throw new ApiException("Form参数必须是Map类型");
                 }
@@ -208,7 +588,7 @@ public class ApiClient {
                     throw new ApiException("params参数不能为空");
                 } else if (params instanceof Map) {
                     params.forEach((key, value) -> {
-                        request.header(key, Convert.toStr(value), true);
+                        request.header(key, Convert.toStr(value));
                     });
                 } else {
                     throw new ApiException("Form参数必须是Map类型");
@@ -268,11 +648,12 @@ public class ApiClient {
     /**
      * 添加认证头
      *
-     * @param request HTTP请求对象
+     * @param request 请求描述对象
      * @param module  API模块配置
+     * @return 本次请求使用的令牌，模块不需要认证时返回 null
      * @throws ApiException 不支持的认证类型时抛出
      */
-    private static void addAuthHeader(HttpRequest request, ApiModule module) {
+    private static String addAuthHeader(TransportRequest request, ApiModule module) {
         String prefix = module.getAuthType().getType();
         String subfix = "";
         switch (module.getAuthType()) {
@@ -294,125 +675,58 @@ public class ApiClient {
                 authorization = StrUtil.format("{} {}", prefix, subfix);
             }
             request.header(module.getAuthType().getHearder(), authorization);
+            return subfix;
         }
+        return null;
     }
 
     /**
      * 处理HTTP响应结果。
      *
-     * <p>此方法负责执行HTTP请求并处理响应。它会检查HTTP状态码，记录请求和响应日志，并根据API定义解析返回的数据。</p>
+     * <p>此方法负责通过传输层执行HTTP请求并处理响应。它会检查HTTP状态码，记录请求和响应日志，并根据API定义解析返回的数据。</p>
      *
-     * @param request 已发送的HTTP请求对象。
-     * @param apiEnum API接口枚举定义，用于确定返回数据的类型。
+     * @param request  待发送的请求描述对象。
+     * @param endpoint 预编译的接口描述，用于确定返回数据的类型。
      * @return 解析后的JSON响应，返回类型由API定义决定。
      * @throws ApiException 如果HTTP状态码不是200（OK），或在处理响应时发生其他异常。
      */
-    private static Object handleResponse(HttpRequest request, Enum<?> apiEnum) {
-        HttpResponse response = request.execute();
-        log.debug("API请求: {} {}\n{}", request.getMethod(), request.getUrl(), request);
-
-        // 处理未授权的情况，清除令牌以便重新获取
-        if (response.getStatus() == HttpStatus.HTTP_UNAUTHORIZED) {
-            TokenHolder.clearToken();
-        }
-
-        // 检查HTTP状态码是否为200（OK）
-        if (response.getStatus() != HttpStatus.HTTP_OK) {
-            throw new ApiException("API调用失败: " + response.getStatus() + " - " + response.body());
+    private static Object handleResponse(TransportRequest request, CompiledEndpoint endpoint) {
+        String responseBody;
+        try (TransportResponse response = send(request)) {
+            responseBody = response.body();
         }
-
-        String responseBody = response.body();
         log.debug("API响应: {}", responseBody);
 
         // 获取返回类型并解析响应体
-        Class<?> returnType = getReturnType(apiEnum);
+        Class<?> returnType = endpoint.getResultType();
         if (returnType == null) {
             return JSONObject.parseObject(responseBody);
         }
-        BaseResult object = (BaseResult) JSONObject.parseObject(responseBody, returnType);
-        // 处理未授权的情况，清除令牌以便重新获取
-        if (object.getCode() == StateCode.UNAUTHORIZED_TOKEN_IS_INVALID.getCode()) {
-            TokenHolder.clearToken();
-        }
-        return object;
-    }
-
-
-    /**
-     * 从枚举实例获取接口路径
-     *
-     * @param apiEnum API接口枚举定义
-     * @return 接口路径字符串
-     * @throws ApiException 反射获取路径失败时抛出
-     */
-    private static String getPathFromEnum(Enum<?> apiEnum) {
-        try {
-            java.lang.reflect.Method getPath = ReflectUtil.getMethod(apiEnum.getClass(), "getPath");
-            return Convert.toStr(getPath.invoke(apiEnum));
-        } catch (Exception e) {
-            throw new ApiException("无法从枚举中获取路径", e);
-        }
+        return JSONObject.parseObject(responseBody, returnType);
     }
 
     /**
-     * 从枚举实例获取HTTP方法
+     * 通过传输层发送请求并校验HTTP状态码。
      *
-     * @param apiEnum API接口枚举定义
-     * @return HTTP方法枚举
-     * @throws ApiException 反射获取方法失败时抛出
+     * @param request 待发送的请求描述对象。
+     * @return 状态码为200的响应，调用方负责关闭。
+     * @throws ApiException 如果HTTP状态码不是200（OK）。
      */
-    private static Method getMethodFromEnum(Enum<?> apiEnum) {
-        try {
-            java.lang.reflect.Method getMethod = ReflectUtil.getMethod(apiEnum.getClass(), "getMethod");
-            return (Method) getMethod.invoke(apiEnum);
-        } catch (Exception e) {
-            throw new ApiException("无法从枚举中获取HTTP方法", e);
-        }
-    }
-
-    /**
-     * 从枚举实例获取主参数位置
-     *
-     * @param apiEnum API接口枚举定义
-     * @return 主参数位置枚举
-     * @throws ApiException 反射获取参数位置失败时抛出
-     */
-    private static ParamPosition getPrimaryParamPositionFromEnum(Enum<?> apiEnum) {
-        try {
-            return (ParamPosition) apiEnum.getClass().getMethod("getPrimaryParamPosition").invoke(apiEnum);
-        } catch (Exception e) {
-            throw new ApiException("无法从枚举中获取参数位置", e);
-        }
-    }
-
-    /**
-     * 从枚举实例获取次参数位置
-     *
-     * @param apiEnum API接口枚举定义
-     * @return 次参数位置枚举
-     * @throws ApiException 反射获取参数位置失败时抛出
-     */
-    private static ParamPosition getSecondaryParamPositionFromEnum(Enum<?> apiEnum) {
-        try {
-            return (ParamPosition) apiEnum.getClass().getMethod("getSecondaryParamPosition").invoke(apiEnum);
-        } catch (Exception e) {
-            throw new ApiException("无法从枚举中获取参数位置", e);
-        }
-    }
-
-    /**
-     * 从枚举实例获取返回类型
-     *
-     * @param apiEnum API接口枚举定义
-     * @return 返回类型Class对象
-     * @throws ApiException 反射获取返回类型失败时抛出
-     */
-    private static Class<?> getReturnType(Enum<?> apiEnum) {
-        try {
-            Class<?> entityType = (Class<?>) apiEnum.getClass().getMethod("getResultType").invoke(apiEnum);
-            return entityType;
-        } catch (Exception e) {
-            throw new ApiException("无法从枚举中获取返回类型", e);
+    private static TransportResponse send(TransportRequest request) {
+        log.debug("API请求: {} {}\n{}", request.getMethod(), request.getUrl(), request);
+        TransportResponse response = transport.execute(request);
+        // 检查HTTP状态码是否为200（OK），未授权时由调用方重新获取令牌
+        if (response.getStatus() != HttpStatus.HTTP_OK) {
+            try {
+                String message = "API调用失败: " + response.getStatus() + " - " + response.body();
+                if (response.getStatus() == HttpStatus.HTTP_UNAUTHORIZED) {
+                    throw new UnauthorizedException(message);
+                }
+                throw new ApiException(message);
+            } finally {
+                response.close();
+            }
         }
+        return response;
     }
 }
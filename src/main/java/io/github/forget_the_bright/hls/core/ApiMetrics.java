@@ -0,0 +1,74 @@
+package io.github.forget_the_bright.hls.core;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SDK 运行指标计数器。
+ * <p>
+ * 以名称区分的累加计数器集合，供传输层、令牌管理等核心组件记录运行情况，
+ * 使用方可通过 {@link #snapshot()} 获取当前所有计数并接入自己的监控系统。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-21
+ */
+public class ApiMetrics {
+
+    /**
+     * 计数器集合，键为指标名称。
+     */
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    private ApiMetrics() {
+    }
+
+    /**
+     * 指标计数加一。
+     *
+     * @param name 指标名称
+     */
+    public static void increment(String name) {
+        add(name, 1L);
+    }
+
+    /**
+     * 指标计数增加指定值。
+     *
+     * @param name  指标名称
+     * @param delta 增量
+     */
+    public static void add(String name, long delta) {
+        COUNTERS.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * 获取指标当前计数。
+     *
+     * @param name 指标名称
+     * @return 当前计数，指标不存在时返回 0
+     */
+    public static long get(String name) {
+        LongAdder adder = COUNTERS.get(name);
+        return adder == null ? 0L : adder.sum();
+    }
+
+    /**
+     * 获取所有指标的当前计数快照。
+     *
+     * @return 按指标名称排序的计数快照
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        COUNTERS.forEach((name, adder) -> snapshot.put(name, adder.sum()));
+        return snapshot;
+    }
+
+    /**
+     * 重置所有指标计数。
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(LongAdder::reset);
+    }
+}
@@ -6,15 +6,23 @@ import cn.hutool.core.lang.Tuple;
 import cn.hutool.core.lang.func.Func1;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
+import io.github.forget_the_bright.hls.constant.common.Quality;
+import io.github.forget_the_bright.hls.constant.common.TagType;
 import io.github.forget_the_bright.hls.entity.response.DatasResult;
 import io.github.forget_the_bright.hls.entity.response.base.BaseValue;
 import io.github.forget_the_bright.hls.entity.response.base.DDBTagValue;
 import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
 import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+import io.github.forget_the_bright.hls.entity.response.base.TagSeries;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -34,6 +42,11 @@ import java.util.stream.Collectors;
  */
 public class ApiUtil {
 
+    /**
+     * 按序列解析时，数据点总数达到该值才在多个线程中并行解析各标签。
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
     /**
      * 如果对象为 null 或空，则返回 null；否则执行给定的函数并返回其结果。
      *
@@ -142,6 +155,90 @@ public class ApiUtil {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 将 DatasResult 对象中的 HDBTagValue 列表解析为以标签名称为键、{@link TagSeries} 为值的映射。
+     *
+     * <p>
+     * 与 {@link #deConStructDatasResult(DatasResult, Function)} 相同，但每个标签只生成一个
+     * {@code long[]} 时间数组和一个 {@code double[]} 值数组，不为每个数据点创建对象。
+     * </p>
+     *
+     * @param datasResult 包含数据结果的 DatasResult 对象
+     * @param getMethod   用于从 OneTagHDBValue 中提取值的函数
+     * @return 包含解析结果的 Map，键为标签名称，值为时间序列，顺序与标签列表一致
+     */
+    public static Map<String, TagSeries> deConStructDatasResultSeries(DatasResult datasResult, Function<OneTagHDBValue, String> getMethod) {
+        return deConStructHdbTagSeries(datasResult.getData().getHdbTagValueList(), getMethod, null);
+    }
+
+    /**
+     * 将 HDBTagValue 列表解析为以标签名称为键、{@link TagSeries} 为值的映射。
+     *
+     * <p>
+     * 数据点总数达到 {@value #PARALLEL_THRESHOLD} 时，各标签在 {@link ForkJoinPool#commonPool()} 中并行解析。
+     * </p>
+     *
+     * @param hdbTagValueList 包含多个 HDBTagValue 的列表
+     * @param getMethod       用于从 OneTagHDBValue 中提取值的函数，例如 {@code OneTagHDBValue::getTagValueAVG}
+     * @param qualityMethod   用于从 OneTagHDBValue 中提取质量的函数，例如 {@code OneTagHDBValue::getQualityBound}，
+     *                        为 null 时不生成质量位图
+     * @return 包含解析结果的 Map，键为标签名称，值为时间序列，顺序与标签列表一致
+     */
+    public static Map<String, TagSeries> deConStructHdbTagSeries(List<HDBTagValue> hdbTagValueList,
+                                                                 Function<OneTagHDBValue, String> getMethod,
+                                                                 Function<OneTagHDBValue, Quality> qualityMethod) {
+        List<Supplier<TagSeries>> tasks = new ArrayList<>(hdbTagValueList.size());
+        long points = 0;
+        for (HDBTagValue hdbTagValue : hdbTagValueList) {
+            tasks.add(() -> deConStructOneTagHdbSeries(hdbTagValue, getMethod, qualityMethod));
+            points += hdbTagValue.getOneTagHDBValueList() == null ? 0 : hdbTagValue.getOneTagHDBValueList().size();
+        }
+        int parallelism = points < PARALLEL_THRESHOLD ? 1 : ForkJoinPool.getCommonPoolParallelism() + 1;
+        Map<String, TagSeries> seriesMap = new LinkedHashMap<>(hdbTagValueList.size() * 4 / 3 + 1);
+        for (TagSeries series : ConcurrentUtil.invokeAll(tasks, parallelism, ForkJoinPool.commonPool())) {
+            seriesMap.put(series.getTagName(), series);
+        }
+        return seriesMap;
+    }
+
+    /**
+     * 将单个标签的 OneTagHDBValue 列表解析为 {@link TagSeries}。
+     *
+     * <p>
+     * 值按标签类型由 {@link TagValueDecoder} 解码，解码时直接跳过首尾空白，不生成修剪后的字符串。
+     * </p>
+     *
+     * @param hdbTagValue   单个标签的历史数据
+     * @param getMethod     用于从 OneTagHDBValue 中提取值的函数
+     * @param qualityMethod 用于从 OneTagHDBValue 中提取质量的函数，为 null 时不生成质量位图
+     * @return 时间序列
+     */
+    public static TagSeries deConStructOneTagHdbSeries(HDBTagValue hdbTagValue,
+                                                       Function<OneTagHDBValue, String> getMethod,
+                                                       Function<OneTagHDBValue, Quality> qualityMethod) {
+        List<OneTagHDBValue> oneTagHDBValueList = hdbTagValue.getOneTagHDBValueList();
+        int size = oneTagHDBValueList == null ? 0 : oneTagHDBValueList.size();
+        TagType tagType = hdbTagValue.getTagType();
+        long[] times = new long[size];
+        double[] values = new double[size];
+        BitSet goodQuality = qualityMethod == null ? null : new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            OneTagHDBValue oneTagHDBValue = oneTagHDBValueList.get(i);
+            Date time = oneTagHDBValue.getTagValueTime();
+            times[i] = time == null ? Long.MIN_VALUE : time.getTime();
+            values[i] = TagValueDecoder.decodeDouble(tagType, getMethod.apply(oneTagHDBValue));
+            if (goodQuality != null && qualityMethod.apply(oneTagHDBValue) == Quality.GOOD) {
+                goodQuality.set(i);
+            }
+        }
+        return new TagSeries()
+                .setTagName(hdbTagValue.getTagName())
+                .setTagType(tagType)
+                .setTimes(times)
+                .setValues(values)
+                .setGoodQuality(goodQuality);
+    }
+
     /**
      * 将 DDBTagValue 列表解析为以标签名称为键、值为值的映射。
      *
@@ -1,5 +1,8 @@
 package io.github.forget_the_bright.hls.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 缓存持有者接口，定义了基本的缓存操作方法。
  * <p>
@@ -43,4 +46,40 @@ public interface CacheHolder<K, V> {
      * @param object 缓存值
      */
     void put(K key, V object);
+
+    /**
+     * 批量获取缓存值，默认逐个调用 {@link #get(Object)}，远端缓存可以覆盖为一次往返。
+     *
+     * @param keys 缓存键列表
+     * @return 与键列表顺序一致的缓存值列表，不存在的键对应 null
+     */
+    default List<V> multiGet(List<K> keys) {
+        List<V> values = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
+    /**
+     * 写入不会再变化的值，并设置过期时间。
+     * <p>同一个键不会写入不同的值，其他节点已有的副本不会过期失效，实现可以省略失效通知。默认调用 {@link #put(Object, Object, long)}。</p>
+     *
+     * @param key     缓存键
+     * @param object  缓存值
+     * @param timeout 过期时间，单位为毫秒
+     */
+    default void putImmutable(K key, V object, long timeout) {
+        put(key, object, timeout);
+    }
+
+    /**
+     * 淘汰当前进程持有的副本，用于控制本地占用。
+     * <p>多个节点共享的远端条目不删除，由过期时间回收。默认调用 {@link #remove(Object)}。</p>
+     *
+     * @param key 缓存键
+     */
+    default void evictLocal(K key) {
+        remove(key);
+    }
 }
@@ -0,0 +1,316 @@
+package io.github.forget_the_bright.hls.core;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.attach.ApiModule;
+import io.github.forget_the_bright.hls.exception.CircuitOpenException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个 API 模块的熔断器。
+ * <p>
+ * 关闭状态下统计最近 {@link ApiConfig#getCircuitBreakerWindowSize()} 个请求的结果，请求数达到
+ * {@link ApiConfig#getCircuitBreakerMinimumCalls()} 且失败比例达到 {@link ApiConfig#getCircuitBreakerFailureRateThreshold()} 时打开。
+ * 打开状态下 {@link #acquire()} 直接抛出 {@link CircuitOpenException}，不占用线程等待超时；
+ * 经过 {@link ApiConfig#getCircuitBreakerOpenSeconds()} 后转为半开，放行 {@link ApiConfig#getCircuitBreakerHalfOpenCalls()} 个探测请求，
+ * 全部成功则关闭，任一失败则重新打开。
+ * <p>
+ * 服务端无响应且未配置读取超时时请求不会返回，因此每次获取许可时都会检查在途请求，
+ * 已执行超过 {@link ApiConfig#getCircuitBreakerSlowCallMillis()} 的请求立即计为失败，不等它返回。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+    /**
+     * 熔断器状态。
+     */
+    public enum State {
+
+        /**
+         * 关闭，请求正常发送。
+         */
+        CLOSED,
+
+        /**
+         * 打开，请求立即失败。
+         */
+        OPEN,
+
+        /**
+         * 半开，放行少量探测请求。
+         */
+        HALF_OPEN
+    }
+
+    private final ApiModule module;
+
+    private final int minimumCalls;
+
+    private final double failureRateThreshold;
+
+    private final long slowCallNanos;
+
+    private final long openNanos;
+
+    private final int halfOpenCalls;
+
+    /**
+     * 最近请求的结果，true 表示失败，按环形缓冲区使用。
+     */
+    private final boolean[] window;
+
+    private int windowCount;
+
+    private int windowPosition;
+
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    /**
+     * 半开状态下已放行的探测请求数。
+     */
+    private int probesIssued;
+
+    /**
+     * 半开状态下成功的探测请求数。
+     */
+    private int probesSucceeded;
+
+    /**
+     * 在途请求。
+     */
+    private final Set<Permit> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 构造函数。
+     *
+     * @param module API 模块
+     * @param config API 配置对象，包含熔断器的各项阈值
+     */
+    public CircuitBreaker(ApiModule module, ApiConfig config) {
+        this.module = module;
+        this.window = new boolean[Math.max(1, config.getCircuitBreakerWindowSize())];
+        this.minimumCalls = Math.max(1, Math.min(window.length, config.getCircuitBreakerMinimumCalls()));
+        this.failureRateThreshold = config.getCircuitBreakerFailureRateThreshold();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, config.getCircuitBreakerSlowCallMillis()));
+        this.openNanos = TimeUnit.SECONDS.toNanos(Math.max(0L, config.getCircuitBreakerOpenSeconds()));
+        this.halfOpenCalls = Math.max(1, config.getCircuitBreakerHalfOpenCalls());
+    }
+
+    /**
+     * 获取发送请求的许可。
+     * <p>获取成功后必须调用 {@link #onSuccess(Permit)}、{@link #onFailure(Permit)} 或 {@link #onIgnore(Permit)} 之一。</p>
+     *
+     * @return 许可
+     * @throws CircuitOpenException 熔断器打开，或半开状态下探测请求已用完时抛出
+     */
+    public Permit acquire() {
+        expireSlowCalls();
+        boolean probe = false;
+        synchronized (this) {
+            if (state == State.OPEN) {
+                rejectIfOpen();
+                state = State.HALF_OPEN;
+                probesIssued = 0;
+                probesSucceeded = 0;
+                log.info("熔断器转为半开，放行 {} 个探测请求: {}", halfOpenCalls, module.getCode());
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesIssued >= halfOpenCalls) {
+                    ApiMetrics.increment("circuit.rejected");
+                    throw new CircuitOpenException("熔断器半开，等待探测请求结果: " + module.getCode(), module);
+                }
+                probesIssued++;
+                probe = true;
+            }
+        }
+        Permit permit = new Permit(probe);
+        inFlight.add(permit);
+        return permit;
+    }
+
+    /**
+     * 检查熔断器是否打开，不获取许可，用于在等待其他资源前提前失败。
+     * <p>半开状态或打开时间已到时不抛出，是否放行由 {@link #acquire()} 决定。</p>
+     *
+     * @throws CircuitOpenException 熔断器打开且尚未到转为半开的时间时抛出
+     */
+    public void checkNotOpen() {
+        expireSlowCalls();
+        synchronized (this) {
+            if (state == State.OPEN) {
+                rejectIfOpen();
+            }
+        }
+    }
+
+    /**
+     * 打开状态下尚未到转为半开的时间时拒绝，调用方需持有当前对象的锁。
+     */
+    private void rejectIfOpen() {
+        long remaining = openNanos - (System.nanoTime() - openedAt);
+        if (remaining > 0) {
+            ApiMetrics.increment("circuit.rejected");
+            throw new CircuitOpenException("熔断器已打开，" + TimeUnit.NANOSECONDS.toMillis(remaining)
+                    + " 毫秒后重试: " + module.getCode(), module);
+        }
+    }
+
+    /**
+     * 记录一次成功的请求，响应时间超过慢请求阈值时计为失败。
+     *
+     * @param permit 许可
+     */
+    public void onSuccess(Permit permit) {
+        record(permit, slowCallNanos > 0 && System.nanoTime() - permit.startNanos > slowCallNanos);
+    }
+
+    /**
+     * 记录一次失败的请求。
+     *
+     * @param permit 许可
+     */
+    public void onFailure(Permit permit) {
+        record(permit, true);
+    }
+
+    /**
+     * 释放许可，不计入统计，用于与服务端可用性无关的失败（例如令牌失效、请求被取消）。
+     *
+     * @param permit 许可
+     */
+    public void onIgnore(Permit permit) {
+        inFlight.remove(permit);
+        if (permit.recorded.compareAndSet(false, true) && permit.probe) {
+            synchronized (this) {
+                if (state == State.HALF_OPEN && probesIssued > 0) {
+                    probesIssued--;
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前状态。
+     *
+     * @return 熔断器状态
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 关闭状态下最近请求的失败比例。
+     *
+     * @return 失败比例（百分比），没有请求时为 0
+     */
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0D : windowFailures * 100D / windowCount;
+    }
+
+    private void record(Permit permit, boolean failure) {
+        inFlight.remove(permit);
+        if (!permit.recorded.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                if (failure) {
+                    open("探测请求失败");
+                } else if (++probesSucceeded >= halfOpenCalls) {
+                    close();
+                }
+            } else if (state == State.CLOSED) {
+                if (windowCount == window.length) {
+                    if (window[windowPosition]) {
+                        windowFailures--;
+                    }
+                } else {
+                    windowCount++;
+                }
+                window[windowPosition] = failure;
+                if (failure) {
+                    windowFailures++;
+                }
+                windowPosition = (windowPosition + 1) % window.length;
+                if (windowCount >= minimumCalls && windowFailures * 100D / windowCount >= failureRateThreshold) {
+                    open("失败比例 " + Math.round(windowFailures * 100D / windowCount) + "%");
+                }
+            }
+        }
+    }
+
+    /**
+     * 把已执行超过慢请求阈值、仍未返回的请求计为失败。
+     */
+    private void expireSlowCalls() {
+        if (slowCallNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Permit permit : inFlight) {
+            if (now - permit.startNanos > slowCallNanos) {
+                ApiMetrics.increment("circuit.slow.calls");
+                record(permit, true);
+            }
+        }
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        ApiMetrics.increment("circuit.opened");
+        log.warn("熔断器打开（{}），{} 秒内请求直接失败: {}", reason, TimeUnit.NANOSECONDS.toSeconds(openNanos), module.getCode());
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowCount = 0;
+        windowPosition = 0;
+        windowFailures = 0;
+        ApiMetrics.increment("circuit.closed");
+        log.info("熔断器关闭: {}", module.getCode());
+    }
+
+    /**
+     * 一次请求的许可。
+     */
+    public static final class Permit {
+
+        /**
+         * 是否为半开状态下的探测请求。
+         */
+        private final boolean probe;
+
+        /**
+         * 请求开始发送的时刻。
+         */
+        private volatile long startNanos = System.nanoTime();
+
+        /**
+         * 结果是否已计入统计。
+         */
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private Permit(boolean probe) {
+            this.probe = probe;
+        }
+
+        /**
+         * 标记请求开始发送，排队等待的时间不计入响应时间。
+         */
+        void markStarted() {
+            startNanos = System.nanoTime();
+        }
+    }
+}
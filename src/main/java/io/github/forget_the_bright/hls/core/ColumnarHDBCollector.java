@@ -0,0 +1,107 @@
+package io.github.forget_the_bright.hls.core;
+
+import io.github.forget_the_bright.hls.constant.common.HDBAggregate;
+import io.github.forget_the_bright.hls.entity.response.base.ColumnarHDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 将流式解析出的历史数据点直接写入 {@link ColumnarHDBTagValue} 的回调。
+ * <p>
+ * 同一个收集器可以依次接收按时间顺序切分的多个子区间的响应，同一标签的数据点追加到同一列；
+ * 子区间边界上重复的数据点（时间不晚于该标签最后一个数据点）会被跳过。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public class ColumnarHDBCollector implements HDBValueHandler {
+
+    /**
+     * 需要保存的聚合值类型。
+     */
+    private final Set<HDBAggregate> aggregates;
+
+    /**
+     * 按标签索引排列的按列数据。
+     */
+    private final Map<Integer, ColumnarHDBTagValue> columns = new TreeMap<>();
+
+    /**
+     * 正在接收数据点的列。
+     */
+    private ColumnarHDBTagValue current;
+
+    /**
+     * 构造函数。
+     *
+     * @param aggregates 需要保存的聚合值类型
+     */
+    public ColumnarHDBCollector(Set<HDBAggregate> aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    @Override
+    public void onTagStart(HDBTagValue tag) {
+        current = columns.get(tag.getIndex());
+        if (current == null) {
+            current = new ColumnarHDBTagValue(aggregates);
+            columns.put(tag.getIndex(), current);
+        }
+        current.setIndex(tag.getIndex()).setTagName(tag.getTagName());
+        if (tag.getTagType() != null) {
+            current.setTagType(tag.getTagType());
+        }
+    }
+
+    @Override
+    public void onValue(HDBTagValue tag, OneTagHDBValue value) {
+        if (value.getTagValueTime() != null && current.getSize() > 0
+                && value.getTagValueTime().getTime() <= current.getLastTime()) {
+            return;
+        }
+        current.append(value);
+    }
+
+    @Override
+    public void onTagEnd(HDBTagValue tag) {
+        ColumnarHDBTagValue column = current;
+        current = null;
+        if (column == null) {
+            // 标签没有数据点列表
+            column = columns.computeIfAbsent(tag.getIndex(), index -> new ColumnarHDBTagValue(aggregates, 0));
+        } else if (!tag.getIndex().equals(column.getIndex())) {
+            // 索引位于数据点列表之后，按最终索引归位
+            columns.remove(column.getIndex());
+            ColumnarHDBTagValue existing = columns.get(tag.getIndex());
+            if (existing != null) {
+                existing.appendAll(column);
+                column = existing;
+            } else {
+                columns.put(tag.getIndex(), column);
+            }
+        }
+        column.setIndex(tag.getIndex()).setTagName(tag.getTagName());
+        if (tag.getTagType() != null) {
+            column.setTagType(tag.getTagType());
+        }
+    }
+
+    /**
+     * 收集到的按列数据。
+     *
+     * @return 按标签索引排列的按列数据，数组已缩减到实际长度
+     */
+    public List<ColumnarHDBTagValue> getColumns() {
+        List<ColumnarHDBTagValue> list = new ArrayList<>(columns.size());
+        for (ColumnarHDBTagValue column : columns.values()) {
+            list.add(column.trimToSize());
+        }
+        return list;
+    }
+}
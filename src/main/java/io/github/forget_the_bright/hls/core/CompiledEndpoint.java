@@ -0,0 +1,137 @@
+package io.github.forget_the_bright.hls.core;
+
+import cn.hutool.http.Method;
+import io.github.forget_the_bright.hls.constant.attach.ApiEndpoint;
+import io.github.forget_the_bright.hls.constant.attach.ApiModule;
+import io.github.forget_the_bright.hls.constant.attach.ParamPosition;
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的接口描述。
+ * <p>
+ * 每个（模块，接口）组合只解析一次：完整 URL 由服务基础地址、模块上下文路径和接口路径拼接而成，
+ * 路径参数模板被拆分为字面量片段和参数名，请求时直接拼接，不再做反射或正则匹配。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-21
+ */
+public final class CompiledEndpoint {
+
+    /**
+     * 所属模块。
+     */
+    private final ApiModule module;
+
+    /**
+     * 接口描述。
+     */
+    private final ApiEndpoint endpoint;
+
+    /**
+     * 完整 URL（可能包含路径参数占位符）。
+     */
+    private final String url;
+
+    /**
+     * 路径模板片段，偶数位为字面量，奇数位为路径参数名；URL 不含占位符时为 null。
+     */
+    private final String[] pathTemplate;
+
+    /**
+     * 构造预编译的接口描述。
+     *
+     * @param baseUrl  服务基础地址
+     * @param module   所属模块
+     * @param endpoint 接口描述
+     */
+    CompiledEndpoint(String baseUrl, ApiModule module, ApiEndpoint endpoint) {
+        this.module = module;
+        this.endpoint = endpoint;
+        this.url = baseUrl + module.getContextPath() + endpoint.getPath();
+        this.pathTemplate = compileTemplate(url);
+    }
+
+    /**
+     * 将 URL 拆分为字面量和路径参数名交替排列的片段数组。
+     *
+     * @param url 完整 URL
+     * @return 模板片段，URL 不含占位符时返回 null
+     */
+    private static String[] compileTemplate(String url) {
+        if (url.indexOf('{') < 0) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = url.indexOf('{', from)) >= 0) {
+            int close = url.indexOf('}', open);
+            if (close < 0) {
+                break;
+            }
+            parts.add(url.substring(from, open));
+            parts.add(url.substring(open + 1, close));
+            from = close + 1;
+        }
+        parts.add(url.substring(from));
+        return parts.toArray(new String[0]);
+    }
+
+    /**
+     * 使用路径参数展开 URL 模板。
+     *
+     * @param params 路径参数
+     * @return 展开后的 URL
+     * @throws ApiException 缺少路径参数时抛出
+     */
+    public String expand(Map<?, ?> params) {
+        if (pathTemplate == null || params == null || params.isEmpty()) {
+            return url;
+        }
+        StringBuilder result = new StringBuilder(url.length() + 32);
+        for (int i = 0; i < pathTemplate.length; i++) {
+            if ((i & 1) == 0) {
+                result.append(pathTemplate[i]);
+            } else {
+                Object paramValue = params.get(pathTemplate[i]);
+                if (paramValue == null) {
+                    throw new ApiException("缺少路径参数: " + pathTemplate[i]);
+                }
+                result.append(paramValue);
+            }
+        }
+        return result.toString();
+    }
+
+    public ApiModule getModule() {
+        return module;
+    }
+
+    public ApiEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Method getMethod() {
+        return endpoint.getMethod();
+    }
+
+    public ParamPosition getPrimaryParamPosition() {
+        return endpoint.getPrimaryParamPosition();
+    }
+
+    public ParamPosition getSecondaryParamPosition() {
+        return endpoint.getSecondaryParamPosition();
+    }
+
+    public Class<?> getResultType() {
+        return endpoint.getResultType();
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.forget_the_bright.hls.core;
+
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 并发执行工具类。
+ * <p>
+ * 以有界并行度执行一组任务并按提交顺序返回结果。调用线程本身也会领取任务执行，
+ * 线程池中的工作线程只是协助者：即使线程池已被占满（例如在异步线程中再次发起拆分查询），
+ * 调用线程也能独立完成全部任务，不会因互相等待而死锁。
+ * <p>
+ * 在并行任务内部再次调用时（例如时间范围切分后每个子区间又按标签拆分）按顺序执行，
+ * 只有最外层并行，一次调用的总并发数不超过最外层的并行度，不会逐层相乘。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public final class ConcurrentUtil {
+
+    /**
+     * 当前线程是否正在执行并行任务。
+     */
+    private static final ThreadLocal<Boolean> IN_FAN_OUT = new ThreadLocal<>();
+
+    private ConcurrentUtil() {
+    }
+
+    /**
+     * 在 {@link ApiClient#getAsyncExecutor()} 中以有界并行度执行任务。
+     *
+     * @param tasks       任务列表
+     * @param parallelism 最大并行度（包含调用线程），小于 1 时按 1 处理，在并行任务内部调用时按 1 处理
+     * @param <T>         任务结果类型
+     * @return 与任务列表顺序一致的结果列表
+     * @throws ApiException 任一任务失败时抛出，{@link ApiException} 原样抛出，其他异常被包装
+     */
+    public static <T> List<T> invokeAll(List<Supplier<T>> tasks, int parallelism) {
+        return invokeAll(tasks, parallelism, ApiClient.getAsyncExecutor());
+    }
+
+    /**
+     * 在指定线程池中以有界并行度执行任务。
+     *
+     * @param tasks       任务列表
+     * @param parallelism 最大并行度（包含调用线程），小于 1 时按 1 处理，在并行任务内部调用时按 1 处理
+     * @param executor    协助执行任务的线程池
+     * @param <T>         任务结果类型
+     * @return 与任务列表顺序一致的结果列表
+     * @throws ApiException 任一任务失败时抛出，{@link ApiException} 原样抛出，其他异常被包装
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> invokeAll(List<Supplier<T>> tasks, int parallelism, Executor executor) {
+        int size = tasks.size();
+        if (size == 0) {
+            return new ArrayList<>();
+        }
+        if (size == 1 || parallelism <= 1 || IN_FAN_OUT.get() != null) {
+            List<T> results = new ArrayList<>(size);
+            for (Supplier<T> task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        }
+        Object[] results = new Object[size];
+        Throwable[] errors = new Throwable[size];
+        // 每个任务被领取后才会计数归零，调用线程只等待已被领取的任务
+        CountDownLatch[] done = new CountDownLatch[size];
+        for (int i = 0; i < size; i++) {
+            done[i] = new CountDownLatch(1);
+        }
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            // 线程池拒绝时可能由调用线程直接执行，此时标记已存在，不能提前清除
+            boolean nested = IN_FAN_OUT.get() != null;
+            if (!nested) {
+                IN_FAN_OUT.set(Boolean.TRUE);
+            }
+            try {
+                int i;
+                while ((i = next.getAndIncrement()) < size) {
+                    try {
+                        results[i] = tasks.get(i).get();
+                    } catch (Throwable e) {
+                        errors[i] = e;
+                    } finally {
+                        done[i].countDown();
+                    }
+                }
+            } finally {
+                if (!nested) {
+                    IN_FAN_OUT.remove();
+                }
+            }
+        };
+        int helpers = Math.min(parallelism, size) - 1;
+        for (int h = 0; h < helpers; h++) {
+            executor.execute(worker);
+        }
+        worker.run();
+        try {
+            for (CountDownLatch latch : done) {
+                latch.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("等待并行任务完成时被中断", e);
+        }
+        for (Throwable error : errors) {
+            if (error instanceof ApiException) {
+                throw (ApiException) error;
+            }
+            if (error != null) {
+                throw new ApiException("并行任务执行失败", error);
+            }
+        }
+        return (List<T>) new ArrayList<>(Arrays.asList(results));
+    }
+}
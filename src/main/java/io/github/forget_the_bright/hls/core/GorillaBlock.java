@@ -0,0 +1,383 @@
+package io.github.forget_the_bright.hls.core;
+
+import java.util.Arrays;
+
+/**
+ * Gorilla 风格压缩的时间序列数据块。
+ * <p>
+ * 时间按毫秒时间戳的二阶差分（delta-of-delta）编码，等间隔采样的数据点只占 1 位；
+ * 值按与前一个值的 IEEE 754 位模式异或编码，相同的值只占 1 位，相近的值只保存异或结果中的有效位；
+ * 可选的质量标记每个数据点占 1 位。所有位连续写入一个 {@code long[]}，数据块写满
+ * {@link #MAX_POINTS} 个数据点后缩减为实际长度。
+ * <p>
+ * 每个数据块同时记录数据点的个数、最小值、最大值和总和，完全落在查询范围内的数据块做聚合时无需解码。
+ * 本类不是线程安全的，由调用方加锁。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public final class GorillaBlock {
+
+    /**
+     * 单个数据块最多保存的数据点个数。
+     */
+    public static final int MAX_POINTS = 1024;
+
+    /**
+     * 对象头和各字段的估算大小（字节）。
+     */
+    private static final int HEADER_BYTES = 120;
+
+    /**
+     * 是否为每个数据点保存质量标记。
+     */
+    private final boolean withQuality;
+
+    private long[] bits = new long[4];
+
+    private int bitCount;
+
+    private int count;
+
+    private long firstTime;
+
+    private long lastTime;
+
+    private long prevDelta;
+
+    private long prevValueBits;
+
+    private int prevLeading = -1;
+
+    private int prevTrailing;
+
+    private int valueCount;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private double sum;
+
+    /**
+     * 构造函数。
+     *
+     * @param withQuality 是否为每个数据点保存质量标记
+     */
+    public GorillaBlock(boolean withQuality) {
+        this.withQuality = withQuality;
+    }
+
+    /**
+     * 追加一个数据点，时间必须晚于已有的数据点。
+     *
+     * @param time  毫秒时间戳
+     * @param value 值，NaN 表示无法解码的值，不参与聚合
+     * @param good  质量是否为 GOOD，不保存质量时忽略
+     * @throws IllegalStateException 数据块已满或时间不晚于最后一个数据点时抛出
+     */
+    public void append(long time, double value, boolean good) {
+        if (count >= MAX_POINTS || (count > 0 && time <= lastTime)) {
+            throw new IllegalStateException("数据块已满或数据点时间乱序");
+        }
+        long valueBits = Double.doubleToLongBits(value);
+        if (count == 0) {
+            writeBits(time, 64);
+            writeBits(valueBits, 64);
+            firstTime = time;
+        } else {
+            long delta = time - lastTime;
+            writeDeltaOfDelta(delta - prevDelta);
+            writeXor(valueBits ^ prevValueBits);
+            prevDelta = delta;
+        }
+        if (withQuality) {
+            writeBits(good ? 1 : 0, 1);
+        }
+        prevValueBits = valueBits;
+        lastTime = time;
+        count++;
+        if (!Double.isNaN(value)) {
+            valueCount++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        if (count == MAX_POINTS) {
+            bits = Arrays.copyOf(bits, (bitCount + 63) >>> 6);
+        }
+    }
+
+    /**
+     * 判断数据块是否已满。
+     *
+     * @return 已满返回 true
+     */
+    public boolean isFull() {
+        return count >= MAX_POINTS;
+    }
+
+    /**
+     * 数据点个数。
+     *
+     * @return 数据点个数
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 第一个数据点的时间。
+     *
+     * @return 毫秒时间戳
+     */
+    public long getFirstTime() {
+        return firstTime;
+    }
+
+    /**
+     * 最后一个数据点的时间。
+     *
+     * @return 毫秒时间戳
+     */
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * 值不为 NaN 的数据点个数。
+     *
+     * @return 数据点个数
+     */
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * 最小值。
+     *
+     * @return 最小值，没有有效值时为正无穷
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * 最大值。
+     *
+     * @return 最大值，没有有效值时为负无穷
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * 有效值的总和。
+     *
+     * @return 总和
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * 估算数据块占用的堆内存。
+     *
+     * @return 字节数
+     */
+    public long getMemoryBytes() {
+        return HEADER_BYTES + 16L + 8L * bits.length;
+    }
+
+    /**
+     * 创建从第一个数据点开始的读取游标，游标创建后不应再追加数据点。
+     *
+     * @return 读取游标
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else if (dod >= -64 && dod < 64) {
+            writeBits(0b10, 2);
+            writeBits(dod, 7);
+        } else if (dod >= -256 && dod < 256) {
+            writeBits(0b110, 3);
+            writeBits(dod, 9);
+        } else if (dod >= Short.MIN_VALUE && dod <= Short.MAX_VALUE) {
+            writeBits(0b1110, 4);
+            writeBits(dod, 16);
+        } else if (dod >= Integer.MIN_VALUE && dod <= Integer.MAX_VALUE) {
+            writeBits(0b11110, 5);
+            writeBits(dod, 32);
+        } else {
+            writeBits(0b11111, 5);
+            writeBits(dod, 64);
+        }
+    }
+
+    private void writeXor(long xor) {
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+            // 有效位落在上一个窗口内，沿用窗口
+            writeBits(0b10, 2);
+            writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+        } else {
+            int length = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 5);
+            writeBits(length - 1, 6);
+            writeBits(xor >>> trailing, length);
+            prevLeading = leading;
+            prevTrailing = trailing;
+        }
+    }
+
+    /**
+     * 按从高到低的顺序写入 value 的低 n 位。
+     */
+    private void writeBits(long value, int n) {
+        int end = bitCount + n;
+        if (end > bits.length << 6) {
+            bits = Arrays.copyOf(bits, Math.max(bits.length << 1, (end + 63) >>> 6));
+        }
+        long v = n == 64 ? value : value & ((1L << n) - 1);
+        int index = bitCount >>> 6;
+        int free = 64 - (bitCount & 63);
+        if (n <= free) {
+            bits[index] |= v << (free - n);
+        } else {
+            bits[index] |= v >>> (n - free);
+            bits[index + 1] |= v << (64 - (n - free));
+        }
+        bitCount = end;
+    }
+
+    /**
+     * 数据块的顺序读取游标。
+     */
+    public final class Cursor {
+
+        private int position;
+
+        private int read;
+
+        private long time;
+
+        private long delta;
+
+        private long valueBits;
+
+        private int leading;
+
+        private int trailing;
+
+        private boolean good = true;
+
+        private Cursor() {
+        }
+
+        /**
+         * 读取下一个数据点。
+         *
+         * @return 没有更多数据点时返回 false
+         */
+        public boolean next() {
+            if (read >= count) {
+                return false;
+            }
+            if (read == 0) {
+                time = readBits(64);
+                valueBits = readBits(64);
+            } else {
+                delta += readDeltaOfDelta();
+                time += delta;
+                if (readBits(1) != 0) {
+                    if (readBits(1) != 0) {
+                        leading = (int) readBits(5);
+                        int length = (int) readBits(6) + 1;
+                        trailing = 64 - leading - length;
+                    }
+                    valueBits ^= readBits(64 - leading - trailing) << trailing;
+                }
+            }
+            if (withQuality) {
+                good = readBits(1) != 0;
+            }
+            read++;
+            return true;
+        }
+
+        /**
+         * 当前数据点的时间。
+         *
+         * @return 毫秒时间戳
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * 当前数据点的值。
+         *
+         * @return 值
+         */
+        public double getValue() {
+            return Double.longBitsToDouble(valueBits);
+        }
+
+        /**
+         * 当前数据点的质量是否为 GOOD。
+         *
+         * @return 不保存质量时总是返回 true
+         */
+        public boolean isGood() {
+            return good;
+        }
+
+        private long readDeltaOfDelta() {
+            if (readBits(1) == 0) {
+                return 0;
+            }
+            if (readBits(1) == 0) {
+                return signExtend(readBits(7), 7);
+            }
+            if (readBits(1) == 0) {
+                return signExtend(readBits(9), 9);
+            }
+            if (readBits(1) == 0) {
+                return signExtend(readBits(16), 16);
+            }
+            if (readBits(1) == 0) {
+                return signExtend(readBits(32), 32);
+            }
+            return readBits(64);
+        }
+
+        private long signExtend(long value, int n) {
+            return (value << (64 - n)) >> (64 - n);
+        }
+
+        private long readBits(int n) {
+            int index = position >>> 6;
+            int offset = position & 63;
+            int free = 64 - offset;
+            long value;
+            if (n <= free) {
+                value = (bits[index] << offset) >>> (64 - n);
+            } else {
+                value = ((bits[index] << offset) >>> (64 - n)) | (bits[index + 1] >>> (64 - (n - free)));
+            }
+            position += n;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.forget_the_bright.hls.core;
+
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.parser.JSONLexer;
+import com.alibaba.fastjson.parser.JSONReaderScanner;
+import com.alibaba.fastjson.parser.JSONToken;
+import io.github.forget_the_bright.hls.constant.common.TagType;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.base.BaseResult;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * 历史库响应的流式解析器。
+ * <p>
+ * 基于 fastjson {@link JSONReader} 增量读取 {@code HDBTagValueList} / {@code OneTagHDBValueList} 数组，
+ * 每个数据点单独反序列化后立即交给 {@link HDBValueHandler}，不构建完整的 DatasResult 对象图。
+ * <p>
+ * 标签索引通常位于数据点列表之前；若服务端先输出数据点列表，则使用标签在数组中的位置作为索引。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public final class HDBStreamDecoder {
+
+    private HDBStreamDecoder() {
+    }
+
+    /**
+     * 流式解析历史库响应。
+     *
+     * @param reader      响应体字符流
+     * @param tagNameList 请求中的标签列表，用于按索引回填标签名称，可以为 null
+     * @param handler     数据点回调
+     * @return 响应的状态码和消息（不包含数据）
+     * @throws ApiException 响应格式错误时抛出
+     */
+    public static BaseResult decode(Reader reader, List<TagNameRequest> tagNameList, HDBValueHandler handler) {
+        BaseResult result = new BaseResult();
+        JSONReaderScanner lexer = new JSONReaderScanner(reader);
+        try (JSONReader jsonReader = new JSONReader(lexer)) {
+            jsonReader.startObject();
+            while (jsonReader.hasNext()) {
+                String key = jsonReader.readString();
+                if ("code".equalsIgnoreCase(key)) {
+                    Integer code = jsonReader.readInteger();
+                    result.setCode(code == null ? 0 : code);
+                } else if ("msg".equalsIgnoreCase(key)) {
+                    result.setMsg(jsonReader.readString());
+                } else if ("data".equalsIgnoreCase(key) && nextValueStartsWith(lexer, '{')) {
+                    decodeData(jsonReader, lexer, tagNameList, handler);
+                } else {
+                    jsonReader.readObject();
+                }
+            }
+            jsonReader.endObject();
+        } catch (ApiException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ApiException("流式解析历史数据失败", e);
+        }
+        return result;
+    }
+
+    private static void decodeData(JSONReader jsonReader, JSONLexer lexer, List<TagNameRequest> tagNameList, HDBValueHandler handler) {
+        jsonReader.startObject();
+        while (jsonReader.hasNext()) {
+            String key = jsonReader.readString();
+            if ("HDBTagValueList".equalsIgnoreCase(key) && nextValueStartsWith(lexer, '[')) {
+                jsonReader.startArray();
+                int position = 0;
+                while (jsonReader.hasNext()) {
+                    decodeTag(jsonReader, lexer, position++, tagNameList, handler);
+                }
+                jsonReader.endArray();
+            } else {
+                jsonReader.readObject();
+            }
+        }
+        jsonReader.endObject();
+    }
+
+    private static void decodeTag(JSONReader jsonReader, JSONLexer lexer, int position, List<TagNameRequest> tagNameList, HDBValueHandler handler) {
+        HDBTagValue tag = new HDBTagValue().setIndex(position);
+        resolveTagName(tag, tagNameList);
+        jsonReader.startObject();
+        while (jsonReader.hasNext()) {
+            String key = jsonReader.readString();
+            if ("Index".equalsIgnoreCase(key)) {
+                Integer index = jsonReader.readInteger();
+                if (index != null) {
+                    tag.setIndex(index);
+                    resolveTagName(tag, tagNameList);
+                }
+            } else if ("TagType".equalsIgnoreCase(key)) {
+                tag.setTagType(toTagType(jsonReader.readObject()));
+            } else if ("OneTagHDBValueList".equalsIgnoreCase(key) && nextValueStartsWith(lexer, '[')) {
+                handler.onTagStart(tag);
+                jsonReader.startArray();
+                while (jsonReader.hasNext()) {
+                    handler.onValue(tag, jsonReader.readObject(OneTagHDBValue.class));
+                }
+                jsonReader.endArray();
+            } else {
+                jsonReader.readObject();
+            }
+        }
+        jsonReader.endObject();
+        handler.onTagEnd(tag);
+    }
+
+    /**
+     * 判断刚读取的属性名之后的值是否以指定字符开头。
+     * <p>
+     * 读取属性名后词法分析器停在冒号上，{@link JSONReader#peek()} 只能返回冒号，这里跳过空白直接查看值的首字符。
+     *
+     * @param lexer 词法分析器
+     * @param start 期望的首字符
+     * @return 值以该字符开头时返回 true
+     */
+    private static boolean nextValueStartsWith(JSONLexer lexer, char start) {
+        if (lexer.token() == JSONToken.COLON) {
+            lexer.skipWhitespace();
+        }
+        return lexer.getCurrent() == start;
+    }
+
+    private static void resolveTagName(HDBTagValue tag, List<TagNameRequest> tagNameList) {
+        if (tagNameList != null && tag.getIndex() >= 0 && tag.getIndex() < tagNameList.size()) {
+            tag.setTagName(tagNameList.get(tag.getIndex()).getTagName());
+        }
+    }
+
+    private static TagType toTagType(Object raw) {
+        if (raw == null) {
+            return null;
+        }
+        String code = raw.toString();
+        for (TagType tagType : TagType.values()) {
+            if (tagType.toString().equals(code)) {
+                return tagType;
+            }
+        }
+        return null;
+    }
+}
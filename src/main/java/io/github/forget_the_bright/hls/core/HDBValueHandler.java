@@ -0,0 +1,42 @@
+package io.github.forget_the_bright.hls.core;
+
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+
+/**
+ * 历史数据流式解析回调。
+ * <p>
+ * 流式解析历史库响应时，每解析出一个 {@link OneTagHDBValue} 就回调一次，解析完的数据点不再被 SDK 持有，
+ * 因此无论结果集多大，堆内存占用都保持平稳。
+ * 回调中的 {@link HDBTagValue} 只包含索引、标签类型和标签名称，{@code oneTagHDBValueList} 始终为 null。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@FunctionalInterface
+public interface HDBValueHandler {
+
+    /**
+     * 开始解析某个标签的数据点列表时回调。
+     *
+     * @param tag 标签头信息（索引、标签类型、标签名称）
+     */
+    default void onTagStart(HDBTagValue tag) {
+    }
+
+    /**
+     * 每解析出一个数据点回调一次。
+     *
+     * @param tag   数据点所属标签的头信息
+     * @param value 数据点
+     */
+    void onValue(HDBTagValue tag, OneTagHDBValue value);
+
+    /**
+     * 某个标签解析结束时回调，此时标签头信息已完整。
+     *
+     * @param tag 标签头信息
+     */
+    default void onTagEnd(HDBTagValue tag) {
+    }
+}
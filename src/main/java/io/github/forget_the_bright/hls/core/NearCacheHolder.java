@@ -0,0 +1,319 @@
+package io.github.forget_the_bright.hls.core;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.TimedCache;
+import cn.hutool.core.util.IdUtil;
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两级缓存持有者，在 {@link RedisCacheHolder} 前加一层进程内近端缓存。
+ * <p>
+ * 读取时优先命中本地缓存，未命中再访问 Redis，并按 Redis 键的剩余有效期（不超过
+ * {@link ApiConfig#getNearCacheSeconds()}）回填本地缓存，本地副本最多 {@link ApiConfig#getNearCacheMaxEntries()} 个。写入和删除时通过 Redis 发布/订阅广播失效消息
+ * （{@link #putImmutable(Object, Object, long)} 写入的值不会变化，不广播），
+ * 其他节点收到后清除本地副本，并通知 {@link TokenHolder} 丢弃其在内存中持有的当前 Token，
+ * 因此在任一节点调用 {@link TokenHolder#clearToken()} 都会让所有节点重新读取。
+ *
+ * @param <K> 缓存键的类型
+ * @param <V> 缓存值的类型
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public class NearCacheHolder<K, V> implements CacheHolder<K, V>, DisposableBean {
+
+    /**
+     * 失效消息频道。
+     */
+    private static final String INVALIDATION_CHANNEL = "ge:near-cache:invalidate";
+
+    /**
+     * 当前节点标识，用于忽略自己发出的失效消息。
+     */
+    private final byte[] nodeId = IdUtil.fastSimpleUUID().getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Redis 远端缓存。
+     */
+    private final RedisCacheHolder<K, V> remote;
+
+    /**
+     * Spring Data Redis 的 RedisTemplate 实例，用于查询键的剩余有效期和发布失效消息。
+     */
+    private final RedisTemplate<K, V> redisTemplate;
+
+    /**
+     * 进程内近端缓存。
+     */
+    private final TimedCache<K, V> local;
+
+    /**
+     * 本地缓存最长保留时间，单位为毫秒。
+     */
+    private final long maxLocalTtl;
+
+    /**
+     * 本地缓存最大条目数，小于等于 0 表示不限制。
+     */
+    private final int maxLocalEntries;
+
+    /**
+     * 失效消息监听容器。
+     */
+    private final RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 构造函数，初始化本地缓存并订阅失效消息。
+     *
+     * @param redisTemplate Spring Data Redis 的 RedisTemplate 实例
+     * @param config        配置类，包含近端缓存保留时间等配置信息
+     */
+    public NearCacheHolder(RedisTemplate<K, V> redisTemplate, ApiConfig config) {
+        this.remote = new RedisCacheHolder<>(redisTemplate, config);
+        this.redisTemplate = redisTemplate;
+        this.maxLocalTtl = TimeUnit.SECONDS.toMillis(config.getNearCacheSeconds());
+        this.maxLocalEntries = config.getNearCacheMaxEntries();
+        this.local = CacheUtil.newTimedCache(maxLocalTtl);
+        this.local.schedulePrune(maxLocalTtl);
+        this.listenerContainer = new RedisMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(redisTemplate.getConnectionFactory());
+        this.listenerContainer.addMessageListener(new InvalidationListener(), new ChannelTopic(INVALIDATION_CHANNEL));
+        this.listenerContainer.afterPropertiesSet();
+        this.listenerContainer.start();
+    }
+
+    /**
+     * 根据键获取缓存值，优先读取本地缓存。
+     *
+     * @param key 缓存键
+     * @return 缓存值，如果不存在则返回 null
+     */
+    @Override
+    public V get(K key) {
+        V value = local.get(key, false);
+        if (value != null) {
+            ApiMetrics.increment("cache.near.hits");
+            return value;
+        }
+        ApiMetrics.increment("cache.near.misses");
+        value = remote.get(key);
+        if (value != null) {
+            putLocal(key, value, redisTemplate.getExpire(key, TimeUnit.MILLISECONDS));
+        }
+        return value;
+    }
+
+    /**
+     * 批量获取缓存值，本地未命中的键通过一次 MGET 从 Redis 读取。
+     * <p>读到的键的剩余有效期通过一次管道查询，回填规则与 {@link #get(Object)} 相同。</p>
+     *
+     * @param keys 缓存键列表
+     * @return 与键列表顺序一致的缓存值列表，不存在的键对应 null
+     */
+    @Override
+    public List<V> multiGet(List<K> keys) {
+        List<V> values = new ArrayList<>(keys.size());
+        List<K> missing = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (K key : keys) {
+            V value = local.get(key, false);
+            if (value == null) {
+                missing.add(key);
+                positions.add(values.size());
+            }
+            values.add(value);
+        }
+        ApiMetrics.add("cache.near.hits", keys.size() - missing.size());
+        if (missing.isEmpty()) {
+            return values;
+        }
+        ApiMetrics.add("cache.near.misses", missing.size());
+        List<V> fetched = remote.multiGet(missing);
+        List<K> found = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i++) {
+            V value = fetched.get(i);
+            if (value != null) {
+                found.add(missing.get(i));
+                values.set(positions.get(i), value);
+            }
+        }
+        if (found.isEmpty()) {
+            return values;
+        }
+        List<Object> remoteTtls = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <KK, VV> Object execute(RedisOperations<KK, VV> operations) {
+                for (K key : found) {
+                    ((RedisOperations<K, V>) operations).getExpire(key, TimeUnit.MILLISECONDS);
+                }
+                return null;
+            }
+        });
+        for (int i = 0, j = 0; i < missing.size(); i++) {
+            V value = fetched.get(i);
+            if (value != null) {
+                Object remoteTtl = remoteTtls.get(j++);
+                putLocal(missing.get(i), value, remoteTtl instanceof Number ? ((Number) remoteTtl).longValue() : null);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 根据键移除缓存值，并通知其他节点清除本地副本。
+     *
+     * @param key 缓存键
+     */
+    @Override
+    public void remove(K key) {
+        remote.remove(key);
+        local.remove(key);
+        publishInvalidation(key);
+    }
+
+    /**
+     * 只清除本地副本，Redis 中的条目由过期时间回收，不广播失效消息。
+     *
+     * @param key 缓存键
+     */
+    @Override
+    public void evictLocal(K key) {
+        local.remove(key);
+    }
+
+    /**
+     * 将键值对存入缓存，并设置过期时间，同时通知其他节点清除旧的本地副本。
+     *
+     * @param key     缓存键
+     * @param object  缓存值
+     * @param timeout 过期时间，单位为毫秒
+     */
+    @Override
+    public void put(K key, V object, long timeout) {
+        remote.put(key, object, timeout);
+        local.remove(key);
+        putLocal(key, object, timeout);
+        publishInvalidation(key);
+    }
+
+    /**
+     * 将键值对存入缓存，使用默认的 token 过期时间减去提前刷新缓冲时间作为过期时间。
+     *
+     * @param key    缓存键
+     * @param object 缓存值
+     */
+    @Override
+    public void put(K key, V object) {
+        remote.put(key, object);
+        local.remove(key);
+        publishInvalidation(key);
+    }
+
+    /**
+     * 写入不会再变化的值，其他节点的本地副本不会过期失效，因此不广播失效消息。
+     *
+     * @param key     缓存键
+     * @param object  缓存值
+     * @param timeout 过期时间，单位为毫秒
+     */
+    @Override
+    public void putImmutable(K key, V object, long timeout) {
+        remote.put(key, object, timeout);
+        putLocal(key, object, timeout);
+    }
+
+    /**
+     * 按 Redis 键的剩余有效期回填本地缓存，本地缓存已满时先清理过期条目，仍然已满则不回填。
+     *
+     * @param remoteTtl Redis 键的剩余有效期（毫秒），-1 或 null 表示没有过期时间，-2 表示键已不存在
+     */
+    private void putLocal(K key, V value, Long remoteTtl) {
+        long ttl = remoteTtl == null || remoteTtl == -1 ? maxLocalTtl : Math.min(remoteTtl, maxLocalTtl);
+        if (ttl <= 0) {
+            return;
+        }
+        if (maxLocalEntries > 0 && local.size() >= maxLocalEntries && !local.containsKey(key)) {
+            local.prune();
+            if (local.size() >= maxLocalEntries) {
+                ApiMetrics.increment("cache.near.full");
+                return;
+            }
+        }
+        local.put(key, value, ttl);
+    }
+
+    /**
+     * 广播失效消息，消息内容为节点标识加上序列化后的键。
+     *
+     * @param key 缓存键
+     */
+    @SuppressWarnings("unchecked")
+    private void publishInvalidation(K key) {
+        byte[] keyBytes = ((RedisSerializer<K>) redisTemplate.getKeySerializer()).serialize(key);
+        if (keyBytes == null) {
+            return;
+        }
+        byte[] payload = Arrays.copyOf(nodeId, nodeId.length + keyBytes.length);
+        System.arraycopy(keyBytes, 0, payload, nodeId.length, keyBytes.length);
+        byte[] channel = INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, payload));
+        } catch (Exception e) {
+            // 广播失败时其他节点的本地副本最多保留 nearCacheSeconds
+            log.warn("近端缓存失效消息发布失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭失效消息监听容器，停止本地缓存的定时清理。
+     *
+     * @throws Exception 关闭监听容器失败时抛出
+     */
+    @Override
+    public void destroy() throws Exception {
+        local.cancelPruneSchedule();
+        local.clear();
+        listenerContainer.destroy();
+    }
+
+    /**
+     * 失效消息监听器，收到其他节点的消息后清除本地副本，Token 失效时同时通知 {@link TokenHolder}。
+     */
+    private class InvalidationListener implements MessageListener {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onMessage(Message message, byte[] pattern) {
+            byte[] payload = message.getBody();
+            if (payload.length <= nodeId.length
+                    || Arrays.equals(Arrays.copyOf(payload, nodeId.length), nodeId)) {
+                return;
+            }
+            K key = ((RedisSerializer<K>) redisTemplate.getKeySerializer())
+                    .deserialize(Arrays.copyOfRange(payload, nodeId.length, payload.length));
+            if (key != null) {
+                local.remove(key);
+                TokenHolder.onRemoteInvalidation(key);
+                ApiMetrics.increment("cache.near.invalidations");
+            }
+        }
+    }
+}
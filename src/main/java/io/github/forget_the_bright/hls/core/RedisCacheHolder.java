@@ -4,6 +4,8 @@ import io.github.forget_the_bright.hls.config.ApiConfig;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -57,6 +59,25 @@ public class RedisCacheHolder<K, V> implements CacheHolder<K, V> {
         return ops.get(key);
     }
 
+    /**
+     * 使用 MGET 批量获取缓存值，一次往返。
+     *
+     * @param keys 缓存键列表
+     * @return 与键列表顺序一致的缓存值列表，不存在的键对应 null
+     */
+    @Override
+    public List<V> multiGet(List<K> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<V> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            // 在事务或管道中执行时返回 null，逐个读取
+            return CacheHolder.super.multiGet(keys);
+        }
+        return values;
+    }
+
     /**
      * 根据键移除缓存值。
      *
@@ -67,6 +88,15 @@ public class RedisCacheHolder<K, V> implements CacheHolder<K, V> {
         redisTemplate.delete(key);
     }
 
+    /**
+     * 当前进程不持有副本，Redis 中的条目由过期时间回收。
+     *
+     * @param key 缓存键
+     */
+    @Override
+    public void evictLocal(K key) {
+    }
+
     /**
      * 将键值对存入缓存，并设置过期时间。
      *
@@ -0,0 +1,348 @@
+package io.github.forget_the_bright.hls.core;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求执行器。
+ * <p>
+ * 按接口记录最近 {@link #WINDOW} 次请求的响应时间，请求在超过其 {@link ApiConfig#getHedgePercentile()} 分位
+ * （不低于 {@link ApiConfig#getHedgeMinDelayMillis()}）后仍未返回时，再发送一次相同的请求，先成功返回的结果生效，
+ * 另一个请求被取消：尚未开始的不再发送，正在执行的线程被中断，传输层不响应中断时其结果被丢弃。
+ * <p>
+ * 对冲请求受预算限制：每个普通请求积累 {@link ApiConfig#getHedgeBudgetPercent()}% 个对冲额度，
+ * 每次对冲消耗一个，额度最多积累 {@link #MAX_BUDGET} 个，因此对冲带来的额外请求不超过该比例。
+ * <p>
+ * 首个请求在 {@link ApiClient#getAsyncExecutor()} 中执行。样本不足或线程池繁忙、请求未能及时开始时，
+ * 由调用线程直接执行，不做对冲，线程池占满时也不会互相等待。
+ * 对冲请求提交到独立的线程池，该线程池不排队，没有空闲线程时直接拒绝，此时不发送对冲请求并退还额度，
+ * 对冲请求不会在调用线程中执行，不会让调用方在首个请求已返回后还要等待对冲请求。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public final class RequestHedger {
+
+    /**
+     * 每个接口保留的响应时间样本数。
+     */
+    private static final int WINDOW = 256;
+
+    /**
+     * 开始对冲前每个接口至少需要的样本数。
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * 每积累多少个新样本重新计算一次分位值。
+     */
+    private static final int RECOMPUTE_EVERY = 16;
+
+    /**
+     * 预算额度的单位，一次对冲消耗的额度。
+     */
+    private static final long BUDGET_UNIT = 1000L;
+
+    /**
+     * 最多积累的对冲次数。
+     */
+    private static final long MAX_BUDGET = 10L;
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    /**
+     * 每个普通请求积累的额度。
+     */
+    private final long depositPerRequest;
+
+    /**
+     * 当前对冲额度，单位为 {@link #BUDGET_UNIT} 分之一次对冲。
+     */
+    private final AtomicLong budget = new AtomicLong();
+
+    /**
+     * 按接口索引的响应时间样本。
+     */
+    private final Map<Object, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 执行对冲请求的线程池，不排队，线程数达到上限时拒绝。
+     */
+    private final ThreadPoolExecutor hedgeExecutor;
+
+    /**
+     * 构造函数。
+     *
+     * @param config API 配置对象，包含对冲分位、最小延迟和预算
+     */
+    public RequestHedger(ApiConfig config) {
+        this.percentile = Math.min(100D, Math.max(0D, config.getHedgePercentile()));
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, config.getHedgeMinDelayMillis()));
+        this.depositPerRequest = Math.round(Math.max(0D, config.getHedgeBudgetPercent()) * BUDGET_UNIT / 100D);
+        this.hedgeExecutor = new ThreadPoolExecutor(0, Math.max(1, config.getAsyncPoolSize()), 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                ThreadFactoryBuilder.create().setNamePrefix("hls-hedge-").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 执行请求，必要时对冲。
+     *
+     * @param key      接口标识，用于分别统计响应时间
+     * @param call     发送请求的函数，必须是幂等的
+     * @param executor 执行首个请求的线程池，对冲请求总是在独立的线程池中执行
+     * @param <R>      响应类型
+     * @return 先成功返回的响应
+     * @throws RuntimeException 全部请求都失败时抛出首个请求的异常
+     */
+    public <R> R execute(Object key, Supplier<R> call, Executor executor) {
+        LatencyWindow window = windows.computeIfAbsent(key, k -> new LatencyWindow());
+        deposit(depositPerRequest);
+        long delayNanos = window.hedgeDelayNanos();
+        if (delayNanos < 0) {
+            long start = System.nanoTime();
+            R result = call.get();
+            window.record(System.nanoTime() - start);
+            return result;
+        }
+        BlockingQueue<Attempt<R>> completed = new LinkedBlockingQueue<>();
+        List<Attempt<R>> attempts = new ArrayList<>(2);
+        Attempt<R> primary = new Attempt<>(call, window, completed);
+        attempts.add(primary);
+        if (!submit(executor, primary)) {
+            primary.runInline();
+        }
+        try {
+            Attempt<R> done = completed.poll(delayNanos, TimeUnit.NANOSECONDS);
+            if (done == null) {
+                if (primary.runInline()) {
+                    // 线程池繁忙，请求还没开始，由调用线程执行
+                    done = completed.take();
+                } else if (tryWithdraw()) {
+                    Attempt<R> hedge = new Attempt<>(call, window, completed);
+                    if (submit(hedgeExecutor, hedge)) {
+                        attempts.add(hedge);
+                        ApiMetrics.increment("hedge.sent");
+                    } else {
+                        deposit(BUDGET_UNIT);
+                    }
+                } else {
+                    ApiMetrics.increment("hedge.budget.exhausted");
+                }
+            }
+            RuntimeException error = null;
+            int remaining = attempts.size();
+            while (true) {
+                if (done == null) {
+                    done = next(primary, completed);
+                }
+                remaining--;
+                if (done.error == null) {
+                    if (done != primary) {
+                        ApiMetrics.increment("hedge.won");
+                    }
+                    return done.result;
+                }
+                if (error == null) {
+                    error = done.error;
+                }
+                if (remaining == 0) {
+                    throw error;
+                }
+                done = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("等待对冲请求完成时被中断", e);
+        } finally {
+            for (Attempt<R> attempt : attempts) {
+                attempt.cancel();
+            }
+        }
+    }
+
+    /**
+     * 等待下一个完成的请求，首个请求尚未开始时由调用线程直接执行；对冲请求提交时已有线程接手，不在调用线程中执行。
+     */
+    private static <R> Attempt<R> next(Attempt<R> primary, BlockingQueue<Attempt<R>> completed) throws InterruptedException {
+        Attempt<R> done = completed.poll();
+        if (done != null) {
+            return done;
+        }
+        primary.runInline();
+        return completed.take();
+    }
+
+    /**
+     * 提交到线程池，线程池拒绝时保持未开始状态。
+     *
+     * @return 线程池接受时返回 true
+     */
+    private static boolean submit(Executor executor, Runnable attempt) {
+        try {
+            executor.execute(attempt);
+            return true;
+        } catch (RejectedExecutionException e) {
+            ApiMetrics.increment("hedge.rejected");
+            return false;
+        }
+    }
+
+    private void deposit(long amount) {
+        budget.accumulateAndGet(amount, (current, delta) -> Math.min(MAX_BUDGET * BUDGET_UNIT, current + delta));
+    }
+
+    private boolean tryWithdraw() {
+        while (true) {
+            long current = budget.get();
+            if (current < BUDGET_UNIT) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - BUDGET_UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 一次请求尝试，由线程池或调用线程执行，执行前先抢占，保证只执行一次。
+     */
+    private static final class Attempt<R> implements Runnable {
+
+        private final Supplier<R> call;
+
+        private final LatencyWindow window;
+
+        private final BlockingQueue<Attempt<R>> completed;
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Thread runner;
+
+        private boolean cancelled;
+
+        private R result;
+
+        private RuntimeException error;
+
+        Attempt(Supplier<R> call, LatencyWindow window, BlockingQueue<Attempt<R>> completed) {
+            this.call = call;
+            this.window = window;
+            this.completed = completed;
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                execute(false);
+            }
+        }
+
+        /**
+         * 尚未开始时由调用线程执行。
+         *
+         * @return 由调用线程执行时返回 true
+         */
+        boolean runInline() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            execute(true);
+            return true;
+        }
+
+        void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (this) {
+                cancelled = true;
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+        }
+
+        private void execute(boolean inline) {
+            if (!inline) {
+                synchronized (this) {
+                    runner = Thread.currentThread();
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                result = call.get();
+                window.record(System.nanoTime() - start);
+            } catch (RuntimeException e) {
+                error = e;
+            } catch (Throwable e) {
+                error = new ApiException("请求执行失败", e);
+            } finally {
+                if (!inline) {
+                    synchronized (this) {
+                        runner = null;
+                    }
+                    if (cancelled) {
+                        // 清除取消时的中断标记，不影响线程池中的下一个任务
+                        Thread.interrupted();
+                    }
+                }
+                completed.add(this);
+            }
+        }
+    }
+
+    /**
+     * 单个接口最近的响应时间样本。
+     */
+    private final class LatencyWindow {
+
+        private final long[] samples = new long[WINDOW];
+
+        private int count;
+
+        private int sinceRecompute;
+
+        private long delayNanos = -1;
+
+        synchronized void record(long nanos) {
+            samples[count % WINDOW] = nanos;
+            count++;
+            if (++sinceRecompute >= RECOMPUTE_EVERY && count >= MIN_SAMPLES) {
+                sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(samples, Math.min(count, WINDOW));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100D * sorted.length) - 1;
+                delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, Math.min(sorted.length - 1, index))]);
+            }
+        }
+
+        /**
+         * 对冲延迟。
+         *
+         * @return 纳秒，样本不足时返回 -1
+         */
+        synchronized long hedgeDelayNanos() {
+            return delayNanos;
+        }
+    }
+}
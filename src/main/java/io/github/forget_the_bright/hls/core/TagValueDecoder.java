@@ -0,0 +1,277 @@
+package io.github.forget_the_bright.hls.core;
+
+import io.github.forget_the_bright.hls.constant.common.TagType;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 按 {@link TagType} 将字符串形式的标签值解码为基本类型。
+ * <p>
+ * 服务端返回的标签值都是字符串，且可能带有首尾空白。解码时直接按下标跳过空白，不生成修剪后的字符串；
+ * 不超过 15 位有效数字、小数位不超过 22 位的十进制数（服务端返回的绝大多数值）由整数运算直接得到正确舍入的结果，
+ * 其余情况才交给 {@link Double#parseDouble(String)}。
+ * <p>
+ * 无法解码的值（空值、{@link TagType#STRING} 类型、非数字）返回 {@link Double#NaN}。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public final class TagValueDecoder {
+
+    /**
+     * 10 的 0 到 22 次幂，均可被 double 精确表示。
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * 可以精确参与运算的最大有效数字位数。
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private TagValueDecoder() {
+    }
+
+    /**
+     * 按标签类型将标签值解码为 double。
+     * <p>
+     * {@link TagType#BOOL} 同时接受 {@code true}/{@code false} 和数字；{@link TagType#STRING} 总是返回 NaN；
+     * 类型未知时按数字解码。
+     *
+     * @param tagType 标签类型，可以为 null
+     * @param value   标签值
+     * @return 解码后的值，无法解码时返回 {@link Double#NaN}
+     */
+    public static double decodeDouble(TagType tagType, String value) {
+        if (tagType == TagType.STRING || tagType == TagType.TAG_NAME_NOT_EXIST) {
+            return Double.NaN;
+        }
+        if (tagType == TagType.BOOL) {
+            int bool = parseBoolean(value);
+            if (bool >= 0) {
+                return bool;
+            }
+        }
+        return parseDouble(value);
+    }
+
+    /**
+     * 按标签类型将标签值解码为 long。
+     * <p>
+     * 整数类型直接按整数解析；浮点类型按 double 解码后截断。
+     *
+     * @param tagType      标签类型，可以为 null
+     * @param value        标签值
+     * @param defaultValue 无法解码时返回的值
+     * @return 解码后的值
+     */
+    public static long decodeLong(TagType tagType, String value, long defaultValue) {
+        if (tagType != null && tagType.isIntegral()) {
+            if (tagType == TagType.BOOL) {
+                int bool = parseBoolean(value);
+                if (bool >= 0) {
+                    return bool;
+                }
+            }
+            long parsed = parseLong(value, Long.MIN_VALUE);
+            if (parsed != Long.MIN_VALUE) {
+                return parsed;
+            }
+        }
+        double decoded = decodeDouble(tagType, value);
+        return Double.isNaN(decoded) ? defaultValue : (long) decoded;
+    }
+
+    /**
+     * 将一个标签的历史数据点的某个值解码为 double 数组，下标与数据点列表一致。
+     *
+     * @param tagType   标签类型，可以为 null
+     * @param values    历史数据点列表，可以为 null
+     * @param getMethod 用于从 OneTagHDBValue 中提取值的函数，例如 {@code OneTagHDBValue::getTagValueAVG}
+     * @return 解码后的值，无法解码的位置为 {@link Double#NaN}
+     */
+    public static double[] decodeDoubles(TagType tagType, List<OneTagHDBValue> values, Function<OneTagHDBValue, String> getMethod) {
+        if (values == null) {
+            return new double[0];
+        }
+        double[] decoded = new double[values.size()];
+        for (int i = 0; i < decoded.length; i++) {
+            decoded[i] = decodeDouble(tagType, getMethod.apply(values.get(i)));
+        }
+        return decoded;
+    }
+
+    /**
+     * 将一个标签的历史数据点的时间取为毫秒时间戳数组，下标与数据点列表一致。
+     *
+     * @param values 历史数据点列表，可以为 null
+     * @return 毫秒时间戳，时间为空的位置为 {@link Long#MIN_VALUE}
+     */
+    public static long[] decodeTimes(List<OneTagHDBValue> values) {
+        if (values == null) {
+            return new long[0];
+        }
+        long[] times = new long[values.size()];
+        for (int i = 0; i < times.length; i++) {
+            OneTagHDBValue value = values.get(i);
+            times[i] = value.getTagValueTime() == null ? Long.MIN_VALUE : value.getTagValueTime().getTime();
+        }
+        return times;
+    }
+
+    /**
+     * 将解码后的值还原为标签值字符串。
+     * <p>
+     * 整数值输出为不带小数点的整数，其余按 {@link Double#toString(double)} 输出，与服务端原始字符串的格式可能不同。
+     *
+     * @param value 解码后的值
+     * @return 标签值字符串，NaN 返回 null
+     */
+    public static String toValueString(double value) {
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * 解析十进制数字，忽略首尾空白。
+     *
+     * @param value 字符串
+     * @return 解析结果，无法解析时返回 {@link Double#NaN}
+     */
+    public static double parseDouble(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+        int i = start;
+        boolean negative = false;
+        char first = value.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int scale = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (digitCount == 0 && c == '0') {
+                    // 前导零不计入有效数字
+                    if (seenPoint) {
+                        scale++;
+                    }
+                    continue;
+                }
+                if (++digitCount > MAX_EXACT_DIGITS) {
+                    return parseSlow(value, start, end);
+                }
+                digits = digits * 10 + (c - '0');
+                if (seenPoint) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                // 指数、十六进制、NaN 等少见格式
+                return parseSlow(value, start, end);
+            }
+        }
+        if (!seenDigit) {
+            return Double.NaN;
+        }
+        if (scale >= POWERS_OF_TEN.length) {
+            return parseSlow(value, start, end);
+        }
+        double result = digits / POWERS_OF_TEN[scale];
+        return negative ? -result : result;
+    }
+
+    /**
+     * 解析十进制整数，忽略首尾空白。
+     *
+     * @param value        字符串
+     * @param defaultValue 无法解析（包括含有小数部分）时返回的值
+     * @return 解析结果
+     */
+    public static long parseLong(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return defaultValue;
+        }
+        long result = 0;
+        for (; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return defaultValue;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * 解析布尔值，忽略大小写和首尾空白。
+     *
+     * @return true 返回 1，false 返回 0，不是布尔字面量返回 -1
+     */
+    private static int parseBoolean(String value) {
+        if (value == null) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        if ("true".equalsIgnoreCase(trimmed)) {
+            return 1;
+        }
+        if ("false".equalsIgnoreCase(trimmed)) {
+            return 0;
+        }
+        return -1;
+    }
+
+    private static double parseSlow(String value, int start, int end) {
+        try {
+            return Double.parseDouble(value.substring(start, end));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
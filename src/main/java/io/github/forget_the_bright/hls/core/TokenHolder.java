@@ -1,5 +1,6 @@
 package io.github.forget_the_bright.hls.core;
 
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSONObject;
@@ -9,18 +10,33 @@ import io.github.forget_the_bright.hls.constant.attach.ApiModule;
 import io.github.forget_the_bright.hls.constant.common.StateCode;
 import io.github.forget_the_bright.hls.entity.response.TokenResult;
 import io.github.forget_the_bright.hls.exception.ApiException;
+import io.github.forget_the_bright.hls.exception.CircuitOpenException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Token 管理类，使用 {@link CacheHolder} 实现 Token 缓存和自动刷新。
  * <p>
  * 该类负责管理访问 Token 的缓存，包括获取、刷新和清除 Token。
+ * <p>
+ * 当 {@link ApiConfig#getTokenRefreshAheadRatio()} 在 (0, 1) 之间时启用提前刷新模式：当前 Token 保存在
+ * {@link AtomicReference} 中，读取时无锁；后台线程在有效期达到该比例时换取新 Token 并原子替换，
+ * 只有在完全没有有效 Token（首次调用或被 {@link #clearToken()} 清除）时，请求线程才会阻塞等待刷新。
+ * 多个节点共用缓存时，后台刷新前先检查缓存，其他节点已换上新 Token 时直接采用，不再重复换取。
+ * <p>
+ * 调用认证接口只在 {@link #REFRESH_LOCK} 内进行，同一时刻最多一个刷新请求；作废、清除 Token 不等待刷新完成。
+ * 开启熔断时，认证模块的熔断器打开后刷新立即抛出 {@link CircuitOpenException}，
+ * 等待其他线程刷新的时间不超过 {@link ApiConfig#getCircuitBreakerSlowCallMillis()}。
  *
  * @author wanghao (helloworlwh @ 163.com)
  * @since 2025-03-03
@@ -34,11 +50,21 @@ public class TokenHolder {
      */
     private static final String TOKEN_KEY = "ge:access_token";
 
+    /**
+     * 缓存中存储 Token 签发时刻的键，值为 {@code 签发时刻毫秒:Token 哈希}，用于估算其他节点换取的 Token 的剩余有效期。
+     */
+    private static final String ISSUED_AT_KEY = "ge:access_token_issued_at";
+
     /**
      * 默认提前刷新 Token 的时间缓冲，单位为毫秒。
      */
     private static final long DEFAULT_EXPIRE_BUFFER = 5000; // 提前 5 秒刷新 Token
 
+    /**
+     * 后台刷新失败后的重试间隔上限，单位为毫秒。
+     */
+    private static final long MAX_RETRY_DELAY = 30000;
+
     /**
      * API 配置对象，包含认证相关信息。
      */
@@ -49,6 +75,31 @@ public class TokenHolder {
      */
     private static CacheHolder<String, String> cacheHolder;
 
+    /**
+     * 提前刷新模式下的当前 Token。
+     */
+    private static final AtomicReference<TokenEntry> CURRENT = new AtomicReference<>();
+
+    /**
+     * 提前刷新使用的调度线程，首次调度时创建。
+     */
+    private static volatile ScheduledExecutorService scheduler;
+
+    /**
+     * 已调度的下一次提前刷新任务。
+     */
+    private static ScheduledFuture<?> renewal;
+
+    /**
+     * 调用认证接口换取 Token 时持有的锁，与类锁分开，避免作废 Token、调度刷新等操作等待网络请求。
+     */
+    private static final ReentrantLock REFRESH_LOCK = new ReentrantLock();
+
+    /**
+     * 等待刷新锁时检查熔断器状态的间隔，单位为毫秒。
+     */
+    private static final long LOCK_POLL_MILLIS = 100;
+
     /**
      * 构造函数，初始化缓存持有者和 API 配置。
      *
@@ -59,32 +110,190 @@ public class TokenHolder {
     public TokenHolder(CacheHolder<String, String> cacheHolder, ApiConfig config) {
         this.cacheHolder = cacheHolder;
         this.config = config;
+        // 配置可能变化，丢弃旧的 Token 和刷新任务
+        resetCurrent();
     }
 
     /**
      * 获取有效的 Token。
      * <p>
      * 如果缓存中存在有效的 Token，则返回该 Token；否则，刷新 Token 并返回新的 Token。
+     * 提前刷新模式下直接读取当前 Token，不加锁。
      *
      * @return 有效的 Token
      */
     public static String getValidToken() {
+        if (isRefreshAhead()) {
+            TokenEntry entry = CURRENT.get();
+            if (entry != null && entry.isValid()) {
+                return entry.token;
+            }
+            return refreshTokenIfAbsent();
+        }
         String token = cacheHolder.get(TOKEN_KEY);
         if (StrUtil.isBlank(token)) {
-            token = refreshToken();
+            token = refreshTokenIfMissing();
         }
         return token;
     }
 
+    /**
+     * 缓存中没有 Token 时刷新。
+     * <p>
+     * 获得锁后再次检查缓存，并发等待的线程直接复用第一个线程刷新得到的 Token。
+     *
+     * @return 有效的 Token
+     * @throws ApiException 如果刷新 Token 失败，则抛出异常
+     */
+    private static String refreshTokenIfMissing() {
+        lockRefresh();
+        try {
+            String token = cacheHolder.get(TOKEN_KEY);
+            if (StrUtil.isBlank(token)) {
+                token = refreshToken();
+            }
+            return token;
+        } finally {
+            REFRESH_LOCK.unlock();
+        }
+    }
+
+    /**
+     * 获取刷新锁。
+     * <p>
+     * 开启熔断时，认证模块的熔断器打开后立即失败；等待期间定期检查熔断器，
+     * 等待超过慢请求阈值仍未获得锁时失败，避免所有请求线程排在一个无响应的刷新请求之后。
+     *
+     * @throws CircuitOpenException 认证模块的熔断器打开时抛出
+     * @throws ApiException         等待超时或被中断时抛出
+     */
+    private static void lockRefresh() {
+        CircuitBreaker breaker = ApiClient.getCircuitBreaker(ApiModule.OAUTH);
+        if (breaker == null) {
+            REFRESH_LOCK.lock();
+            return;
+        }
+        breaker.checkNotOpen();
+        long waitMillis = config.getCircuitBreakerSlowCallMillis();
+        long deadline = System.currentTimeMillis() + waitMillis;
+        try {
+            while (!REFRESH_LOCK.tryLock(LOCK_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                breaker.checkNotOpen();
+                if (waitMillis > 0 && System.currentTimeMillis() >= deadline) {
+                    ApiMetrics.increment("token.refresh.wait.timeouts");
+                    throw new ApiException("等待 Token 刷新超时: " + waitMillis + " 毫秒");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("等待 Token 刷新时被中断", e);
+        }
+    }
+
     /**
      * 刷新 Token。
      * <p>
-     * 调用认证接口获取新的 Token，并更新缓存。
+     * 调用认证接口获取新的 Token，并更新缓存，调用方需持有 {@link #REFRESH_LOCK}。
      *
      * @return 新的 Token
      * @throws ApiException 如果刷新 Token 失败，则抛出异常
      */
-    private static synchronized String refreshToken() {
+    private static String refreshToken() {
+        String newToken = fetchToken();
+        long expiresIn = config.getTokenExpireSeconds();
+        // 更新缓存
+        putToken(newToken);
+        log.info("Token 刷新成功，有效期剩余: {} 秒", expiresIn);
+        return newToken;
+    }
+
+    /**
+     * 把 Token 及其签发时刻写入缓存。
+     *
+     * @param token 新的 Token
+     */
+    private static void putToken(String token) {
+        long timeout = TimeUnit.SECONDS.toMillis(config.getTokenExpireSeconds()) - DEFAULT_EXPIRE_BUFFER;
+        cacheHolder.put(TOKEN_KEY, token, timeout);
+        if (isRefreshAhead()) {
+            cacheHolder.put(ISSUED_AT_KEY, System.currentTimeMillis() + ":" + Integer.toHexString(token.hashCode()), timeout);
+        }
+    }
+
+    /**
+     * 提前刷新模式下没有有效 Token 时阻塞获取。
+     * <p>
+     * 优先采用缓存中其他实例刷新且未过期的 Token，否则调用认证接口。
+     *
+     * @return 有效的 Token
+     * @throws ApiException 如果刷新 Token 失败，则抛出异常
+     */
+    private static String refreshTokenIfAbsent() {
+        lockRefresh();
+        try {
+            TokenEntry entry = CURRENT.get();
+            if (entry != null && entry.isValid()) {
+                return entry.token;
+            }
+            String cached = cacheHolder.get(TOKEN_KEY);
+            long remaining = StrUtil.isBlank(cached) ? 0 : cachedRemainingMillis(cached);
+            if (remaining > DEFAULT_EXPIRE_BUFFER) {
+                install(entry, cached, remaining);
+                return cached;
+            }
+            String newToken = refreshToken();
+            install(entry, newToken, TimeUnit.SECONDS.toMillis(config.getTokenExpireSeconds()));
+            ApiMetrics.increment("token.refresh.blocking");
+            return newToken;
+        } finally {
+            REFRESH_LOCK.unlock();
+        }
+    }
+
+    /**
+     * 后台提前刷新 Token，失败时保留当前 Token 并稍后重试。
+     * <p>
+     * 缓存中的 Token 与当前 Token 不同时说明其他节点已经刷新过，直接采用，不再调用认证接口。
+     */
+    private static void renewAhead() {
+        try {
+            lockRefresh();
+            try {
+                TokenEntry entry = CURRENT.get();
+                String cached = cacheHolder.get(TOKEN_KEY);
+                if (StrUtil.isNotBlank(cached) && (entry == null || !cached.equals(entry.token))) {
+                    long remaining = cachedRemainingMillis(cached);
+                    if (remaining > DEFAULT_EXPIRE_BUFFER) {
+                        install(entry, cached, remaining);
+                        ApiMetrics.increment("token.refresh.adopted");
+                        return;
+                    }
+                }
+                String newToken = refreshToken();
+                install(entry, newToken, TimeUnit.SECONDS.toMillis(config.getTokenExpireSeconds()));
+                ApiMetrics.increment("token.refresh.ahead");
+            } finally {
+                REFRESH_LOCK.unlock();
+            }
+        } catch (Exception e) {
+            ApiMetrics.increment("token.refresh.ahead.failures");
+            TokenEntry entry = CURRENT.get();
+            long remaining = entry == null ? 0 : entry.expireAt - System.currentTimeMillis();
+            if (remaining > 0) {
+                long delay = Math.min(MAX_RETRY_DELAY, Math.max(remaining / 2, 1000));
+                log.warn("提前刷新 Token 失败，{} 毫秒后重试", delay);
+                schedule(delay);
+            }
+        }
+    }
+
+    /**
+     * 调用认证接口获取新的 Token。
+     *
+     * @return 新的 Token
+     * @throws ApiException 如果获取 Token 失败，则抛出异常
+     */
+    private static String fetchToken() {
         try {
             // 调用认证接口获取新的 Token
             Map<String, Object> paramMap = new HashMap<>();
@@ -96,20 +305,91 @@ public class TokenHolder {
             if (code != StateCode.SUCCESS.getCode()) {
                 throw new ApiException("刷新 Token 失败: " + tokenResponse.getMsg());
             }
+            return tokenResponse.getData().getToken();
+        } catch (CircuitOpenException e) {
+            // 熔断时原样抛出，调用方据此降级
+            throw e;
+        } catch (Exception e) {
+            log.error("刷新 Token 失败", e);
+            throw new ApiException("刷新 Token 失败: " + e.getMessage(), e);
+        }
+    }
 
-            String newToken = tokenResponse.getData().getToken();
+    /**
+     * 估算缓存中 Token 的剩余有效期。
+     *
+     * @param token 缓存中的 Token
+     * @return 剩余有效期，单位为毫秒；签发时刻未知时按刚好到达提前刷新时刻的最坏情况估算
+     */
+    private static long cachedRemainingMillis(String token) {
+        long expireMillis = TimeUnit.SECONDS.toMillis(config.getTokenExpireSeconds());
+        String issuedAt = cacheHolder.get(ISSUED_AT_KEY);
+        int separator = issuedAt == null ? -1 : issuedAt.indexOf(':');
+        if (separator > 0 && issuedAt.substring(separator + 1).equals(Integer.toHexString(token.hashCode()))) {
+            try {
+                return expireMillis - (System.currentTimeMillis() - Long.parseLong(issuedAt.substring(0, separator)));
+            } catch (NumberFormatException e) {
+                log.debug("Token 签发时刻格式错误: {}", issuedAt);
+            }
+        }
+        return (long) (expireMillis * (1 - config.getTokenRefreshAheadRatio()));
+    }
 
-            long expiresIn = config.getTokenExpireSeconds();
+    /**
+     * 替换当前 Token 并调度下一次提前刷新。
+     * <p>
+     * 仅当当前 Token 仍是 {@code expected} 时替换，换取期间 Token 被作废或已被替换时放弃，新 Token 仍保留在缓存中。
+     *
+     * @param expected     换取前的当前 Token
+     * @param token        新的 Token
+     * @param expireMillis Token 剩余有效期，单位为毫秒
+     */
+    private static void install(TokenEntry expected, String token, long expireMillis) {
+        long now = System.currentTimeMillis();
+        if (!CURRENT.compareAndSet(expected, new TokenEntry(token, now + expireMillis - DEFAULT_EXPIRE_BUFFER))) {
+            return;
+        }
+        // 剩余有效期降到 (1 - 比例) 时刷新，采用的 Token 已过该时刻时在剩余有效期过半时刷新
+        long delay = expireMillis - (long) (TimeUnit.SECONDS.toMillis(config.getTokenExpireSeconds()) * (1 - config.getTokenRefreshAheadRatio()));
+        if (delay <= 0) {
+            delay = (expireMillis - DEFAULT_EXPIRE_BUFFER) / 2;
+        }
+        schedule(Math.max(0, Math.min(delay, expireMillis - DEFAULT_EXPIRE_BUFFER)));
+    }
 
-            // 更新缓存
-            cacheHolder.put(TOKEN_KEY, newToken, TimeUnit.SECONDS.toMillis(expiresIn) - DEFAULT_EXPIRE_BUFFER);
-            log.info("Token 刷新成功，有效期剩余: {} 秒", expiresIn);
+    private static synchronized void schedule(long delayMillis) {
+        if (renewal != null) {
+            renewal.cancel(false);
+        }
+        renewal = getScheduler().schedule(TokenHolder::renewAhead, delayMillis, TimeUnit.MILLISECONDS);
+    }
 
-            return newToken;
-        } catch (Exception e) {
-            log.error("刷新 Token 失败", e);
-            throw new ApiException("刷新 Token 失败: " + e.getMessage(), e);
+    private static ScheduledExecutorService getScheduler() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            synchronized (TokenHolder.class) {
+                executor = scheduler;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadScheduledExecutor(
+                            ThreadFactoryBuilder.create().setNamePrefix("hls-token-").setDaemon(true).build());
+                    scheduler = executor;
+                }
+            }
         }
+        return executor;
+    }
+
+    private static synchronized void resetCurrent() {
+        CURRENT.set(null);
+        if (renewal != null) {
+            renewal.cancel(false);
+            renewal = null;
+        }
+    }
+
+    private static boolean isRefreshAhead() {
+        double ratio = config.getTokenRefreshAheadRatio();
+        return ratio > 0 && ratio < 1;
     }
 
     /**
@@ -121,7 +401,29 @@ public class TokenHolder {
      */
     public void setToken(String token) {
         // 更新缓存
-        cacheHolder.put(TOKEN_KEY, token, TimeUnit.SECONDS.toMillis(config.getTokenExpireSeconds()) - DEFAULT_EXPIRE_BUFFER);
+        putToken(token);
+        if (isRefreshAhead()) {
+            install(CURRENT.get(), token, TimeUnit.SECONDS.toMillis(config.getTokenExpireSeconds()));
+        }
+    }
+
+    /**
+     * 作废指定的 Token。
+     * <p>
+     * 仅当指定的 Token 仍是当前 Token 时才清除，多个使用同一失效 Token 的并发请求只会触发一次重新获取，
+     * 已经换上的新 Token 不会被误清除。
+     *
+     * @param staleToken 服务端判定失效的 Token
+     */
+    public static synchronized void invalidateToken(String staleToken) {
+        TokenEntry entry = CURRENT.get();
+        if (entry != null && entry.token.equals(staleToken)) {
+            resetCurrent();
+        }
+        if (staleToken.equals(cacheHolder.get(TOKEN_KEY))) {
+            cacheHolder.remove(TOKEN_KEY);
+            log.info("Token 已失效，缓存已清除");
+        }
     }
 
     /**
@@ -130,7 +432,41 @@ public class TokenHolder {
      * 从缓存中移除 Token。
      */
     public static void clearToken() {
+        resetCurrent();
         cacheHolder.remove(TOKEN_KEY);
         log.info("Token 缓存已清除");
     }
+
+    /**
+     * 其他节点更新或删除了缓存中的 Token，由 {@link NearCacheHolder} 收到失效消息时调用。
+     * <p>
+     * 提前刷新模式下丢弃当前 Token，下次读取时重新从缓存获取（缓存已被清除时调用认证接口），
+     * 因此在任一节点调用 {@link #clearToken()} 后所有节点都不再使用旧 Token。
+     *
+     * @param key 失效的缓存键
+     */
+    static void onRemoteInvalidation(Object key) {
+        if (TOKEN_KEY.equals(key) && config != null && isRefreshAhead()) {
+            resetCurrent();
+        }
+    }
+
+    /**
+     * 提前刷新模式下的 Token 及其过期时刻。
+     */
+    private static final class TokenEntry {
+
+        private final String token;
+
+        private final long expireAt;
+
+        private TokenEntry(String token, long expireAt) {
+            this.token = token;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isValid() {
+            return System.currentTimeMillis() < expireAt;
+        }
+    }
 }
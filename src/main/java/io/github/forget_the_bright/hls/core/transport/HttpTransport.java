@@ -0,0 +1,49 @@
+package io.github.forget_the_bright.hls.core.transport;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+
+/**
+ * HTTP 传输层扩展点（SPI）。
+ * <p>
+ * {@link io.github.forget_the_bright.hls.core.ApiClient} 只负责组装请求和解析响应，
+ * 真正的网络发送由该接口的实现完成。内置两种实现：
+ * <ul>
+ *     <li>{@link HutoolHttpTransport}：每次请求新建 Hutool HttpRequest，与历史行为一致。</li>
+ *     <li>{@link PooledHttpTransport}：基于 Apache HttpClient 连接池，复用长连接。</li>
+ * </ul>
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-21
+ */
+public interface HttpTransport {
+
+    /**
+     * 发送请求并返回响应，调用方负责关闭返回的响应。
+     *
+     * @param request 请求描述对象
+     * @return 响应对象
+     * @throws io.github.forget_the_bright.hls.exception.ApiException 发送请求失败时抛出
+     */
+    TransportResponse execute(TransportRequest request);
+
+    /**
+     * 释放传输层持有的资源（连接池、后台线程等）。
+     */
+    default void close() {
+    }
+
+    /**
+     * 根据配置中的传输模式创建传输层实例。
+     * <p>
+     * 传输模式为 Pooled 时使用 {@link PooledHttpTransport}，否则使用 {@link HutoolHttpTransport}。
+     *
+     * @param config API 配置对象
+     * @return 传输层实例
+     */
+    static HttpTransport create(ApiConfig config) {
+        if ("Pooled".equals(config.getTransportModel())) {
+            return new PooledHttpTransport(config);
+        }
+        return new HutoolHttpTransport();
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.forget_the_bright.hls.core.transport;
+
+import cn.hutool.core.util.CharsetUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+
+import java.nio.charset.Charset;
+
+/**
+ * 基于 Hutool HttpRequest 的传输层实现。
+ * <p>
+ * 每次请求新建一个 HttpRequest，不复用连接，保持 SDK 早期版本的行为。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-21
+ */
+public class HutoolHttpTransport implements HttpTransport {
+
+    /**
+     * 发送请求并返回响应。
+     *
+     * @param request 请求描述对象
+     * @return 响应对象
+     */
+    @Override
+    public TransportResponse execute(TransportRequest request) {
+        HttpRequest httpRequest = new HttpRequest(request.getUrl())
+                .setConnectionTimeout(request.getConnectionTimeout())
+                .setReadTimeout(request.getReadTimeout())
+                .method(request.getMethod());
+        request.getHeaders().forEach((name, value) -> httpRequest.header(name, value, true));
+        if (request.getForm() != null) {
+            httpRequest.form(request.getForm());
+        }
+        if (request.getBody() != null) {
+            httpRequest.body(request.getBody());
+        }
+
+        ApiMetrics.increment("transport.requests");
+        ApiMetrics.increment("transport.connections.created");
+        HttpResponse response = httpRequest.executeAsync();
+        String charsetName = response.charset();
+        Charset charset = StrUtil.isBlank(charsetName) ? CharsetUtil.CHARSET_UTF_8 : CharsetUtil.charset(charsetName);
+        return new TransportResponse(response.getStatus(), response.bodyStream(), charset, response::close);
+    }
+}
@@ -0,0 +1,305 @@
+package io.github.forget_the_bright.hls.core.transport;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpEntity;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 Apache HttpClient 连接池的传输层实现。
+ * <p>
+ * 同一路由（协议 + 主机 + 端口）上的请求复用 keep-alive 长连接，避免每次请求重新握手。
+ * 连接池大小、空闲连接回收时间通过 {@link ApiConfig} 配置；使用该实现需要引入 httpclient 依赖。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-21
+ */
+@Slf4j
+public class PooledHttpTransport implements HttpTransport {
+
+    /**
+     * 关闭未读完的响应时最多再读取的字节数，读到末尾则连接可以复用，否则直接关闭连接。
+     * <p>解析器读到 JSON 结尾就停止，分块传输的结束块等少量剩余内容需要读掉连接才能归还连接池。</p>
+     */
+    private static final int DRAIN_LIMIT_BYTES = 8192;
+
+    /**
+     * 连接池管理器。
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * 共享的 HttpClient 实例。
+     */
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * 已发送的请求数。
+     */
+    private final LongAdder requestCount = new LongAdder();
+
+    /**
+     * 新建的物理连接数。
+     */
+    private final LongAdder createdConnectionCount = new LongAdder();
+
+    /**
+     * 构造连接池传输层。
+     *
+     * @param config API 配置对象，提供连接池大小和空闲回收时间
+     */
+    public PooledHttpTransport(ApiConfig config) {
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory = (route, connectionConfig) -> {
+            createdConnectionCount.increment();
+            ApiMetrics.increment("transport.connections.created");
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, connectionConfig);
+        };
+        this.connectionManager = new PoolingHttpClientConnectionManager(connectionFactory);
+        this.connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+        this.connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictIdleConnections(config.getConnectionIdleEvictSeconds(), TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .disableCookieManagement()
+                .build();
+        log.info("HLS 连接池传输层已创建，单路由最大连接数: {}，总连接数: {}，空闲回收: {} 秒",
+                config.getMaxConnectionsPerRoute(), config.getMaxConnectionsTotal(), config.getConnectionIdleEvictSeconds());
+    }
+
+    /**
+     * 发送请求并返回响应，响应关闭时连接归还连接池。
+     *
+     * @param request 请求描述对象
+     * @return 响应对象
+     * @throws ApiException 发送请求失败时抛出
+     */
+    @Override
+    public TransportResponse execute(TransportRequest request) {
+        RequestBuilder builder = RequestBuilder.create(request.getMethod().name())
+                .setUri(request.getUrl())
+                .setConfig(RequestConfig.custom()
+                        .setConnectTimeout(request.getConnectionTimeout())
+                        .setSocketTimeout(request.getReadTimeout())
+                        .build());
+        request.getHeaders().forEach(builder::setHeader);
+        if (request.getForm() != null) {
+            List<NameValuePair> pairs = new ArrayList<>();
+            request.getForm().forEach((key, value) -> pairs.add(new BasicNameValuePair(key, String.valueOf(value))));
+            builder.setEntity(new UrlEncodedFormEntity(pairs, StandardCharsets.UTF_8));
+        }
+        if (request.getBody() != null) {
+            builder.setEntity(new StringEntity(request.getBody(), StandardCharsets.UTF_8));
+        }
+
+        requestCount.increment();
+        ApiMetrics.increment("transport.requests");
+        CloseableHttpResponse response;
+        try {
+            response = httpClient.execute(builder.build());
+        } catch (IOException e) {
+            throw new ApiException("HTTP请求发送失败: " + request.getUrl(), e);
+        }
+
+        HttpEntity entity = response.getEntity();
+        TrackingInputStream bodyStream = null;
+        Charset charset = StandardCharsets.UTF_8;
+        try {
+            if (entity != null) {
+                bodyStream = new TrackingInputStream(entity.getContent(), entity.getContentLength());
+                Charset contentCharset = ContentType.getOrDefault(entity).getCharset();
+                charset = contentCharset == null ? charset : contentCharset;
+            }
+        } catch (IOException e) {
+            closeQuietly(response);
+            throw new ApiException("读取响应体失败: " + request.getUrl(), e);
+        }
+        TrackingInputStream body = bodyStream;
+        return new TransportResponse(response.getStatusLine().getStatusCode(), bodyStream, charset, () -> {
+            if (body != null && !body.drain(DRAIN_LIMIT_BYTES)) {
+                // 响应体剩余内容较多（例如解析中途失败），排空可能很慢，直接关闭连接不再复用
+                ApiMetrics.increment("transport.aborted");
+                response.close();
+                return;
+            }
+            try {
+                // 读到末尾后还需关闭内容流，连接才能归还连接池复用
+                EntityUtils.consume(entity);
+            } finally {
+                response.close();
+            }
+        });
+    }
+
+    /**
+     * 获取连接池整体统计（租用中、空闲、等待中、最大连接数）。
+     *
+     * @return 连接池统计
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * 获取已发送的请求数。
+     *
+     * @return 请求数
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * 获取新建的物理连接数。
+     *
+     * @return 新建连接数
+     */
+    public long getCreatedConnectionCount() {
+        return createdConnectionCount.sum();
+    }
+
+    /**
+     * 获取复用已有连接完成的请求数。
+     *
+     * @return 连接复用次数
+     */
+    public long getReusedConnectionCount() {
+        return Math.max(0L, requestCount.sum() - createdConnectionCount.sum());
+    }
+
+    /**
+     * 关闭 HttpClient 和连接池。
+     */
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("关闭 HLS 连接池失败", e);
+        }
+    }
+
+    private static void closeQuietly(CloseableHttpResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            log.debug("关闭响应失败", e);
+        }
+    }
+
+    /**
+     * 记录响应体是否已经读完的输入流。
+     */
+    private static final class TrackingInputStream extends FilterInputStream {
+
+        /**
+         * 响应头声明的内容长度，未知时为负数。
+         */
+        private final long contentLength;
+
+        private long count;
+
+        private boolean eof;
+
+        private TrackingInputStream(InputStream in, long contentLength) {
+            super(in);
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                eof = true;
+            } else {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                eof = true;
+            } else {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * 已读到流末尾，或已读取的字节数达到声明的内容长度。
+         */
+        private boolean isFullyRead() {
+            return eof || contentLength >= 0 && count >= contentLength;
+        }
+
+        /**
+         * 剩余内容不超过 limit 字节时读到流末尾。
+         *
+         * @return 已读到流末尾返回 true，剩余内容超过 limit 或读取失败时返回 false
+         */
+        private boolean drain(int limit) {
+            if (contentLength >= 0 && contentLength - count > limit) {
+                return false;
+            }
+            byte[] buffer = new byte[Math.min(limit, 1024)];
+            long budget = limit;
+            try {
+                while (!isFullyRead()) {
+                    if (budget <= 0) {
+                        return false;
+                    }
+                    int n = read(buffer, 0, (int) Math.min(buffer.length, budget));
+                    if (n > 0) {
+                        budget -= n;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+}
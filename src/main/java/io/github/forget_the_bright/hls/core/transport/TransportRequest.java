@@ -0,0 +1,68 @@
+package io.github.forget_the_bright.hls.core.transport;
+
+import cn.hutool.http.Method;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 与具体 HTTP 实现无关的请求描述对象。
+ * <p>
+ * 由 {@link io.github.forget_the_bright.hls.core.ApiClient} 组装，交给 {@link HttpTransport} 发送。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-21
+ */
+@Data
+@Accessors(chain = true)
+public class TransportRequest {
+
+    /**
+     * 请求方法。
+     */
+    private Method method;
+
+    /**
+     * 完整请求URL（包含查询参数）。
+     */
+    private String url;
+
+    /**
+     * 请求头。
+     */
+    private Map<String, String> headers = new LinkedHashMap<>();
+
+    /**
+     * 请求体，为 null 表示没有请求体。
+     */
+    private String body;
+
+    /**
+     * 表单参数，为 null 表示不是表单请求。
+     */
+    private Map<String, Object> form;
+
+    /**
+     * 连接超时时间（毫秒），-1 代表不限制。
+     */
+    private int connectionTimeout = -1;
+
+    /**
+     * 读取超时时间（毫秒），-1 代表不限制。
+     */
+    private int readTimeout = -1;
+
+    /**
+     * 设置请求头，同名请求头会被覆盖。
+     *
+     * @param name  请求头名称
+     * @param value 请求头值
+     * @return 当前请求对象
+     */
+    public TransportRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+}
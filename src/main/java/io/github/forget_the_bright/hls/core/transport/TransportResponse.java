@@ -0,0 +1,111 @@
+package io.github.forget_the_bright.hls.core.transport;
+
+import cn.hutool.core.io.IoUtil;
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * 与具体 HTTP 实现无关的响应对象。
+ * <p>
+ * 响应体以流的形式持有，使用完毕后必须调用 {@link #close()} 归还底层连接。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-21
+ */
+public class TransportResponse implements Closeable {
+
+    /**
+     * HTTP 状态码。
+     */
+    private final int status;
+
+    /**
+     * 响应体输入流。
+     */
+    private final InputStream bodyStream;
+
+    /**
+     * 响应体字符集。
+     */
+    private final Charset charset;
+
+    /**
+     * 关闭响应时执行的释放动作。
+     */
+    private final Closeable releaser;
+
+    /**
+     * 构造响应对象。
+     *
+     * @param status     HTTP 状态码
+     * @param bodyStream 响应体输入流，可以为 null
+     * @param charset    响应体字符集
+     * @param releaser   关闭响应时执行的释放动作
+     */
+    public TransportResponse(int status, InputStream bodyStream, Charset charset, Closeable releaser) {
+        this.status = status;
+        this.bodyStream = bodyStream;
+        this.charset = charset;
+        this.releaser = releaser;
+    }
+
+    /**
+     * 获取 HTTP 状态码。
+     *
+     * @return HTTP 状态码
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * 获取响应体字符集。
+     *
+     * @return 响应体字符集
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * 获取响应体输入流，只能读取一次。
+     *
+     * @return 响应体输入流，没有响应体时为 null
+     */
+    public InputStream getBodyStream() {
+        return bodyStream;
+    }
+
+    /**
+     * 将响应体完整读取为字符串。
+     *
+     * @return 响应体字符串，没有响应体时返回空字符串
+     * @throws ApiException 读取响应体失败时抛出
+     */
+    public String body() {
+        if (bodyStream == null) {
+            return "";
+        }
+        try {
+            return IoUtil.read(bodyStream, charset);
+        } catch (Exception e) {
+            throw new ApiException("读取响应体失败", e);
+        }
+    }
+
+    /**
+     * 释放响应持有的连接资源。
+     */
+    @Override
+    public void close() {
+        try {
+            releaser.close();
+        } catch (IOException e) {
+            throw new ApiException("关闭响应失败", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.forget_the_bright.hls.entity.response;
+
+import io.github.forget_the_bright.hls.entity.response.base.BaseResult;
+import io.github.forget_the_bright.hls.entity.response.base.ColumnarHDBTagValue;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * 按列存储的历史数据查询结果。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(callSuper = false)
+public class ColumnarDatasResult extends BaseResult {
+
+    /**
+     * 每个标签的按列数据，顺序与请求的标签列表一致。
+     */
+    private List<ColumnarHDBTagValue> data;
+}
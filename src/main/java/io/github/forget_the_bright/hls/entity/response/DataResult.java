@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
 
+import java.util.Date;
 import java.util.List;
 
 
@@ -29,4 +30,18 @@ public class DataResult extends BaseResult {
      */
     @JSONField(name = "Data")
     private DDBTagValueList data;
+
+    /**
+     * Stale: whether the values are the last known good snapshot served while the circuit breaker is open.
+     * 是否为过期数据：熔断器打开时返回的最近一次成功读取的值为 true，各标签值的读取时间见 {@link #getFetchedAt()}。
+     */
+    @JSONField(serialize = false, deserialize = false)
+    private boolean stale;
+
+    /**
+     * FetchedAt: when the stale values were last read from the server, the oldest among the returned tags.
+     * 过期数据的读取时间：返回的标签中最早一次从服务端读取的时刻，非过期数据为 null。
+     */
+    @JSONField(serialize = false, deserialize = false)
+    private Date fetchedAt;
 }
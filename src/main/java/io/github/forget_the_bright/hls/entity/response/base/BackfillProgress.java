@@ -0,0 +1,76 @@
+package io.github.forget_the_bright.hls.entity.response.base;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * 历史数据回填的进度。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(callSuper = false)
+public class BackfillProgress {
+
+    /**
+     * 工作单元总数。
+     */
+    private int totalUnits;
+
+    /**
+     * 之前运行已完成、本次从日志恢复跳过的单元数。
+     */
+    private int resumedUnits;
+
+    /**
+     * 本次运行完成的单元数。
+     */
+    private int completedUnits;
+
+    /**
+     * 本次运行重试耗尽仍失败的单元数，再次运行时重新执行。
+     */
+    private int failedUnits;
+
+    /**
+     * 本次运行写入的数据点个数。
+     */
+    private long points;
+
+    /**
+     * 本次运行已用时间（毫秒）。
+     */
+    private long elapsedMillis;
+
+    /**
+     * 当前允许的并发查询数。
+     */
+    private int concurrency;
+
+    /**
+     * 本次运行每秒写入的数据点个数。
+     */
+    private double pointsPerSecond;
+
+    /**
+     * 本次运行每秒完成的单元数。
+     */
+    private double unitsPerSecond;
+
+    /**
+     * 按本次运行的速度估算的剩余时间（毫秒），尚无法估算时为 -1。
+     */
+    private long etaMillis = -1;
+
+    /**
+     * 判断是否全部单元都已完成。
+     *
+     * @return 没有未完成的单元时返回 true
+     */
+    public boolean isFinished() {
+        return resumedUnits + completedUnits >= totalUnits;
+    }
+}
@@ -0,0 +1,291 @@
+package io.github.forget_the_bright.hls.entity.response.base;
+
+import io.github.forget_the_bright.hls.constant.common.HDBAggregate;
+import io.github.forget_the_bright.hls.constant.common.Quality;
+import io.github.forget_the_bright.hls.constant.common.TagType;
+import io.github.forget_the_bright.hls.core.TagValueDecoder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按列存储的单个标签历史数据。
+ * <p>
+ * 与 {@link HDBTagValue} 中每个数据点一个 {@link OneTagHDBValue}（一个 {@link Date}、四个字符串、三个质量引用）不同，
+ * 这里的时间保存为 {@code long[]} 毫秒时间戳，每个查询的聚合值保存为一个 {@code double[]}，
+ * 每个有质量字段的聚合值的质量保存为一个 {@code byte[]}（{@link Quality#getValue()}，缺失为 -1），
+ * 每个数据点只占 8 + 9 × 聚合值个数 字节左右。
+ * <p>
+ * 数值按 {@link TagType} 由 {@link TagValueDecoder} 解码，{@link TagType#STRING} 类型的值无法按列保存，记为 NaN。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+public class ColumnarHDBTagValue {
+
+    /**
+     * 质量缺失时的取值。
+     */
+    public static final byte NO_QUALITY = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 索引。
+     */
+    private Integer index;
+
+    /**
+     * 标签类型。
+     */
+    private TagType tagType;
+
+    /**
+     * 标签名称。
+     */
+    private String tagName;
+
+    /**
+     * 数据点个数。
+     */
+    @Setter(AccessLevel.NONE)
+    private int size;
+
+    /**
+     * 数据点时间，毫秒时间戳，有效长度为 {@link #size}。
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long[] times;
+
+    /**
+     * 各聚合值，有效长度为 {@link #size}。
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<HDBAggregate, double[]> values = new EnumMap<>(HDBAggregate.class);
+
+    /**
+     * 各聚合值的质量，有效长度为 {@link #size}。
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<HDBAggregate, byte[]> qualities = new EnumMap<>(HDBAggregate.class);
+
+    /**
+     * 构造函数。
+     *
+     * @param aggregates 需要保存的聚合值类型
+     * @param capacity   预计的数据点个数
+     */
+    public ColumnarHDBTagValue(Set<HDBAggregate> aggregates, int capacity) {
+        int initial = Math.max(capacity, 1);
+        this.times = new long[initial];
+        for (HDBAggregate aggregate : aggregates) {
+            values.put(aggregate, new double[initial]);
+            if (aggregate.hasQuality()) {
+                qualities.put(aggregate, new byte[initial]);
+            }
+        }
+    }
+
+    /**
+     * 构造函数，使用默认容量。
+     *
+     * @param aggregates 需要保存的聚合值类型
+     */
+    public ColumnarHDBTagValue(Set<HDBAggregate> aggregates) {
+        this(aggregates, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 由 {@link HDBTagValue} 转换。
+     *
+     * @param hdbTagValue 标签历史数据
+     * @param aggregates  需要保存的聚合值类型
+     * @return 按列存储的标签历史数据
+     */
+    public static ColumnarHDBTagValue from(HDBTagValue hdbTagValue, Set<HDBAggregate> aggregates) {
+        List<OneTagHDBValue> points = hdbTagValue.getOneTagHDBValueList();
+        ColumnarHDBTagValue columnar = new ColumnarHDBTagValue(aggregates, points == null ? 0 : points.size())
+                .setIndex(hdbTagValue.getIndex())
+                .setTagType(hdbTagValue.getTagType())
+                .setTagName(hdbTagValue.getTagName());
+        if (points != null) {
+            for (OneTagHDBValue point : points) {
+                columnar.append(point);
+            }
+        }
+        return columnar;
+    }
+
+    /**
+     * 转换为 {@link HDBTagValue}。
+     * <p>
+     * 值由 {@link TagValueDecoder#toValueString(double)} 还原为字符串，与服务端原始字符串的格式可能不同；
+     * NaN 输出为 null。
+     *
+     * @return 标签历史数据
+     */
+    public HDBTagValue toHDBTagValue() {
+        List<OneTagHDBValue> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            OneTagHDBValue point = new OneTagHDBValue().setTagValueTime(times[i] == Long.MIN_VALUE ? null : new Date(times[i]));
+            for (Map.Entry<HDBAggregate, double[]> entry : values.entrySet()) {
+                entry.getKey().setValue(point, TagValueDecoder.toValueString(entry.getValue()[i]));
+            }
+            for (Map.Entry<HDBAggregate, byte[]> entry : qualities.entrySet()) {
+                byte quality = entry.getValue()[i];
+                entry.getKey().setQuality(point, quality == NO_QUALITY ? null : Quality.fromValue(quality));
+            }
+            points.add(point);
+        }
+        return new HDBTagValue().setIndex(index).setTagType(tagType).setTagName(tagName).setOneTagHDBValueList(points);
+    }
+
+    /**
+     * 追加一个数据点，数值按当前的标签类型解码。
+     *
+     * @param point 数据点
+     */
+    public void append(OneTagHDBValue point) {
+        ensureCapacity(size + 1);
+        times[size] = point.getTagValueTime() == null ? Long.MIN_VALUE : point.getTagValueTime().getTime();
+        for (Map.Entry<HDBAggregate, double[]> entry : values.entrySet()) {
+            entry.getValue()[size] = TagValueDecoder.decodeDouble(tagType, entry.getKey().getValue(point));
+        }
+        for (Map.Entry<HDBAggregate, byte[]> entry : qualities.entrySet()) {
+            Quality quality = entry.getKey().getQuality(point);
+            entry.getValue()[size] = quality == null ? NO_QUALITY : (byte) quality.getValue();
+        }
+        size++;
+    }
+
+    /**
+     * 追加另一个标签数据的全部数据点，两者的聚合值类型必须相同。
+     *
+     * @param other 另一个标签数据
+     */
+    public void appendAll(ColumnarHDBTagValue other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.times, 0, times, size, other.size);
+        for (Map.Entry<HDBAggregate, double[]> entry : values.entrySet()) {
+            System.arraycopy(other.values.get(entry.getKey()), 0, entry.getValue(), size, other.size);
+        }
+        for (Map.Entry<HDBAggregate, byte[]> entry : qualities.entrySet()) {
+            System.arraycopy(other.qualities.get(entry.getKey()), 0, entry.getValue(), size, other.size);
+        }
+        size += other.size;
+    }
+
+    /**
+     * 保存的聚合值类型。
+     *
+     * @return 聚合值类型
+     */
+    public Set<HDBAggregate> getAggregates() {
+        return values.keySet();
+    }
+
+    /**
+     * 数据点时间。
+     *
+     * @return 长度为 {@link #getSize()} 的毫秒时间戳数组，时间缺失的位置为 {@link Long#MIN_VALUE}
+     */
+    public long[] getTimes() {
+        trimToSize();
+        return times;
+    }
+
+    /**
+     * 某个聚合值的全部数据。
+     *
+     * @param aggregate 聚合值类型
+     * @return 长度为 {@link #getSize()} 的数组，未保存该聚合值时返回 null
+     */
+    public double[] getValues(HDBAggregate aggregate) {
+        trimToSize();
+        return values.get(aggregate);
+    }
+
+    /**
+     * 某个聚合值的全部质量。
+     *
+     * @param aggregate 聚合值类型
+     * @return 长度为 {@link #getSize()} 的数组，缺失为 {@link #NO_QUALITY}；未保存该聚合值或没有质量字段时返回 null
+     */
+    public byte[] getQualities(HDBAggregate aggregate) {
+        trimToSize();
+        return qualities.get(aggregate);
+    }
+
+    /**
+     * 第 i 个数据点的时间。
+     *
+     * @param i 数据点下标
+     * @return 毫秒时间戳
+     */
+    public long getTime(int i) {
+        return times[i];
+    }
+
+    /**
+     * 第 i 个数据点的某个聚合值。
+     *
+     * @param aggregate 聚合值类型
+     * @param i         数据点下标
+     * @return 聚合值
+     */
+    public double getValue(HDBAggregate aggregate, int i) {
+        return values.get(aggregate)[i];
+    }
+
+    /**
+     * 最后一个数据点的时间。
+     *
+     * @return 毫秒时间戳，没有数据点时返回 {@link Long#MIN_VALUE}
+     */
+    public long getLastTime() {
+        return size == 0 ? Long.MIN_VALUE : times[size - 1];
+    }
+
+    /**
+     * 将数组容量缩减为实际的数据点个数。
+     *
+     * @return 当前对象
+     */
+    public ColumnarHDBTagValue trimToSize() {
+        if (times.length != size) {
+            resize(size);
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > times.length) {
+            resize(Math.max(capacity, times.length + (times.length >> 1) + 1));
+        }
+    }
+
+    private void resize(int capacity) {
+        times = Arrays.copyOf(times, capacity);
+        for (Map.Entry<HDBAggregate, double[]> entry : values.entrySet()) {
+            entry.setValue(Arrays.copyOf(entry.getValue(), capacity));
+        }
+        for (Map.Entry<HDBAggregate, byte[]> entry : qualities.entrySet()) {
+            entry.setValue(Arrays.copyOf(entry.getValue(), capacity));
+        }
+    }
+}
@@ -6,8 +6,13 @@ import io.github.forget_the_bright.hls.config.EnumDeserializer;
 import io.github.forget_the_bright.hls.config.MilliSecondDateSerializer;
 import io.github.forget_the_bright.hls.constant.common.Quality;
 import io.github.forget_the_bright.hls.constant.common.TagType;
+import io.github.forget_the_bright.hls.core.TagValueDecoder;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.Accessors;
 
 import java.util.Date;
@@ -60,4 +65,69 @@ public class DDBTagValue {
      * 标签名称
      */
     private String tagName;
+
+    /**
+     * 按标签类型解码后的数值，首次调用 {@link #doubleValue()} 时解码。
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient double decodedValue;
+
+    /**
+     * {@link #decodedValue} 是否有效，标签值或标签类型变化时失效。
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile boolean decoded;
+
+    /**
+     * 设置标签的类型。
+     *
+     * @param tagType 标签的类型
+     * @return 当前对象
+     */
+    public DDBTagValue setTagType(TagType tagType) {
+        this.tagType = tagType;
+        this.decoded = false;
+        return this;
+    }
+
+    /**
+     * 设置标签的值。
+     *
+     * @param tagValue 标签的值
+     * @return 当前对象
+     */
+    public DDBTagValue setTagValue(String tagValue) {
+        this.tagValue = tagValue;
+        this.decoded = false;
+        return this;
+    }
+
+    /**
+     * 按标签类型解码的数值，只在首次调用时解析。
+     *
+     * @return 标签值，{@link TagType#STRING} 类型或无法解码时返回 {@link Double#NaN}
+     * @see TagValueDecoder#decodeDouble(TagType, String)
+     */
+    public double doubleValue() {
+        if (!decoded) {
+            decodedValue = TagValueDecoder.decodeDouble(tagType, tagValue);
+            decoded = true;
+        }
+        return decodedValue;
+    }
+
+    /**
+     * 按标签类型解码的整数值，整数类型不经过 double 转换，不丢失精度。
+     *
+     * @param defaultValue 无法解码时返回的值
+     * @return 标签值
+     * @see TagValueDecoder#decodeLong(TagType, String, long)
+     */
+    public long longValue(long defaultValue) {
+        return TagValueDecoder.decodeLong(tagType, tagValue, defaultValue);
+    }
 }
@@ -3,11 +3,13 @@ package io.github.forget_the_bright.hls.entity.response.base;
 import com.alibaba.fastjson.annotation.JSONField;
 import io.github.forget_the_bright.hls.config.EnumDeserializer;
 import io.github.forget_the_bright.hls.constant.common.TagType;
+import io.github.forget_the_bright.hls.core.TagValueDecoder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.Accessors;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * TODO
@@ -41,4 +43,23 @@ public class HDBTagValue {
      */
     @JSONField(name = "OneTagHDBValueList")
     private List<OneTagHDBValue> oneTagHDBValueList;
+
+    /**
+     * 按标签类型将所有数据点的某个值一次性解码为 double 数组，下标与数据点列表一致。
+     *
+     * @param getMethod 用于从 OneTagHDBValue 中提取值的函数，例如 {@code OneTagHDBValue::getTagValueAVG}
+     * @return 解码后的值，无法解码的位置为 {@link Double#NaN}
+     */
+    public double[] decodeValues(Function<OneTagHDBValue, String> getMethod) {
+        return TagValueDecoder.decodeDoubles(tagType, oneTagHDBValueList, getMethod);
+    }
+
+    /**
+     * 将所有数据点的时间取为毫秒时间戳数组，下标与数据点列表一致。
+     *
+     * @return 毫秒时间戳
+     */
+    public long[] decodeTimes() {
+        return TagValueDecoder.decodeTimes(oneTagHDBValueList);
+    }
 }
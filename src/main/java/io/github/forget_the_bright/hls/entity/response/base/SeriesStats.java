@@ -0,0 +1,56 @@
+package io.github.forget_the_bright.hls.entity.response.base;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * 时间序列在某个时间范围内的聚合结果。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(callSuper = false)
+public class SeriesStats {
+
+    /**
+     * 时间范围的开始，毫秒时间戳（包含）。
+     */
+    private long startTime;
+
+    /**
+     * 时间范围的结束，毫秒时间戳（包含）。
+     */
+    private long endTime;
+
+    /**
+     * 参与聚合的数据点个数，值为 NaN 的数据点不计入。
+     */
+    private long count;
+
+    /**
+     * 最小值，没有数据点时为 NaN。
+     */
+    private double min = Double.NaN;
+
+    /**
+     * 最大值，没有数据点时为 NaN。
+     */
+    private double max = Double.NaN;
+
+    /**
+     * 总和。
+     */
+    private double sum;
+
+    /**
+     * 平均值。
+     *
+     * @return 平均值，没有数据点时为 NaN
+     */
+    public double getAvg() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+}
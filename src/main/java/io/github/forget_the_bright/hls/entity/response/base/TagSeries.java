@@ -0,0 +1,67 @@
+package io.github.forget_the_bright.hls.entity.response.base;
+
+import io.github.forget_the_bright.hls.constant.common.Quality;
+import io.github.forget_the_bright.hls.constant.common.TagType;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import java.util.BitSet;
+
+/**
+ * 单个标签某个值的时间序列，{@link BaseValue} 列表的基本类型版本。
+ * <p>
+ * 时间、值和质量分别保存为 {@code long[]}、{@code double[]} 和位图，下标一一对应。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(callSuper = false)
+public class TagSeries {
+
+    /**
+     * 标签名称。
+     */
+    private String tagName;
+
+    /**
+     * 标签类型。
+     */
+    private TagType tagType;
+
+    /**
+     * 数据点时间，毫秒时间戳，时间缺失的位置为 {@link Long#MIN_VALUE}。
+     */
+    private long[] times;
+
+    /**
+     * 按标签类型解码后的值，无法解码的位置为 {@link Double#NaN}。
+     */
+    private double[] values;
+
+    /**
+     * 质量位图，第 i 位为 1 表示第 i 个数据点的质量为 {@link Quality#GOOD}；未要求质量时为 null。
+     */
+    private BitSet goodQuality;
+
+    /**
+     * 数据点个数。
+     *
+     * @return 数据点个数
+     */
+    public int size() {
+        return times == null ? 0 : times.length;
+    }
+
+    /**
+     * 判断第 i 个数据点的质量是否为 {@link Quality#GOOD}。
+     *
+     * @param i 数据点下标
+     * @return 质量为 GOOD 时返回 true；未要求质量时总是返回 true
+     */
+    public boolean isGood(int i) {
+        return goodQuality == null || goodQuality.get(i);
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.forget_the_bright.hls.exception;
+
+import io.github.forget_the_bright.hls.constant.attach.ApiModule;
+
+/**
+ * 熔断器打开异常，模块的熔断器处于打开状态、请求未发送时抛出。
+ *
+ * @author wanghao(helloworlwh @ 163.com)
+ * @since 2025/3/22
+ */
+public class CircuitOpenException extends ApiException {
+
+    /**
+     * 熔断的 API 模块。
+     */
+    private final ApiModule module;
+
+    public CircuitOpenException(String message, ApiModule module) {
+        super(message);
+        this.module = module;
+    }
+
+    public ApiModule getModule() {
+        return module;
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.forget_the_bright.hls.exception;
+
+/**
+ * 认证失败异常，HTTP 状态码为 401 时抛出。
+ *
+ * @author wanghao(helloworlwh @ 163.com)
+ * @since 2025/3/22
+ */
+public class UnauthorizedException extends ApiException {
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.forget_the_bright.hls.service;
+
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+
+import java.util.List;
+
+/**
+ * {@link HistorianBackfill} 的数据输出。
+ * <p>
+ * 每个工作单元查询成功后调用一次 {@link #write(HistorianRequest, List)}，返回后该单元才记入日志；
+ * 抛出异常时该单元按失败重试。多个工作线程会同时调用，实现必须是线程安全的。
+ * 进程在写入后、记入日志前退出时，恢复运行会再次写入该单元的数据，实现应能容忍重复写入。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@FunctionalInterface
+public interface BackfillSink {
+
+    /**
+     * 写入一个工作单元的数据。
+     *
+     * @param unitRequest 该单元的查询请求，包含该单元的标签和时间范围
+     * @param values      各标签的数据点，{@link HDBTagValue#getIndex()} 指向原始标签列表中的位置；
+     *                    相邻时间范围边界上的数据点只属于后一个单元
+     */
+    void write(HistorianRequest unitRequest, List<HDBTagValue> values);
+}
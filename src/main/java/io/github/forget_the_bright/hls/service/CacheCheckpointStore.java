@@ -0,0 +1,59 @@
+package io.github.forget_the_bright.hls.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import io.github.forget_the_bright.hls.core.CacheHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于 {@link CacheHolder} 的检查点存储，使用 Redis 缓存时多个实例可以共享检查点。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public class CacheCheckpointStore implements CheckpointStore {
+
+    /**
+     * 缓存键前缀。
+     */
+    private static final String KEY_PREFIX = "ge:cursor:";
+
+    /**
+     * 缓存持有者实例，用于存储检查点。
+     */
+    private final CacheHolder<String, String> cacheHolder;
+
+    /**
+     * 检查点的过期时间（毫秒），每次保存时重新计算。
+     */
+    private final long timeoutMillis;
+
+    /**
+     * 构造函数。
+     *
+     * @param cacheHolder   缓存持有者实例，用于存储检查点
+     * @param timeoutMillis 检查点的过期时间（毫秒），游标停止运行超过该时长后从初始时间重新开始
+     */
+    public CacheCheckpointStore(CacheHolder<String, String> cacheHolder, long timeoutMillis) {
+        this.cacheHolder = cacheHolder;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Map<String, Long> load(String cursorName) {
+        String json = cacheHolder.get(KEY_PREFIX + cursorName);
+        if (json == null) {
+            return new HashMap<>();
+        }
+        Map<String, Long> checkpoints = JSON.parseObject(json, new TypeReference<Map<String, Long>>() {
+        });
+        return checkpoints == null ? new HashMap<>() : checkpoints;
+    }
+
+    @Override
+    public void save(String cursorName, Map<String, Long> checkpoints) {
+        cacheHolder.put(KEY_PREFIX + cursorName, JSON.toJSONString(checkpoints), timeoutMillis);
+    }
+}
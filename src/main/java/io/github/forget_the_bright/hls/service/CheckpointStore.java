@@ -0,0 +1,28 @@
+package io.github.forget_the_bright.hls.service;
+
+import java.util.Map;
+
+/**
+ * 检查点存储，保存 {@link HistorianTailCursor} 每个标签已读取到的位置。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public interface CheckpointStore {
+
+    /**
+     * 读取某个游标的检查点。
+     *
+     * @param cursorName 游标名称
+     * @return 按标签名称索引的检查点（毫秒时间戳），没有保存过时返回空映射
+     */
+    Map<String, Long> load(String cursorName);
+
+    /**
+     * 保存某个游标的检查点，覆盖之前保存的全部内容。
+     *
+     * @param cursorName  游标名称
+     * @param checkpoints 按标签名称索引的检查点（毫秒时间戳）
+     */
+    void save(String cursorName, Map<String, Long> checkpoints);
+}
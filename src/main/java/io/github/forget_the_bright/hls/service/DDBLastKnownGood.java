@@ -0,0 +1,125 @@
+package io.github.forget_the_bright.hls.service;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.entity.request.TagNameListRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DataResult;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValueList;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时库最近一次成功读取的值，熔断器打开时作为降级结果返回。
+ * <p>
+ * 开启 {@link ApiConfig#isCircuitBreakerDdbFallback()} 后，每次成功读取实时库都按标签记录返回的值；
+ * 熔断器打开时，请求的标签全部有记录且记录时长不超过 {@link ApiConfig#getCircuitBreakerDdbFallbackMaxAgeSeconds()} 时，
+ * 返回这些值并标记为过期数据（{@link DataResult#isStale()}）。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public final class DDBLastKnownGood {
+
+    /**
+     * 按标签名称记录的最近一次成功读取的值。
+     */
+    private static final Map<String, Entry> VALUES = new ConcurrentHashMap<>();
+
+    private DDBLastKnownGood() {
+    }
+
+    /**
+     * 记录一次成功读取的值。
+     *
+     * @param dataResult 实时库读取结果，各标签值需已设置标签名称
+     */
+    static void record(DataResult dataResult) {
+        if (dataResult.getCode() != StateCode.SUCCESS.getCode()
+                || dataResult.getData() == null || dataResult.getData().getDdbTagValueList() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (DDBTagValue ddbTagValue : dataResult.getData().getDdbTagValueList()) {
+            if (ddbTagValue.getTagName() != null) {
+                VALUES.put(ddbTagValue.getTagName(), new Entry(copy(ddbTagValue), now));
+            }
+        }
+    }
+
+    /**
+     * 读取最近一次成功读取的值。
+     *
+     * @param tagNameListRequest 包含标签名称列表的请求对象
+     * @return 过期数据，{@link DataResult#getFetchedAt()} 为其中最早的读取时刻；任一标签没有记录或记录已超过最大时长时返回 null
+     */
+    public static DataResult read(TagNameListRequest tagNameListRequest) {
+        long maxAgeSeconds = ApiClient.getConfig().getCircuitBreakerDdbFallbackMaxAgeSeconds();
+        long oldestAllowed = maxAgeSeconds > 0 ? System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(maxAgeSeconds) : Long.MIN_VALUE;
+        List<TagNameRequest> tagNameList = tagNameListRequest.getTagNameList();
+        List<DDBTagValue> ddbTagValueList = new ArrayList<>(tagNameList.size());
+        long fetchedAt = Long.MAX_VALUE;
+        for (TagNameRequest tagNameRequest : tagNameList) {
+            Entry entry = VALUES.get(tagNameRequest.getTagName());
+            if (entry == null || entry.fetchedAt < oldestAllowed) {
+                return null;
+            }
+            ddbTagValueList.add(copy(entry.value));
+            fetchedAt = Math.min(fetchedAt, entry.fetchedAt);
+        }
+        DataResult dataResult = new DataResult().setData(new DDBTagValueList().setDdbTagValueList(ddbTagValueList))
+                .setStale(true)
+                .setFetchedAt(ddbTagValueList.isEmpty() ? null : new Date(fetchedAt));
+        dataResult.setCode(StateCode.SUCCESS.getCode());
+        dataResult.setMsg("熔断器已打开，返回最近一次成功读取的值");
+        return dataResult;
+    }
+
+    /**
+     * 清空记录的值。
+     */
+    public static void clear() {
+        VALUES.clear();
+    }
+
+    /**
+     * 复制标签值，调用方修改副本不会影响原值。
+     *
+     * @param value 标签值
+     * @return 独立副本
+     */
+    static DDBTagValue copy(DDBTagValue value) {
+        return new DDBTagValue()
+                .setQuality(value.getQuality())
+                .setTagSize(value.getTagSize())
+                .setTagType(value.getTagType())
+                .setTagValue(value.getTagValue())
+                .setTagValueTime(value.getTagValueTime())
+                .setTagName(value.getTagName());
+    }
+
+    /**
+     * 一个标签最近一次成功读取的值。
+     */
+    private static final class Entry {
+
+        private final DDBTagValue value;
+
+        /**
+         * 从服务端取得该值的时刻。
+         */
+        private final long fetchedAt;
+
+        private Entry(DDBTagValue value, long fetchedAt) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
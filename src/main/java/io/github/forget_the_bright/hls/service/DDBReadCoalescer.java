@@ -0,0 +1,206 @@
+package io.github.forget_the_bright.hls.service;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.entity.request.TagNameListRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DataResult;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValueList;
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 实时库读取合并器。
+ * <p>
+ * 在 {@link ApiConfig#getDdbCoalesceWindowMillis()} 窗口内到达的并发实时库读取会被合并为一次
+ * {@code Get_DDB_TAGVALUE_POST} 请求，请求的标签为各调用方标签的去重并集；窗口由第一个到达的调用方计时并负责发送，
+ * 窗口内累计的不同标签数达到 {@link ApiConfig#getDdbCoalesceMaxTags()} 时由触发上限的调用方立即发送。
+ * 响应返回后，每个调用方只拿到自己请求的标签值，顺序与请求一致。
+ * <p>
+ * 合并请求返回失败状态码时（例如其中一个调用方的标签不存在），失败可能只由部分调用方的标签引起，
+ * 因此批次中有多个调用方时，每个调用方改为单独发送自己的请求，不把失败扩散给其他调用方。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public final class DDBReadCoalescer {
+
+    /**
+     * 当前正在收集标签的批次。
+     */
+    private static Batch current;
+
+    private DDBReadCoalescer() {
+    }
+
+    /**
+     * 合并读取实时库标签值。
+     *
+     * @param tagNameListRequest 包含标签名称列表的请求对象
+     * @return 只包含本次请求标签的 {@link DataResult}
+     * @throws ApiException 合并后的请求失败时抛出
+     */
+    public static DataResult read(TagNameListRequest tagNameListRequest) {
+        ApiConfig config = ApiClient.getConfig();
+        List<TagNameRequest> tagNameList = tagNameListRequest.getTagNameList();
+        Batch batch;
+        boolean leader = false;
+        boolean flushNow = false;
+        synchronized (DDBReadCoalescer.class) {
+            batch = current;
+            if (batch == null) {
+                batch = new Batch();
+                current = batch;
+                leader = true;
+            }
+            batch.callers++;
+            for (TagNameRequest tagNameRequest : tagNameList) {
+                batch.tagNames.add(tagNameRequest.getTagName());
+            }
+            if (batch.tagNames.size() >= config.getDdbCoalesceMaxTags()) {
+                current = null;
+                flushNow = true;
+            }
+        }
+        ApiMetrics.increment("ddb.coalesce.requests");
+        if (flushNow) {
+            flush(batch);
+        } else if (leader) {
+            // 创建批次的调用方负责在窗口结束时发送，不依赖额外线程，线程池占满时也不会互相等待
+            awaitWindow(batch, config.getDdbCoalesceWindowMillis());
+            flush(batch);
+        }
+        DataResult merged;
+        try {
+            merged = batch.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            }
+            throw new ApiException("合并读取实时库失败", e.getCause());
+        }
+        if (merged.getCode() != StateCode.SUCCESS.getCode() && batch.callers > 1) {
+            ApiMetrics.increment("ddb.coalesce.fallbacks");
+            return HLSApiInvoker.getDDBTagValueDirect(tagNameListRequest);
+        }
+        return select(merged, tagNameList);
+    }
+
+    /**
+     * 等待合并窗口结束，批次提前因标签数达到上限被发送时立即返回。
+     *
+     * @param batch        当前批次
+     * @param windowMillis 合并窗口，单位为毫秒
+     */
+    private static void awaitWindow(Batch batch, long windowMillis) {
+        try {
+            batch.result.get(windowMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // 窗口结束或批次已失败，由 flush 和 join 处理
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 发送批次请求，同一批次只发送一次。
+     *
+     * @param batch 待发送的批次
+     */
+    private static void flush(Batch batch) {
+        List<TagNameRequest> tagNameList;
+        synchronized (DDBReadCoalescer.class) {
+            if (batch.sent) {
+                return;
+            }
+            batch.sent = true;
+            if (current == batch) {
+                current = null;
+            }
+            tagNameList = new ArrayList<>(batch.tagNames.size());
+            for (String tagName : batch.tagNames) {
+                tagNameList.add(new TagNameRequest().setTagName(tagName));
+            }
+        }
+        ApiMetrics.increment("ddb.coalesce.batches");
+        try {
+            batch.result.complete(HLSApiInvoker.getDDBTagValueDirect(new TagNameListRequest().setTagNameList(tagNameList)));
+        } catch (Throwable e) {
+            batch.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 从合并结果中挑出调用方请求的标签值。
+     *
+     * @param merged      合并请求的结果
+     * @param tagNameList 调用方请求的标签列表
+     * @return 调用方自己的结果，每个标签值都是独立副本；合并请求失败时只包含状态码和消息
+     */
+    private static DataResult select(DataResult merged, List<TagNameRequest> tagNameList) {
+        DataResult dataResult = new DataResult();
+        dataResult.setCode(merged.getCode());
+        dataResult.setMsg(merged.getMsg());
+        if (merged.getCode() != StateCode.SUCCESS.getCode() || merged.getData() == null || merged.getData().getDdbTagValueList() == null) {
+            return dataResult;
+        }
+        Map<String, DDBTagValue> byName = new HashMap<>();
+        for (DDBTagValue ddbTagValue : merged.getData().getDdbTagValueList()) {
+            byName.put(ddbTagValue.getTagName(), ddbTagValue);
+        }
+        List<DDBTagValue> ddbTagValueList = new ArrayList<>(tagNameList.size());
+        for (TagNameRequest tagNameRequest : tagNameList) {
+            DDBTagValue value = byName.get(tagNameRequest.getTagName());
+            if (value != null) {
+                ddbTagValueList.add(new DDBTagValue()
+                        .setQuality(value.getQuality())
+                        .setTagSize(value.getTagSize())
+                        .setTagType(value.getTagType())
+                        .setTagValue(value.getTagValue())
+                        .setTagValueTime(value.getTagValueTime())
+                        .setTagName(value.getTagName()));
+            }
+        }
+        return dataResult.setData(new DDBTagValueList().setDdbTagValueList(ddbTagValueList));
+    }
+
+    /**
+     * 一个合并窗口内收集的请求。
+     */
+    private static final class Batch {
+
+        /**
+         * 去重后的标签名称，保持到达顺序。
+         */
+        private final Set<String> tagNames = new LinkedHashSet<>();
+
+        /**
+         * 合并请求的结果。
+         */
+        private final CompletableFuture<DataResult> result = new CompletableFuture<>();
+
+        /**
+         * 加入该批次的调用方数量，发送后不再变化。
+         */
+        private int callers;
+
+        /**
+         * 是否已经发送。
+         */
+        private boolean sent;
+    }
+}
@@ -0,0 +1,225 @@
+package io.github.forget_the_bright.hls.service;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.entity.request.TagNameListRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DataResult;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValueList;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 实时库快照缓存，按标签缓存最新的 {@link DDBTagValue}。
+ * <p>
+ * 取值时间在 {@link ApiConfig#getDdbCacheFreshMillis()} 内的值直接返回；超过后仍立即返回旧值，
+ * 同时将标签加入待刷新集合，由一个后台任务把所有待刷新的标签合并为一次请求刷新（stale-while-revalidate）。
+ * 因此无论有多少读取方，同一时刻对服务端最多只有一个刷新请求。
+ * <p>
+ * 没有缓存值或缓存值已超过 {@link ApiConfig#getDdbCacheMaxStaleMillis()} 的标签在调用线程中同步读取；
+ * 长时间无人读取的标签不再刷新，超过该时长后从缓存中移除。服务端返回的值不足以覆盖请求的所有标签时，
+ * 整个请求改为直接读取，不返回缺少标签的结果。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public final class DDBSnapshotCache {
+
+    /**
+     * 按标签名称缓存的最新值。
+     */
+    private static final Map<String, Entry> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 等待后台刷新的标签名称。
+     */
+    private static final Set<String> PENDING = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否已有后台刷新任务在运行。
+     */
+    private static final AtomicBoolean REFRESHING = new AtomicBoolean();
+
+    private DDBSnapshotCache() {
+    }
+
+    /**
+     * 读取实时库标签值，优先返回缓存值。
+     *
+     * @param tagNameListRequest 包含标签名称列表的请求对象
+     * @return 包含 DDB 标签值的 {@link DataResult}，同步读取失败时返回该请求的状态码和消息
+     */
+    public static DataResult read(TagNameListRequest tagNameListRequest) {
+        ApiConfig config = ApiClient.getConfig();
+        List<TagNameRequest> tagNameList = tagNameListRequest.getTagNameList();
+        long now = System.currentTimeMillis();
+        Set<String> missing = new LinkedHashSet<>();
+        boolean stale = false;
+        for (TagNameRequest tagNameRequest : tagNameList) {
+            String tagName = tagNameRequest.getTagName();
+            Entry entry = CACHE.get(tagName);
+            if (entry != null) {
+                entry.lastReadAt = now;
+            }
+            if (entry == null || now - entry.fetchedAt > config.getDdbCacheMaxStaleMillis()) {
+                missing.add(tagName);
+            } else if (now - entry.fetchedAt > config.getDdbCacheFreshMillis()) {
+                PENDING.add(tagName);
+                stale = true;
+            }
+        }
+        ApiMetrics.add("ddb.cache.misses", missing.size());
+        ApiMetrics.add("ddb.cache.hits", tagNameList.size() - missing.size());
+        String msg = null;
+        if (!missing.isEmpty()) {
+            DataResult loaded = load(missing);
+            if (loaded.getCode() != StateCode.SUCCESS.getCode()) {
+                return loaded;
+            }
+            msg = loaded.getMsg();
+        }
+        if (stale) {
+            scheduleRefresh();
+        }
+        List<DDBTagValue> ddbTagValueList = new ArrayList<>(tagNameList.size());
+        for (TagNameRequest tagNameRequest : tagNameList) {
+            Entry entry = CACHE.get(tagNameRequest.getTagName());
+            if (entry == null) {
+                // 服务端没有返回该标签的值，不能按位置拼出完整结果
+                ApiMetrics.increment("ddb.cache.incomplete");
+                log.debug("实时库快照缺少标签 {} 的值，改为直接读取", tagNameRequest.getTagName());
+                return HLSApiInvoker.getDDBTagValueUncached(tagNameListRequest);
+            }
+            ddbTagValueList.add(DDBLastKnownGood.copy(entry.value));
+        }
+        DataResult dataResult = new DataResult().setData(new DDBTagValueList().setDdbTagValueList(ddbTagValueList));
+        dataResult.setCode(StateCode.SUCCESS.getCode());
+        dataResult.setMsg(msg);
+        return dataResult;
+    }
+
+    /**
+     * 清空缓存，之后的读取全部重新从服务端获取。
+     */
+    public static void clear() {
+        CACHE.clear();
+        PENDING.clear();
+    }
+
+    /**
+     * 从服务端读取标签值并写入缓存。
+     *
+     * @param tagNames 标签名称
+     * @return 服务端的读取结果
+     */
+    private static DataResult load(Set<String> tagNames) {
+        List<TagNameRequest> tagNameList = new ArrayList<>(tagNames.size());
+        for (String tagName : tagNames) {
+            tagNameList.add(new TagNameRequest().setTagName(tagName));
+        }
+        DataResult dataResult = HLSApiInvoker.getDDBTagValueUncached(new TagNameListRequest().setTagNameList(tagNameList));
+        if (dataResult.getCode() == StateCode.SUCCESS.getCode()
+                && dataResult.getData() != null && dataResult.getData().getDdbTagValueList() != null) {
+            long now = System.currentTimeMillis();
+            for (DDBTagValue ddbTagValue : dataResult.getData().getDdbTagValueList()) {
+                Entry previous = CACHE.get(ddbTagValue.getTagName());
+                CACHE.put(ddbTagValue.getTagName(), new Entry(ddbTagValue, now, previous == null ? now : previous.lastReadAt));
+            }
+        }
+        return dataResult;
+    }
+
+    /**
+     * 没有刷新任务在运行时提交一个，正在运行的任务会顺带处理新加入的标签。
+     */
+    private static void scheduleRefresh() {
+        if (REFRESHING.compareAndSet(false, true)) {
+            try {
+                ApiClient.getAsyncExecutor().execute(DDBSnapshotCache::refresh);
+            } catch (RuntimeException e) {
+                REFRESHING.set(false);
+                log.warn("实时库快照刷新任务提交失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 把所有待刷新的标签合并为一次请求刷新，直到没有新的待刷新标签。
+     */
+    private static void refresh() {
+        try {
+            while (!PENDING.isEmpty()) {
+                Set<String> tagNames = new LinkedHashSet<>();
+                for (Iterator<String> iterator = PENDING.iterator(); iterator.hasNext(); ) {
+                    tagNames.add(iterator.next());
+                    iterator.remove();
+                }
+                ApiMetrics.increment("ddb.cache.refreshes");
+                DataResult dataResult = load(tagNames);
+                if (dataResult.getCode() != StateCode.SUCCESS.getCode()) {
+                    // 保留旧值，下次读取到过期值时再次触发刷新
+                    ApiMetrics.increment("ddb.cache.refresh.failures");
+                    log.warn("实时库快照刷新失败: {}", dataResult.getMsg());
+                    break;
+                }
+            }
+            evictIdle();
+        } catch (Exception e) {
+            ApiMetrics.increment("ddb.cache.refresh.failures");
+            log.warn("实时库快照刷新失败: {}", e.getMessage());
+        } finally {
+            REFRESHING.set(false);
+        }
+        // 释放标记后可能有标签刚加入待刷新集合
+        if (!PENDING.isEmpty()) {
+            scheduleRefresh();
+        }
+    }
+
+    /**
+     * 移除长时间未被读取的标签。
+     */
+    private static void evictIdle() {
+        long deadline = System.currentTimeMillis() - ApiClient.getConfig().getDdbCacheMaxStaleMillis();
+        CACHE.values().removeIf(entry -> entry.lastReadAt < deadline);
+    }
+
+    /**
+     * 一个标签的缓存值。
+     */
+    private static final class Entry {
+
+        /**
+         * 最新的标签值。
+         */
+        private final DDBTagValue value;
+
+        /**
+         * 从服务端取得该值的时刻。
+         */
+        private final long fetchedAt;
+
+        /**
+         * 最近一次被读取的时刻。
+         */
+        private volatile long lastReadAt;
+
+        private Entry(DDBTagValue value, long fetchedAt, long lastReadAt) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+            this.lastReadAt = lastReadAt;
+        }
+    }
+}
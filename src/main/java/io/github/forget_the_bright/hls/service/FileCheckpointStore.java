@@ -0,0 +1,78 @@
+package io.github.forget_the_bright.hls.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 本地文件检查点存储，每个游标一个 JSON 文件，先写临时文件再原子替换，进程中途退出不会留下不完整的检查点。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+    /**
+     * 合法的游标名称，直接用作文件名。
+     */
+    private static final Pattern CURSOR_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    /**
+     * 检查点文件所在目录。
+     */
+    private final Path directory;
+
+    /**
+     * 构造函数。
+     *
+     * @param directory 检查点文件所在目录，不存在时在首次保存时创建
+     */
+    public FileCheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Map<String, Long> load(String cursorName) {
+        Path path = path(cursorName);
+        if (!Files.exists(path)) {
+            return new HashMap<>();
+        }
+        try {
+            String json = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            Map<String, Long> checkpoints = JSON.parseObject(json, new TypeReference<Map<String, Long>>() {
+            });
+            return checkpoints == null ? new HashMap<>() : checkpoints;
+        } catch (IOException e) {
+            throw new ApiException("读取检查点文件失败: " + path, e);
+        }
+    }
+
+    @Override
+    public void save(String cursorName, Map<String, Long> checkpoints) {
+        Path path = path(cursorName);
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, cursorName, ".tmp");
+            Files.write(temp, JSON.toJSONString(checkpoints).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ApiException("保存检查点文件失败: " + path, e);
+        }
+    }
+
+    private Path path(String cursorName) {
+        if (cursorName == null || !CURSOR_NAME.matcher(cursorName).matches()) {
+            throw new ApiException("游标名称只能包含字母、数字、点、下划线和连字符: " + cursorName);
+        }
+        return directory.resolve(cursorName + ".json");
+    }
+}
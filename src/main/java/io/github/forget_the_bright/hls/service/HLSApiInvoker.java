@@ -4,19 +4,36 @@ import cn.hutool.core.util.ObjectUtil;
 import io.github.forget_the_bright.hls.constant.DataApiEnum;
 import io.github.forget_the_bright.hls.constant.TagsApiEnum;
 import io.github.forget_the_bright.hls.constant.attach.ApiModule;
+import io.github.forget_the_bright.hls.constant.common.HDBAggregate;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
 import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.core.ColumnarHDBCollector;
+import io.github.forget_the_bright.hls.core.HDBStreamDecoder;
+import io.github.forget_the_bright.hls.core.HDBValueHandler;
 import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
 import io.github.forget_the_bright.hls.entity.request.TagNameListRequest;
 import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.ColumnarDatasResult;
 import io.github.forget_the_bright.hls.entity.response.DataResult;
 import io.github.forget_the_bright.hls.entity.response.DatasResult;
 import io.github.forget_the_bright.hls.entity.response.TagsResult;
+import io.github.forget_the_bright.hls.entity.response.base.BaseResult;
+import io.github.forget_the_bright.hls.entity.response.base.ColumnarHDBTagValue;
 import io.github.forget_the_bright.hls.entity.response.base.DDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValueList;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValueList;
+import io.github.forget_the_bright.hls.exception.ApiException;
+import io.github.forget_the_bright.hls.exception.CircuitOpenException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -56,20 +73,107 @@ public class HLSApiInvoker {
      *
      * <p>此方法根据提供的 {@link TagNameListRequest} 请求对象，调用 HLS API 获取指定标签的 DDB 标签值，并返回包含这些值的 {@link DataResult} 对象。</p>
      *
+     * <p>标签数超过 {@code maxTagsPerRequest} 时自动拆分为多批并行请求，结果按原始标签顺序合并，
+     * 任一批次失败时返回该批次的状态码和消息。</p>
+     *
+     * <p>{@code ddbCoalesceWindowMillis} 大于 0 时，并发的读取会由 {@link DDBReadCoalescer} 合并为一次请求，
+     * 每个调用方只拿到自己请求的标签值。</p>
+     *
+     * <p>{@code ddbCacheFreshMillis} 大于 0 时，由 {@link DDBSnapshotCache} 立即返回缓存的最新值，
+     * 过期的标签在后台合并为一次请求刷新。</p>
+     *
+     * <p>{@code circuitBreakerDdbFallback} 开启时，数据模块或认证模块的熔断器打开后由 {@link DDBLastKnownGood} 返回最近一次成功读取的值，
+     * 结果的 {@link DataResult#isStale()} 为 true；没有可用的值时仍抛出 {@link CircuitOpenException}。</p>
+     *
      * @param tagNameListRequest 包含标签名称列表的请求对象
      * @return 包含 DDB 标签值的 {@link DataResult} 对象
+     * @throws CircuitOpenException 熔断器打开且没有可返回的最近一次成功读取的值时抛出
      */
     public static DataResult getDDBTagValue(TagNameListRequest tagNameListRequest) {
-        DataResult dataResult = ApiClient.execute(
+        try {
+            if (ApiClient.getConfig().getDdbCacheFreshMillis() > 0) {
+                return DDBSnapshotCache.read(tagNameListRequest);
+            }
+            return getDDBTagValueUncached(tagNameListRequest);
+        } catch (ApiException e) {
+            if (ApiClient.getConfig().isCircuitBreakerDdbFallback() && isCircuitOpen(e)) {
+                DataResult fallback = DDBLastKnownGood.read(tagNameListRequest);
+                if (fallback != null) {
+                    ApiMetrics.increment("circuit.fallback");
+                    return fallback;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 判断异常是否由熔断器打开引起（包括获取 Token 时认证模块熔断）。
+     *
+     * @param e 读取时抛出的异常
+     * @return 异常链中包含 {@link CircuitOpenException} 时返回 true
+     */
+    private static boolean isCircuitOpen(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CircuitOpenException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从服务端获取 DDB 标签值，不经过快照缓存。
+     *
+     * @param tagNameListRequest 包含标签名称列表的请求对象
+     * @return 包含 DDB 标签值的 {@link DataResult} 对象
+     */
+    static DataResult getDDBTagValueUncached(TagNameListRequest tagNameListRequest) {
+        if (ApiClient.getConfig().getDdbCoalesceWindowMillis() > 0) {
+            return DDBReadCoalescer.read(tagNameListRequest);
+        }
+        return getDDBTagValueDirect(tagNameListRequest);
+    }
+
+    /**
+     * 直接获取 DDB 标签值，不参与读取合并。
+     *
+     * @param tagNameListRequest 包含标签名称列表的请求对象
+     * @return 包含 DDB 标签值的 {@link DataResult} 对象
+     */
+    static DataResult getDDBTagValueDirect(TagNameListRequest tagNameListRequest) {
+        List<TagNameRequest> tagNameList = tagNameListRequest.getTagNameList();
+        List<TagBatchSplitter.Batch<DataResult>> batches = TagBatchSplitter.execute(tagNameList, batch -> ApiClient.execute(
                 ApiModule.DATA,
                 DataApiEnum.Get_DDB_TAGVALUE_POST,
-                tagNameListRequest
-        );
-        List<TagNameRequest> tagNameList = tagNameListRequest.getTagNameList();
-        List<DDBTagValue> ddbTagValueList = dataResult.getData().getDdbTagValueList();
-        for (int i = 0; i < ddbTagValueList.size(); i++) {
-            DDBTagValue ddbTagValue = ddbTagValueList.get(i);
-            ddbTagValue.setTagName(tagNameList.get(i).getTagName());
+                batch == tagNameList ? tagNameListRequest : new TagNameListRequest().setTagNameList(batch)
+        ));
+        List<DDBTagValue> ddbTagValueList = new ArrayList<>(tagNameList.size());
+        for (TagBatchSplitter.Batch<DataResult> batch : batches) {
+            DataResult dataResult = batch.getResult();
+            if (dataResult.getCode() != StateCode.SUCCESS.getCode()) {
+                return dataResult;
+            }
+            if (dataResult.getData() == null || dataResult.getData().getDdbTagValueList() == null) {
+                continue;
+            }
+            List<DDBTagValue> batchValueList = dataResult.getData().getDdbTagValueList();
+            for (int i = 0; i < batchValueList.size(); i++) {
+                DDBTagValue ddbTagValue = batchValueList.get(i);
+                ddbTagValue.setTagName(tagNameList.get(batch.getOffset() + i).getTagName());
+                ddbTagValueList.add(ddbTagValue);
+            }
+        }
+        DataResult dataResult;
+        if (batches.size() == 1) {
+            dataResult = batches.get(0).getResult();
+        } else {
+            dataResult = new DataResult().setData(new DDBTagValueList().setDdbTagValueList(ddbTagValueList));
+            dataResult.setCode(StateCode.SUCCESS.getCode());
+            dataResult.setMsg(batches.get(0).getResult().getMsg());
+        }
+        if (ApiClient.getConfig().isCircuitBreakerDdbFallback()) {
+            DDBLastKnownGood.record(dataResult);
         }
         return dataResult;
     }
@@ -79,20 +183,188 @@ public class HLSApiInvoker {
      *
      * <p>此方法根据提供的 {@link HistorianRequest} 请求对象，调用 HLS API 获取指定标签的历史数据（HDB 标签值），并返回包含这些值的 {@link DatasResult} 对象。</p>
      *
+     * <p>时间范围超过 {@code maxQueryTimeRangeSeconds} 或预计点数超过 {@code maxPointsPerTag} 时，
+     * 由 {@link HistorianQueryPlanner} 切分为按查询间隔对齐的子区间并行查询，再按时间顺序拼接每个标签的数据点。</p>
+     *
+     * <p>标签数超过 {@code maxTagsPerRequest} 时自动拆分为多批并行请求，合并后 {@link HDBTagValue#getIndex()}
+     * 仍指向原始标签列表中的位置，任一批次失败时返回该批次的状态码和消息。</p>
+     *
+     * <p>{@code hdbSingleFlight} 开启时，同一时刻完全相同的查询由 {@link HistorianSingleFlight} 合并为一次请求。</p>
+     *
      * @param historianRequest 包含历史数据请求参数的请求对象
      * @return 包含 HDB 标签值的 {@link DatasResult} 对象
      */
     public static DatasResult getHDBTagValue(HistorianRequest historianRequest) {
-        DatasResult datasResult = ApiClient.execute(
+        if (ApiClient.getConfig().isHdbSingleFlight()) {
+            return HistorianSingleFlight.execute(historianRequest, HLSApiInvoker::getHDBTagValuePlanned);
+        }
+        return getHDBTagValuePlanned(historianRequest);
+    }
+
+    /**
+     * 按时间范围和标签列表规划后获取 HDB 标签值，不参与单飞去重。
+     * <p>启用 {@link HistorianArchive} 时，已归档的时间范围从本地文件读取，只查询缺口。</p>
+     *
+     * @param historianRequest 包含历史数据请求参数的请求对象
+     * @return 包含 HDB 标签值的 {@link DatasResult} 对象
+     */
+    static DatasResult getHDBTagValuePlanned(HistorianRequest historianRequest) {
+        if (HistorianArchive.isEnabled()) {
+            return HistorianArchive.execute(historianRequest, HLSApiInvoker::getHDBTagValueRemote);
+        }
+        return getHDBTagValueRemote(historianRequest);
+    }
+
+    /**
+     * 按时间范围和标签列表规划后获取 HDB 标签值，不读取本地归档。
+     * <p>启用 {@link HistorianSegmentCache} 时，已缓存的历史分段直接读取，只查询缺口。</p>
+     *
+     * @param historianRequest 包含历史数据请求参数的请求对象
+     * @return 包含 HDB 标签值的 {@link DatasResult} 对象
+     */
+    static DatasResult getHDBTagValueRemote(HistorianRequest historianRequest) {
+        if (HistorianSegmentCache.isEnabled()) {
+            return HistorianSegmentCache.execute(historianRequest,
+                    request -> HistorianQueryPlanner.execute(request, HLSApiInvoker::getHDBTagValueByTags));
+        }
+        return HistorianQueryPlanner.execute(historianRequest, HLSApiInvoker::getHDBTagValueByTags);
+    }
+
+    /**
+     * 按标签列表拆分获取 HDB 标签值，不切分时间范围。
+     *
+     * @param historianRequest 包含历史数据请求参数的请求对象
+     * @return 包含 HDB 标签值的 {@link DatasResult} 对象
+     */
+    static DatasResult getHDBTagValueByTags(HistorianRequest historianRequest) {
+        List<TagNameRequest> tagNameList = historianRequest.getTagNameList();
+        List<TagBatchSplitter.Batch<DatasResult>> batches = TagBatchSplitter.execute(tagNameList, batch -> ApiClient.execute(
                 ApiModule.DATA,
                 DataApiEnum.Get_HDB_TAGVALUE_POST,
-                historianRequest
+                batch == tagNameList ? historianRequest : withTagNameList(historianRequest, batch)
+        ));
+        List<HDBTagValue> hdbTagValueList = new ArrayList<>(tagNameList.size());
+        for (TagBatchSplitter.Batch<DatasResult> batch : batches) {
+            DatasResult datasResult = batch.getResult();
+            if (datasResult.getCode() != StateCode.SUCCESS.getCode()) {
+                return datasResult;
+            }
+            if (datasResult.getData() == null || datasResult.getData().getHdbTagValueList() == null) {
+                continue;
+            }
+            for (HDBTagValue hdbTagValue : datasResult.getData().getHdbTagValueList()) {
+                int index = batch.getOffset() + ObjectUtil.defaultIfNull(hdbTagValue.getIndex(), 0);
+                hdbTagValue.setIndex(index);
+                hdbTagValue.setTagName(tagNameList.get(index).getTagName());
+                hdbTagValueList.add(hdbTagValue);
+            }
+        }
+        if (batches.size() == 1) {
+            return batches.get(0).getResult();
+        }
+        DatasResult datasResult = new DatasResult().setData(new HDBTagValueList().setHdbTagValueList(hdbTagValueList));
+        datasResult.setCode(StateCode.SUCCESS.getCode());
+        datasResult.setMsg(batches.get(0).getResult().getMsg());
+        return datasResult;
+    }
+
+    /**
+     * 复制历史数据请求，仅替换标签列表。
+     *
+     * @param historianRequest 原始请求
+     * @param tagNameList      新的标签列表
+     * @return 新的请求对象
+     */
+    static HistorianRequest withTagNameList(HistorianRequest historianRequest, List<TagNameRequest> tagNameList) {
+        return new HistorianRequest()
+                .setStartTime(historianRequest.getStartTime())
+                .setEndTime(historianRequest.getEndTime())
+                .setInterval(historianRequest.getInterval())
+                .setNeedQueryBound(historianRequest.getNeedQueryBound())
+                .setNeedQueryAVG(historianRequest.getNeedQueryAVG())
+                .setNeedQueryMAX(historianRequest.getNeedQueryMAX())
+                .setNeedQueryMIN(historianRequest.getNeedQueryMIN())
+                .setTagNameList(tagNameList);
+    }
+
+    /**
+     * 流式获取 HDB 标签值。
+     *
+     * <p>与 {@link #getHDBTagValue(HistorianRequest)} 查询相同的数据，但响应体以流的方式增量解析，
+     * 每个 {@link io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue} 解析后立即交给 {@code handler}，
+     * 不构建完整的 {@link DatasResult}，适用于多标签、长时间范围的大结果集。</p>
+     *
+     * @param historianRequest 包含历史数据请求参数的请求对象
+     * @param handler          数据点回调，在调用线程中按响应顺序执行
+     * @return 响应的状态码和消息，状态码非成功时不会有数据点回调
+     */
+    public static BaseResult streamHDBTagValue(HistorianRequest historianRequest, HDBValueHandler handler) {
+        return ApiClient.executeStreaming(
+                ApiModule.DATA,
+                DataApiEnum.Get_HDB_TAGVALUE_POST,
+                null,
+                historianRequest,
+                reader -> HDBStreamDecoder.decode(reader, historianRequest.getTagNameList(), handler)
         );
+    }
+
+    /**
+     * 以按列存储的形式获取 HDB 标签值。
+     *
+     * <p>查询与 {@link #getHDBTagValue(HistorianRequest)} 相同的数据，但响应体以流的方式解析，
+     * 数据点解析后直接写入每个标签的 {@code long[]} 时间数组和 {@code double[]} 聚合值数组，不保留
+     * {@link io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue} 对象，
+     * 大结果集的堆内存占用和 GC 压力都远小于对象形式。</p>
+     *
+     * <p>标签列表按 {@link TagBatchSplitter} 拆分，时间范围按 {@link HistorianQueryPlanner#plan(HistorianRequest)}
+     * 切分后在每批标签内按时间顺序依次查询，子区间边界上重复的数据点只保留一个。</p>
+     *
+     * @param historianRequest 包含历史数据请求参数的请求对象
+     * @return 包含按列存储的 HDB 标签值的 {@link ColumnarDatasResult} 对象
+     */
+    public static ColumnarDatasResult getHDBTagValueColumnar(HistorianRequest historianRequest) {
+        Set<HDBAggregate> aggregates = HDBAggregate.requested(historianRequest);
+        List<Date[]> ranges = HistorianQueryPlanner.plan(historianRequest);
         List<TagNameRequest> tagNameList = historianRequest.getTagNameList();
-        datasResult.getData().getHdbTagValueList().forEach(hdbTagValue -> {
-            hdbTagValue.setTagName(tagNameList.get(hdbTagValue.getIndex()).getTagName());
+        List<TagBatchSplitter.Batch<ColumnarDatasResult>> batches = TagBatchSplitter.execute(tagNameList, batch -> {
+            HistorianRequest batchRequest = batch == tagNameList ? historianRequest : withTagNameList(historianRequest, batch);
+            ColumnarHDBCollector collector = new ColumnarHDBCollector(aggregates);
+            BaseResult baseResult = null;
+            for (Date[] range : ranges) {
+                baseResult = streamHDBTagValue(ranges.size() == 1 ? batchRequest
+                        : HistorianQueryPlanner.withTimeRange(batchRequest, range[0], range[1]), collector);
+                if (baseResult.getCode() != StateCode.SUCCESS.getCode()) {
+                    break;
+                }
+            }
+            ColumnarDatasResult columnarDatasResult = new ColumnarDatasResult();
+            columnarDatasResult.setCode(baseResult.getCode());
+            columnarDatasResult.setMsg(baseResult.getMsg());
+            if (baseResult.getCode() == StateCode.SUCCESS.getCode()) {
+                columnarDatasResult.setData(collector.getColumns());
+            }
+            return columnarDatasResult;
         });
-        return datasResult;
+        List<ColumnarHDBTagValue> columns = new ArrayList<>(tagNameList.size());
+        for (TagBatchSplitter.Batch<ColumnarDatasResult> batch : batches) {
+            ColumnarDatasResult columnarDatasResult = batch.getResult();
+            if (columnarDatasResult.getCode() != StateCode.SUCCESS.getCode()) {
+                return columnarDatasResult;
+            }
+            for (ColumnarHDBTagValue column : columnarDatasResult.getData()) {
+                int index = batch.getOffset() + ObjectUtil.defaultIfNull(column.getIndex(), 0);
+                column.setIndex(index);
+                column.setTagName(tagNameList.get(index).getTagName());
+                columns.add(column);
+            }
+        }
+        if (batches.size() == 1) {
+            return batches.get(0).getResult();
+        }
+        ColumnarDatasResult columnarDatasResult = new ColumnarDatasResult().setData(columns);
+        columnarDatasResult.setCode(StateCode.SUCCESS.getCode());
+        columnarDatasResult.setMsg(batches.get(0).getResult().getMsg());
+        return columnarDatasResult;
     }
 
     /**
@@ -273,4 +545,216 @@ public class HLSApiInvoker {
                 true, true, true, true, tagNames);
         return getHDBTagValue(historianRequest);
     }
+
+    /**
+     * 异步查询所有标签。
+     *
+     * <p>在 {@link ApiClient#getAsyncExecutor()} 线程池中执行 {@link #queryAllTags()}，调用线程不会被阻塞。</p>
+     *
+     * @return 完成时携带 {@link TagsResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<TagsResult> queryAllTagsAsync() {
+        return CompletableFuture.supplyAsync(HLSApiInvoker::queryAllTags, ApiClient.getAsyncExecutor());
+    }
+
+    /**
+     * 异步获取 DDB 标签值。
+     *
+     * <p>在 {@link ApiClient#getAsyncExecutor()} 线程池中执行 {@link #getDDBTagValue(TagNameListRequest)}，调用线程不会被阻塞。</p>
+     *
+     * @param tagNameListRequest 包含标签名称列表的请求对象
+     * @return 完成时携带 {@link DataResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DataResult> getDDBTagValueAsync(TagNameListRequest tagNameListRequest) {
+        return CompletableFuture.supplyAsync(() -> getDDBTagValue(tagNameListRequest), ApiClient.getAsyncExecutor());
+    }
+
+    /**
+     * 异步获取 HDB 标签值。
+     *
+     * <p>在 {@link ApiClient#getAsyncExecutor()} 线程池中执行 {@link #getHDBTagValue(HistorianRequest)}，调用线程不会被阻塞。
+     * 适用于同时发起大量不同标签、不同时间段的查询。</p>
+     *
+     * @param historianRequest 包含历史数据请求参数的请求对象
+     * @return 完成时携带 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueAsync(HistorianRequest historianRequest) {
+        return CompletableFuture.supplyAsync(() -> getHDBTagValue(historianRequest), ApiClient.getAsyncExecutor());
+    }
+
+    /**
+     * 异步获取 HDB 标签值。
+     *
+     * @param startTime        查询的开始时间。
+     * @param endTime          查询的结束时间。
+     * @param needQueryBound   是否需要查询边界值。
+     * @param needQueryAVG     是否需要查询平均值。
+     * @param needQueryMIN     是否需要查询最小值。
+     * @param needQueryMAX     是否需要查询最大值。
+     * @param intervalBySecond 查询的时间间隔（单位为秒）。
+     * @param tagNames         需要查询的标签名称数组。
+     * @return 完成时携带 {@link DatasResult} 的 {@link CompletableFuture}
+     * @see #getHDBTagValue(Date, Date, Boolean, Boolean, Boolean, Boolean, Long, String...)
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueAsync(Date startTime,
+                                                                     Date endTime,
+                                                                     Boolean needQueryBound,
+                                                                     Boolean needQueryAVG,
+                                                                     Boolean needQueryMIN,
+                                                                     Boolean needQueryMAX,
+                                                                     Long intervalBySecond,
+                                                                     String... tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond, needQueryAVG, needQueryMIN, needQueryMAX, needQueryBound, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的边界值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称集合
+     * @return 完成时携带边界值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueBoundAsync(Date startTime, Date endTime, Long intervalBySecond, Collection<String> tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                false, false, false, true, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的边界值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称数组
+     * @return 完成时携带边界值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueBoundAsync(Date startTime, Date endTime, Long intervalBySecond, String... tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                false, false, false, true, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的最大值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称集合
+     * @return 完成时携带最大值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueMaxAsync(Date startTime, Date endTime, Long intervalBySecond, Collection<String> tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                false, false, true, false, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的最大值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称数组
+     * @return 完成时携带最大值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueMaxAsync(Date startTime, Date endTime, Long intervalBySecond, String... tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                false, false, true, false, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的最小值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称集合
+     * @return 完成时携带最小值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueMinAsync(Date startTime, Date endTime, Long intervalBySecond, Collection<String> tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                false, true, false, false, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的最小值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称数组
+     * @return 完成时携带最小值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueMinAsync(Date startTime, Date endTime, Long intervalBySecond, String... tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                false, true, false, false, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的平均值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称集合
+     * @return 完成时携带平均值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueAvgAsync(Date startTime, Date endTime, Long intervalBySecond, Collection<String> tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                true, false, false, false, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的平均值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称数组
+     * @return 完成时携带平均值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueAvgAsync(Date startTime, Date endTime, Long intervalBySecond, String... tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                true, false, false, false, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的所有值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称集合
+     * @return 完成时携带所有值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueAllAsync(Date startTime, Date endTime, Long intervalBySecond, Collection<String> tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                true, true, true, true, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
+
+    /**
+     * 异步获取历史数据中的所有值。
+     *
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @param intervalBySecond 时间间隔（秒）
+     * @param tagNames         标签名称数组
+     * @return 完成时携带所有值 {@link DatasResult} 的 {@link CompletableFuture}
+     */
+    public static CompletableFuture<DatasResult> getHDBTagValueAllAsync(Date startTime, Date endTime, Long intervalBySecond, String... tagNames) {
+        HistorianRequest historianRequest = HistorianRequest.buildRequest(startTime, endTime, intervalBySecond,
+                true, true, true, true, tagNames);
+        return getHDBTagValueAsync(historianRequest);
+    }
 }
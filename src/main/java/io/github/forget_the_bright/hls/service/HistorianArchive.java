@@ -0,0 +1,1127 @@
+package io.github.forget_the_bright.hls.service;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.StrUtil;
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.common.HDBAggregate;
+import io.github.forget_the_bright.hls.constant.common.Quality;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.constant.common.TagType;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.core.ConcurrentUtil;
+import io.github.forget_the_bright.hls.core.TagValueDecoder;
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DatasResult;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValueList;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+import io.github.forget_the_bright.hls.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 本地历史数据归档。
+ * <p>
+ * 把查询过的历史数据按（查询间隔，标签）镜像到本地目录 {@link ApiConfig#getHdbArchiveDir()} 中，
+ * 已归档的时间范围不再请求 HLS，进程重启后直接从文件读取：
+ * <ul>
+ *     <li>每个标签由若干只追加的分段文件组成，文件头记录已归档的时间范围和数据点个数，之后是定长记录
+ *     （时间和全部四种聚合值及其质量），记录按时间升序排列，按时间查找时直接在映射的文件上二分；</li>
+ *     <li>分段文件以内存映射方式读写，{@link #read(String, long, Date, Date)} 返回直接指向映射内存的只读视图，不复制数据；</li>
+ *     <li>分段文件按需增长，最多 {@link ApiConfig#getHdbArchiveSegmentRecords()} 条记录；归档范围首尾相接的分段合并为一个文件，
+ *     没有采样时刻、也不与已有分段相邻的缺口不单独建文件；</li>
+ *     <li>同时打开的归档不超过 {@link ApiConfig#getHdbArchiveMaxOpenTags()} 个，超过时关闭最久未使用的并释放其内存映射，
+ *     已通过 {@link #read(String, long, Date, Date)} 交给调用方的映射在视图不再被引用后由垃圾回收释放；</li>
+ *     <li>新数据先写入记录并刷盘，再更新文件头，进程中途退出时未提交的记录被忽略。</li>
+ * </ul>
+ * <p>
+ * 查询时只请求未归档的缺口，缺口总是按四种聚合值查询后归档；晚于 {@link ApiConfig#getHdbCacheMutableEdgeSeconds()}
+ * 可变边界的部分每次都实时查询，不归档。{@link #syncTail(Collection, long, Date)} 从每个标签已归档的末尾增量拉取新数据。
+ * <p>
+ * 值按 {@link TagValueDecoder} 解码为 double 保存，读出时由 {@link TagValueDecoder#toValueString(double)} 还原，
+ * 字符串格式可能与服务端原始值不同；非数值类型的标签不归档，每次都直接查询。归档目录只应由一个进程使用。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public class HistorianArchive {
+
+    /**
+     * 分段文件魔数。
+     */
+    private static final int MAGIC = 0x484C5341;
+
+    /**
+     * 分段文件格式版本。
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * 文件头长度（字节）。
+     */
+    private static final int HEADER_BYTES = 64;
+
+    /**
+     * 单条记录长度（字节）：时间 8 + 四种聚合值各 8 + 三种质量各 1，对齐到 8 字节。
+     */
+    private static final int RECORD_BYTES = 48;
+
+    private static final int OFFSET_COVERED_START = 8;
+
+    private static final int OFFSET_COVERED_END = 16;
+
+    private static final int OFFSET_COUNT = 24;
+
+    private static final int OFFSET_TAG_TYPE = 28;
+
+    /**
+     * 标签类型未知时文件头中的取值。
+     */
+    private static final int UNKNOWN_TAG_TYPE = Integer.MIN_VALUE;
+
+    /**
+     * 质量缺失时记录中的取值。
+     */
+    private static final byte NO_QUALITY = -1;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * 新建分段文件时至少预留的记录数。
+     */
+    private static final int MIN_SEGMENT_RECORDS = 256;
+
+    /**
+     * API 配置对象，包含归档目录、分段容量、可变边界等配置信息。
+     */
+    private static ApiConfig config;
+
+    /**
+     * 归档根目录，为 null 时不启用。
+     */
+    private static Path root;
+
+    /**
+     * 按查询间隔和标签名称索引的归档，只记录目录，分段文件在使用时才打开。
+     */
+    private static final Map<String, TagArchive> ARCHIVES = new ConcurrentHashMap<>();
+
+    /**
+     * 已打开分段文件的归档，按访问顺序排列，访问时需持有该对象的锁。
+     */
+    private static final Map<TagArchive, Boolean> OPENED = new LinkedHashMap<>(16, 0.75F, true);
+
+    /**
+     * 构造函数，初始化归档目录和 API 配置。
+     *
+     * @param config API 配置对象，包含归档目录、分段容量、可变边界等配置信息。
+     */
+    public HistorianArchive(ApiConfig config) {
+        HistorianArchive.config = config;
+        HistorianArchive.root = StrUtil.isBlank(config.getHdbArchiveDir()) ? null : Paths.get(config.getHdbArchiveDir());
+        List<TagArchive> opened;
+        synchronized (OPENED) {
+            opened = new ArrayList<>(OPENED.keySet());
+            OPENED.clear();
+        }
+        for (TagArchive archive : opened) {
+            archive.close();
+        }
+        ARCHIVES.clear();
+    }
+
+    /**
+     * 判断本地归档是否可用。
+     *
+     * @return 已初始化且配置了归档目录时返回 true
+     */
+    public static boolean isEnabled() {
+        return root != null && config != null;
+    }
+
+    /**
+     * 执行查询，已归档的时间范围从本地文件读取，缺口通过 {@code query} 请求后归档。
+     *
+     * @param historianRequest 历史数据请求
+     * @param query            实际执行查询的函数
+     * @return 查询结果，任一缺口查询失败时返回该缺口的结果
+     */
+    public static DatasResult execute(HistorianRequest historianRequest, Function<HistorianRequest, DatasResult> query) {
+        Date startTime = historianRequest.getStartTime();
+        Date endTime = historianRequest.getEndTime();
+        Long interval = historianRequest.getInterval();
+        List<TagNameRequest> tagNameList = historianRequest.getTagNameList();
+        if (startTime == null || endTime == null || interval == null || interval <= 0 || tagNameList == null || tagNameList.isEmpty()) {
+            return query.apply(historianRequest);
+        }
+        long intervalMillis = TimeUnit.SECONDS.toMillis(interval);
+        long start = startTime.getTime();
+        long end = endTime.getTime();
+        long cutoff = cutoff(intervalMillis);
+        // 归档范围为 [start, archiveEnd)，结束时间上的数据点也在其中
+        long archiveEnd = Math.min(end + 1, cutoff);
+        if (start % intervalMillis != 0 || end < start || archiveEnd <= start) {
+            return query.apply(historianRequest);
+        }
+
+        List<List<Piece>> plans = new ArrayList<>(tagNameList.size());
+        Map<String, Gap> gaps = new LinkedHashMap<>();
+        int hits = 0;
+        for (int index = 0; index < tagNameList.size(); index++) {
+            List<Piece> pieces = archive(interval, tagNameList.get(index).getTagName()).plan(start, archiveEnd);
+            for (Piece piece : pieces) {
+                if (piece.archived) {
+                    hits++;
+                    continue;
+                }
+                if (alignUp(piece.from, intervalMillis) >= piece.to) {
+                    // 缺口内没有采样时刻，不必查询
+                    piece.values = new ArrayList<>();
+                    archive(interval, tagNameList.get(index).getTagName()).extend(piece.from, piece.to);
+                    continue;
+                }
+                Gap gap = gaps.computeIfAbsent(piece.from + "-" + piece.to, key -> new Gap(piece.from, piece.to));
+                gap.indexes.add(index);
+                gap.pieces.add(piece);
+            }
+            plans.add(pieces);
+        }
+        ApiMetrics.add("hdb.archive.hits", hits);
+        ApiMetrics.add("hdb.archive.gaps", gaps.size());
+
+        List<Supplier<DatasResult>> tasks = new ArrayList<>();
+        for (Gap gap : gaps.values()) {
+            List<TagNameRequest> gapTags = new ArrayList<>(gap.indexes.size());
+            for (int index : gap.indexes) {
+                gapTags.add(tagNameList.get(index));
+            }
+            HistorianRequest gapRequest = fullRequest(historianRequest, gapTags, alignDown(gap.from, intervalMillis), gap.to);
+            tasks.add(() -> query.apply(gapRequest));
+        }
+        boolean live = end >= cutoff;
+        if (live) {
+            HistorianRequest liveRequest = HistorianQueryPlanner.withTimeRange(historianRequest,
+                    new Date(Math.max(start, alignDown(cutoff, intervalMillis))), endTime);
+            tasks.add(() -> query.apply(liveRequest));
+        }
+        List<DatasResult> results = ConcurrentUtil.invokeAll(tasks, config.getFanOutParallelism());
+
+        int g = 0;
+        for (Gap gap : gaps.values()) {
+            DatasResult gapResult = results.get(g++);
+            if (gapResult.getCode() != StateCode.SUCCESS.getCode()) {
+                return gapResult;
+            }
+            Map<String, HDBTagValue> byTagName = byTagName(gapResult);
+            for (int i = 0; i < gap.indexes.size(); i++) {
+                String tagName = tagNameList.get(gap.indexes.get(i)).getTagName();
+                HDBTagValue tagValue = byTagName.get(tagName);
+                Piece piece = gap.pieces.get(i);
+                if (tagValue == null) {
+                    continue;
+                }
+                piece.tagType = tagValue.getTagType();
+                piece.values = slice(tagValue.getOneTagHDBValueList(), gap.from, gap.to);
+                archive(interval, tagName).append(gap.from, gap.to, piece.values, piece.tagType);
+            }
+        }
+        Map<String, HDBTagValue> liveByTagName = null;
+        if (live) {
+            DatasResult liveResult = results.get(g);
+            if (liveResult.getCode() != StateCode.SUCCESS.getCode()) {
+                return liveResult;
+            }
+            liveByTagName = byTagName(liveResult);
+        }
+
+        Set<HDBAggregate> aggregates = HDBAggregate.requested(historianRequest);
+        List<HDBTagValue> hdbTagValueList = new ArrayList<>(tagNameList.size());
+        for (int index = 0; index < tagNameList.size(); index++) {
+            String tagName = tagNameList.get(index).getTagName();
+            TagArchive archive = archive(interval, tagName);
+            HDBTagValue merged = new HDBTagValue().setIndex(index).setTagName(tagName).setOneTagHDBValueList(new ArrayList<>());
+            for (Piece piece : plans.get(index)) {
+                if (piece.archived) {
+                    merged.getOneTagHDBValueList().addAll(archive.materialize(piece.from, piece.to, aggregates));
+                    if (merged.getTagType() == null) {
+                        merged.setTagType(archive.getTagType());
+                    }
+                } else if (piece.values != null) {
+                    for (OneTagHDBValue value : piece.values) {
+                        merged.getOneTagHDBValueList().add(retain(value, aggregates));
+                    }
+                    if (merged.getTagType() == null) {
+                        merged.setTagType(piece.tagType);
+                    }
+                }
+            }
+            HDBTagValue liveValue = liveByTagName == null ? null : liveByTagName.get(tagName);
+            if (liveValue != null) {
+                merged.getOneTagHDBValueList().addAll(slice(liveValue.getOneTagHDBValueList(), Math.max(start, cutoff), end + 1));
+                if (merged.getTagType() == null) {
+                    merged.setTagType(liveValue.getTagType());
+                }
+            }
+            hdbTagValueList.add(merged);
+        }
+        DatasResult datasResult = new DatasResult().setData(new HDBTagValueList().setHdbTagValueList(hdbTagValueList));
+        datasResult.setCode(StateCode.SUCCESS.getCode());
+        return datasResult;
+    }
+
+    /**
+     * 从每个标签已归档的末尾增量拉取到可变边界为止的新数据并归档。
+     *
+     * @param tagNames        标签名称
+     * @param intervalSeconds 查询间隔（秒）
+     * @param since           尚未归档的标签的起始时间，为 null 时跳过这些标签
+     * @return 本次新归档的数据，任一查询失败时返回该查询的结果
+     * @throws ApiException 归档未启用时抛出
+     */
+    public static DatasResult syncTail(Collection<String> tagNames, long intervalSeconds, Date since) {
+        checkEnabled();
+        long intervalMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+        long cutoff = cutoff(intervalMillis);
+        Map<Long, List<String>> byStart = new LinkedHashMap<>();
+        for (String tagName : tagNames) {
+            long from = archive(intervalSeconds, tagName).getCoveredEnd();
+            if (from == Long.MIN_VALUE) {
+                if (since == null) {
+                    continue;
+                }
+                from = alignDown(since.getTime(), intervalMillis);
+            }
+            if (alignUp(from, intervalMillis) >= cutoff) {
+                archive(intervalSeconds, tagName).extend(from, cutoff);
+            } else {
+                byStart.computeIfAbsent(from, key -> new ArrayList<>()).add(tagName);
+            }
+        }
+        List<HDBTagValue> appended = new ArrayList<>();
+        for (Map.Entry<Long, List<String>> entry : byStart.entrySet()) {
+            long from = entry.getKey();
+            List<TagNameRequest> tagNameList = new ArrayList<>(entry.getValue().size());
+            for (String tagName : entry.getValue()) {
+                tagNameList.add(new TagNameRequest().setTagName(tagName));
+            }
+            HistorianRequest request = fullRequest(new HistorianRequest().setInterval(intervalSeconds), tagNameList,
+                    alignDown(from, intervalMillis), cutoff);
+            DatasResult result = HLSApiInvoker.getHDBTagValueRemote(request);
+            if (result.getCode() != StateCode.SUCCESS.getCode()) {
+                return result;
+            }
+            Map<String, HDBTagValue> byTagName = byTagName(result);
+            for (String tagName : entry.getValue()) {
+                HDBTagValue tagValue = byTagName.get(tagName);
+                if (tagValue == null) {
+                    continue;
+                }
+                List<OneTagHDBValue> values = slice(tagValue.getOneTagHDBValueList(), from, cutoff);
+                if (archive(intervalSeconds, tagName).append(from, cutoff, values, tagValue.getTagType())) {
+                    appended.add(new HDBTagValue().setIndex(appended.size()).setTagName(tagName)
+                            .setTagType(tagValue.getTagType()).setOneTagHDBValueList(values));
+                }
+            }
+        }
+        DatasResult datasResult = new DatasResult().setData(new HDBTagValueList().setHdbTagValueList(appended));
+        datasResult.setCode(StateCode.SUCCESS.getCode());
+        return datasResult;
+    }
+
+    /**
+     * 读取已归档的数据，不请求 HLS。
+     * <p>
+     * 返回的视图直接指向映射的文件内容，不复制数据，每个分段文件对应一个视图，按时间顺序排列。
+     *
+     * @param tagName         标签名称
+     * @param intervalSeconds 查询间隔（秒）
+     * @param startTime       开始时间（包含），为 null 表示不限制
+     * @param endTime         结束时间（包含），为 null 表示不限制
+     * @return 按时间顺序排列的只读视图
+     * @throws ApiException 归档未启用时抛出
+     */
+    public static List<Slice> read(String tagName, long intervalSeconds, Date startTime, Date endTime) {
+        checkEnabled();
+        long start = startTime == null ? Long.MIN_VALUE : startTime.getTime();
+        long end = endTime == null ? Long.MAX_VALUE : endTime.getTime() + 1;
+        return archive(intervalSeconds, tagName).slices(start, end, true);
+    }
+
+    /**
+     * 某个标签已归档的时间范围的结束时间。
+     *
+     * @param tagName         标签名称
+     * @param intervalSeconds 查询间隔（秒）
+     * @return 最后一个分段的归档结束时间（不包含），没有归档时返回 null
+     * @throws ApiException 归档未启用时抛出
+     */
+    public static Date getArchivedUntil(String tagName, long intervalSeconds) {
+        checkEnabled();
+        long coveredEnd = archive(intervalSeconds, tagName).getCoveredEnd();
+        return coveredEnd == Long.MIN_VALUE ? null : new Date(coveredEnd);
+    }
+
+    private static void checkEnabled() {
+        if (!isEnabled()) {
+            throw new ApiException("未配置历史数据归档目录 hdb-archive-dir");
+        }
+    }
+
+    /**
+     * 可归档的数据点时间上限（不包含）。
+     * <p>数据点 t 是区间 [t, t + intervalMillis) 的聚合值，只有整个区间都早于可变边界时才归档，
+     * 即 {@code t + intervalMillis <= 可变边界}。</p>
+     */
+    private static long cutoff(long intervalMillis) {
+        long mutableEdge = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(config.getHdbCacheMutableEdgeSeconds());
+        return mutableEdge - intervalMillis + 1;
+    }
+
+    private static long alignDown(long time, long intervalMillis) {
+        return Math.floorDiv(time, intervalMillis) * intervalMillis;
+    }
+
+    private static long alignUp(long time, long intervalMillis) {
+        return -Math.floorDiv(-time, intervalMillis) * intervalMillis;
+    }
+
+    /**
+     * 获取归档，并关闭超出 {@link ApiConfig#getHdbArchiveMaxOpenTags()} 的最久未使用的归档。
+     */
+    private static TagArchive archive(long intervalSeconds, String tagName) {
+        TagArchive archive = ARCHIVES.computeIfAbsent(intervalSeconds + "|" + tagName, key -> new TagArchive(
+                root.resolve("i" + intervalSeconds).resolve(HexUtil.encodeHexStr(tagName.getBytes(StandardCharsets.UTF_8)))));
+        List<TagArchive> idle = new ArrayList<>();
+        synchronized (OPENED) {
+            OPENED.get(archive);
+            int maxOpen = Math.max(1, config.getHdbArchiveMaxOpenTags());
+            for (Iterator<TagArchive> iterator = OPENED.keySet().iterator(); OPENED.size() > maxOpen && iterator.hasNext(); ) {
+                TagArchive eldest = iterator.next();
+                if (eldest != archive) {
+                    iterator.remove();
+                    idle.add(eldest);
+                }
+            }
+        }
+        // 不持有 OPENED 的锁关闭，归档的锁内会登记到 OPENED
+        for (TagArchive eldest : idle) {
+            eldest.close();
+            ApiMetrics.increment("hdb.archive.closed");
+        }
+        return archive;
+    }
+
+    /**
+     * 释放内存映射，失败时留给垃圾回收释放。
+     *
+     * @return 已释放返回 true
+     */
+    private static boolean unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner == null) {
+                    return false;
+                }
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+                return true;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return true;
+        } catch (Exception e) {
+            log.debug("释放历史数据归档内存映射失败，留给垃圾回收: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 构造查询全部四种聚合值的请求，归档的数据不依赖于某次查询的标志。
+     */
+    private static HistorianRequest fullRequest(HistorianRequest historianRequest, List<TagNameRequest> tagNameList, long from, long to) {
+        return HLSApiInvoker.withTagNameList(historianRequest, tagNameList)
+                .setStartTime(new Date(from))
+                .setEndTime(new Date(to))
+                .setNeedQueryAVG(true)
+                .setNeedQueryMIN(true)
+                .setNeedQueryMAX(true)
+                .setNeedQueryBound(true);
+    }
+
+    private static Map<String, HDBTagValue> byTagName(DatasResult result) {
+        Map<String, HDBTagValue> byTagName = new HashMap<>();
+        if (result.getData() != null && result.getData().getHdbTagValueList() != null) {
+            for (HDBTagValue hdbTagValue : result.getData().getHdbTagValueList()) {
+                byTagName.put(hdbTagValue.getTagName(), hdbTagValue);
+            }
+        }
+        return byTagName;
+    }
+
+    /**
+     * 截取时间落在 [from, to) 内的数据点。
+     */
+    private static List<OneTagHDBValue> slice(List<OneTagHDBValue> values, long from, long to) {
+        List<OneTagHDBValue> slice = new ArrayList<>();
+        if (values == null) {
+            return slice;
+        }
+        for (OneTagHDBValue value : values) {
+            if (value.getTagValueTime() == null) {
+                continue;
+            }
+            long time = value.getTagValueTime().getTime();
+            if (time >= from && time < to) {
+                slice.add(value);
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * 复制数据点，只保留请求的聚合值。
+     */
+    private static OneTagHDBValue retain(OneTagHDBValue value, Set<HDBAggregate> aggregates) {
+        OneTagHDBValue copy = new OneTagHDBValue().setTagValueTime(value.getTagValueTime());
+        for (HDBAggregate aggregate : aggregates) {
+            aggregate.setValue(copy, aggregate.getValue(value));
+            aggregate.setQuality(copy, aggregate.getQuality(value));
+        }
+        return copy;
+    }
+
+    private static int valueOffset(HDBAggregate aggregate) {
+        return 8 + 8 * aggregate.ordinal();
+    }
+
+    private static int qualityOffset(HDBAggregate aggregate) {
+        return 8 + 8 * HDBAggregate.values().length + aggregate.ordinal() - 1;
+    }
+
+    /**
+     * 查询范围中的一段：已归档或需要请求的缺口。
+     */
+    private static final class Piece {
+
+        private final long from;
+
+        private final long to;
+
+        private final boolean archived;
+
+        private List<OneTagHDBValue> values;
+
+        private TagType tagType;
+
+        private Piece(long from, long to, boolean archived) {
+            this.from = from;
+            this.to = to;
+            this.archived = archived;
+        }
+    }
+
+    /**
+     * 多个标签共有的同一个缺口，合并为一次查询。
+     */
+    private static final class Gap {
+
+        private final long from;
+
+        private final long to;
+
+        private final List<Integer> indexes = new ArrayList<>();
+
+        private final List<Piece> pieces = new ArrayList<>();
+
+        private Gap(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * 一个标签在一个查询间隔下的归档，由按时间排列、归档范围互不重叠的分段组成。
+     * <p>分段文件在首次使用时打开，{@link #close()} 后再次使用时重新打开。</p>
+     */
+    private static final class TagArchive {
+
+        private final Path directory;
+
+        private final List<Segment> segments = new ArrayList<>();
+
+        private boolean opened;
+
+        private TagArchive(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * 打开分段文件，丢弃被相邻分段完全覆盖的文件（合并或迁移分段时进程中途退出，或映射仍被使用而未能删除时留下的）。
+         */
+        private void open() {
+            if (opened) {
+                return;
+            }
+            if (Files.isDirectory(directory)) {
+                List<Segment> found = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                    for (Path path : stream) {
+                        Segment segment = Segment.open(path);
+                        if (segment != null) {
+                            found.add(segment);
+                        }
+                    }
+                } catch (IOException e) {
+                    for (Segment segment : found) {
+                        segment.release();
+                    }
+                    throw new ApiException("读取历史数据归档失败: " + directory, e);
+                }
+                // 开始时间相同时范围大的在前，被覆盖的文件在后面被丢弃
+                found.sort((a, b) -> a.coveredStart != b.coveredStart
+                        ? Long.compare(a.coveredStart, b.coveredStart) : Long.compare(b.coveredEnd, a.coveredEnd));
+                for (Segment segment : found) {
+                    Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                    if (last != null && segment.coveredEnd <= last.coveredEnd) {
+                        segment.delete();
+                    } else {
+                        segments.add(segment);
+                    }
+                }
+            }
+            opened = true;
+            synchronized (OPENED) {
+                OPENED.put(this, Boolean.TRUE);
+            }
+        }
+
+        /**
+         * 关闭分段文件并释放内存映射。
+         */
+        private synchronized void close() {
+            for (Segment segment : segments) {
+                segment.release();
+            }
+            segments.clear();
+            opened = false;
+        }
+
+        private synchronized TagType getTagType() {
+            open();
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                TagType tagType = segments.get(i).getTagType();
+                if (tagType != null) {
+                    return tagType;
+                }
+            }
+            return null;
+        }
+
+        private synchronized long getCoveredEnd() {
+            open();
+            return segments.isEmpty() ? Long.MIN_VALUE : segments.get(segments.size() - 1).coveredEnd;
+        }
+
+        /**
+         * 将 [start, end) 切分为已归档的部分和缺口。
+         */
+        private synchronized List<Piece> plan(long start, long end) {
+            open();
+            List<Piece> pieces = new ArrayList<>();
+            long cursor = start;
+            for (Segment segment : segments) {
+                if (segment.coveredEnd <= cursor || segment.coveredStart >= end) {
+                    continue;
+                }
+                if (segment.coveredStart > cursor) {
+                    pieces.add(new Piece(cursor, segment.coveredStart, false));
+                    cursor = segment.coveredStart;
+                }
+                long to = Math.min(segment.coveredEnd, end);
+                pieces.add(new Piece(cursor, to, true));
+                cursor = to;
+            }
+            if (cursor < end) {
+                pieces.add(new Piece(cursor, end, false));
+            }
+            return pieces;
+        }
+
+        /**
+         * 归档缺口 [from, to) 的数据点，数据点须按时间升序排列且都落在缺口内。
+         * <p>缺口紧接在已有分段之后时追加到该分段，写入后与下一个分段首尾相接时合并。</p>
+         *
+         * @return 已归档返回 true；标签不是数值类型、缺口已被其他查询归档，或没有数据点且不与已有分段相邻时返回 false
+         */
+        private synchronized boolean append(long from, long to, List<OneTagHDBValue> values, TagType tagType) {
+            if (tagType == null || !tagType.isNumeric() || from >= to) {
+                return false;
+            }
+            open();
+            Segment previous = null;
+            Segment next = null;
+            for (Segment segment : segments) {
+                if (segment.coveredStart < to && segment.coveredEnd > from) {
+                    return false;
+                }
+                if (segment.coveredEnd == from) {
+                    previous = segment;
+                }
+                if (segment.coveredStart == to) {
+                    next = segment;
+                }
+            }
+            int maxRecords = Math.max(1, config.getHdbArchiveSegmentRecords());
+            try {
+                if (values.isEmpty() && previous == null) {
+                    if (next == null) {
+                        return false;
+                    }
+                    // 缺口内没有数据点，直接把下一个分段的归档范围向前扩展
+                    next.moveStart(from);
+                    return true;
+                }
+                int written = 0;
+                long coveredFrom = from;
+                Segment target = previous;
+                while (true) {
+                    int pending = values.size() - written;
+                    if (target == null || (pending > 0 && target.reserve(pending, maxRecords) == 0)) {
+                        target = Segment.create(directory, coveredFrom, Math.min(maxRecords, Math.max(pending, MIN_SEGMENT_RECORDS)));
+                        segments.add(target);
+                        segments.sort((a, b) -> Long.compare(a.coveredStart, b.coveredStart));
+                    }
+                    int n = Math.min(target.remaining(), pending);
+                    target.append(values, written, n, tagType);
+                    written += n;
+                    // 分段写满时，归档范围截止到下一个数据点，其余部分写入新的分段
+                    long coveredTo = written < values.size() ? values.get(written).getTagValueTime().getTime() : to;
+                    target.commit(n, coveredTo, tagType);
+                    ApiMetrics.add("hdb.archive.points", n);
+                    if (written >= values.size()) {
+                        break;
+                    }
+                    coveredFrom = coveredTo;
+                }
+                coalesce(maxRecords);
+                return true;
+            } catch (IOException e) {
+                log.warn("写入历史数据归档失败: {}", e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * 合并归档范围首尾相接、记录数之和不超过上限的相邻分段。
+         * <p>先把后一个分段的记录复制到前一个分段并提交，再删除后一个分段的文件；
+         * 后一个分段的映射已交给调用方时文件留到下次打开时丢弃。</p>
+         */
+        private void coalesce(int maxRecords) throws IOException {
+            for (int i = 0; i + 1 < segments.size(); ) {
+                Segment first = segments.get(i);
+                Segment second = segments.get(i + 1);
+                if (first.coveredEnd == second.coveredStart && first.reserve(second.count, maxRecords) >= second.count) {
+                    first.absorb(second);
+                    second.delete();
+                    segments.remove(i + 1);
+                    ApiMetrics.increment("hdb.archive.merges");
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        /**
+         * 没有采样时刻的缺口 [from, to) 直接并入相邻的分段，标签类型未知时忽略。
+         */
+        private synchronized void extend(long from, long to) {
+            TagType tagType = getTagType();
+            if (tagType != null) {
+                append(from, to, new ArrayList<>(), tagType);
+            }
+        }
+
+        private synchronized List<OneTagHDBValue> materialize(long from, long to, Set<HDBAggregate> aggregates) {
+            List<OneTagHDBValue> values = new ArrayList<>();
+            for (Slice slice : slices(from, to, false)) {
+                for (int i = 0; i < slice.size(); i++) {
+                    OneTagHDBValue value = new OneTagHDBValue().setTagValueTime(new Date(slice.getTime(i)));
+                    for (HDBAggregate aggregate : aggregates) {
+                        aggregate.setValue(value, TagValueDecoder.toValueString(slice.getValue(aggregate, i)));
+                        aggregate.setQuality(value, slice.getQuality(aggregate, i));
+                    }
+                    values.add(value);
+                }
+            }
+            return values;
+        }
+
+        /**
+         * 时间落在 [from, to) 内的记录的只读视图。
+         *
+         * @param expose 视图是否交给调用方，交出后对应的映射不再主动释放
+         */
+        private synchronized List<Slice> slices(long from, long to, boolean expose) {
+            open();
+            List<Slice> slices = new ArrayList<>();
+            for (Segment segment : segments) {
+                if (segment.coveredEnd <= from || segment.coveredStart >= to) {
+                    continue;
+                }
+                Slice slice = segment.slice(from, to, expose);
+                if (slice.size() > 0) {
+                    slices.add(slice);
+                }
+            }
+            return slices;
+        }
+    }
+
+    /**
+     * 一个只追加的分段文件，整个文件映射到内存，记录数不够时扩大文件并重新映射。
+     * <p>文件仍被映射时不修改其大小，也不删除（Windows 上两者都会失败），映射已交给调用方时改为迁移到新文件。</p>
+     */
+    private static final class Segment {
+
+        private Path path;
+
+        private MappedByteBuffer buffer;
+
+        private int capacity;
+
+        private long coveredStart;
+
+        private long coveredEnd;
+
+        private int count;
+
+        /**
+         * 当前映射是否已通过视图交给调用方，交出后不再主动释放，避免调用方读取已释放的内存。
+         */
+        private boolean exposed;
+
+        private Segment(Path path, MappedByteBuffer buffer, int capacity, long coveredStart, long coveredEnd, int count) {
+            this.path = path;
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.coveredStart = coveredStart;
+            this.coveredEnd = coveredEnd;
+            this.count = count;
+        }
+
+        /**
+         * 创建空的分段文件，文件按容量预留空间。
+         */
+        private static Segment create(Path directory, long coveredStart, int capacity) throws IOException {
+            Files.createDirectories(directory);
+            Path path = newPath(directory, coveredStart);
+            MappedByteBuffer buffer = map(path, HEADER_BYTES + (long) capacity * RECORD_BYTES);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(OFFSET_COVERED_START, coveredStart);
+            buffer.putLong(OFFSET_COVERED_END, coveredStart);
+            buffer.putInt(OFFSET_COUNT, 0);
+            buffer.putInt(OFFSET_TAG_TYPE, UNKNOWN_TAG_TYPE);
+            buffer.force();
+            return new Segment(path, buffer, capacity, coveredStart, coveredStart, 0);
+        }
+
+        /**
+         * 打开已有的分段文件。
+         *
+         * @return 文件头不合法时返回 null
+         */
+        private static Segment open(Path path) throws IOException {
+            long size = Files.size(path);
+            if (size < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = map(path, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                log.warn("忽略无法识别的历史数据归档文件: {}", path);
+                unmap(buffer);
+                return null;
+            }
+            int capacity = (int) ((size - HEADER_BYTES) / RECORD_BYTES);
+            int count = Math.min(buffer.getInt(OFFSET_COUNT), capacity);
+            return new Segment(path, buffer, capacity, buffer.getLong(OFFSET_COVERED_START), buffer.getLong(OFFSET_COVERED_END), count);
+        }
+
+        /**
+         * 目录中尚不存在的分段文件名，分段的开始时间可能被前移或被合并，文件名只用于区分文件。
+         */
+        private static Path newPath(Path directory, long coveredStart) {
+            Path path = directory.resolve(coveredStart + SEGMENT_SUFFIX);
+            for (int n = 1; Files.exists(path); n++) {
+                path = directory.resolve(coveredStart + "-" + n + SEGMENT_SUFFIX);
+            }
+            return path;
+        }
+
+        private static MappedByteBuffer map(Path path, long size) throws IOException {
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                if (file.length() < size) {
+                    file.setLength(size);
+                }
+                // 映射在通道关闭后仍然有效
+                return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        private int remaining() {
+            return capacity - count;
+        }
+
+        /**
+         * 为 pending 条记录预留空间，不足时按倍数扩大文件，最多 maxRecords 条。
+         * <p>先释放原映射再扩大文件；映射已交给调用方或无法释放时，把已提交的内容复制到新文件，
+         * 原文件留给调用方继续读取，下次打开时作为被覆盖的文件丢弃。</p>
+         *
+         * @return 扩大后的剩余记录数
+         */
+        private int reserve(int pending, int maxRecords) throws IOException {
+            if (remaining() >= pending || capacity >= maxRecords) {
+                return remaining();
+            }
+            int newCapacity = (int) Math.min(maxRecords, Math.max((long) count + pending, capacity * 2L));
+            long size = HEADER_BYTES + (long) newCapacity * RECORD_BYTES;
+            if (!exposed && unmap(buffer)) {
+                buffer = map(path, size);
+            } else {
+                Path target = newPath(path.getParent(), coveredStart);
+                MappedByteBuffer relocated = map(target, size);
+                ByteBuffer source = buffer.duplicate();
+                source.position(0);
+                source.limit(HEADER_BYTES + count * RECORD_BYTES);
+                relocated.put(source);
+                relocated.force();
+                buffer = relocated;
+                path = target;
+                exposed = false;
+                ApiMetrics.increment("hdb.archive.relocated");
+            }
+            capacity = newCapacity;
+            return remaining();
+        }
+
+        private TagType getTagType() {
+            int code = buffer.getInt(OFFSET_TAG_TYPE);
+            if (code == UNKNOWN_TAG_TYPE) {
+                return null;
+            }
+            try {
+                return TagType.fromCode(code);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 在已提交的记录之后写入记录，调用 {@link #commit(int, long, TagType)} 之前不可见。
+         */
+        private void append(List<OneTagHDBValue> values, int offset, int n, TagType tagType) {
+            for (int i = 0; i < n; i++) {
+                OneTagHDBValue value = values.get(offset + i);
+                int position = HEADER_BYTES + (count + i) * RECORD_BYTES;
+                buffer.putLong(position, value.getTagValueTime().getTime());
+                for (HDBAggregate aggregate : HDBAggregate.values()) {
+                    buffer.putDouble(position + valueOffset(aggregate), TagValueDecoder.decodeDouble(tagType, aggregate.getValue(value)));
+                    if (aggregate.hasQuality()) {
+                        Quality quality = aggregate.getQuality(value);
+                        buffer.put(position + qualityOffset(aggregate), quality == null ? NO_QUALITY : (byte) quality.getValue());
+                    }
+                }
+            }
+        }
+
+        /**
+         * 把后一个分段的全部记录复制到本分段之后，调用前需已预留空间。
+         */
+        private void absorb(Segment next) {
+            ByteBuffer source = next.buffer.duplicate();
+            source.position(HEADER_BYTES);
+            source.limit(HEADER_BYTES + next.count * RECORD_BYTES);
+            ByteBuffer target = buffer.duplicate();
+            target.position(HEADER_BYTES + count * RECORD_BYTES);
+            target.put(source);
+            commit(next.count, next.coveredEnd, next.getTagType());
+        }
+
+        /**
+         * 先将新写入的 n 条记录刷盘，再更新文件头中的归档范围和记录数。
+         *
+         * @param tagType 标签类型，为 null 时不修改
+         */
+        private void commit(int n, long coveredTo, TagType tagType) {
+            buffer.force();
+            count += n;
+            coveredEnd = coveredTo;
+            buffer.putLong(OFFSET_COVERED_END, coveredEnd);
+            buffer.putInt(OFFSET_COUNT, count);
+            if (tagType != null) {
+                buffer.putInt(OFFSET_TAG_TYPE, tagType.getCode());
+            }
+            buffer.force();
+        }
+
+        /**
+         * 把归档范围的开始时间前移到 from，只用于前面没有数据点的范围。
+         */
+        private void moveStart(long from) {
+            coveredStart = from;
+            buffer.putLong(OFFSET_COVERED_START, coveredStart);
+            buffer.force();
+        }
+
+        /**
+         * 时间落在 [from, to) 内的记录的只读视图。
+         */
+        private Slice slice(long from, long to, boolean expose) {
+            int first = lowerBound(from);
+            int last = lowerBound(to);
+            ByteBuffer view = buffer.duplicate();
+            view.position(HEADER_BYTES + first * RECORD_BYTES);
+            view.limit(HEADER_BYTES + last * RECORD_BYTES);
+            exposed |= expose;
+            return new Slice(view.slice().asReadOnlyBuffer(), last - first);
+        }
+
+        /**
+         * 第一个时间不早于 time 的记录下标。
+         */
+        private int lowerBound(long time) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (buffer.getLong(HEADER_BYTES + mid * RECORD_BYTES) < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * 释放内存映射，已交给调用方的映射留给垃圾回收释放。
+         *
+         * @return 映射已释放返回 true，映射仍然有效时返回 false
+         */
+        private boolean release() {
+            boolean released = buffer == null || !exposed && unmap(buffer);
+            buffer = null;
+            return released;
+        }
+
+        /**
+         * 释放内存映射并删除文件，映射仍然有效时不删除，文件的归档范围已被其他分段覆盖，下次打开时丢弃。
+         */
+        private void delete() {
+            if (!release()) {
+                log.debug("历史数据归档文件仍被映射，下次打开时删除: {}", path);
+                return;
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("删除历史数据归档文件失败: {} {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 归档数据的只读视图，直接读取映射的文件内容。
+     */
+    public static final class Slice {
+
+        private final ByteBuffer buffer;
+
+        private final int size;
+
+        private Slice(ByteBuffer buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        /**
+         * 数据点个数。
+         *
+         * @return 数据点个数
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 第 i 个数据点的时间。
+         *
+         * @param i 数据点下标
+         * @return 毫秒时间戳
+         */
+        public long getTime(int i) {
+            return buffer.getLong(i * RECORD_BYTES);
+        }
+
+        /**
+         * 第 i 个数据点的某个聚合值。
+         *
+         * @param aggregate 聚合值类型
+         * @param i         数据点下标
+         * @return 聚合值，无法解码时为 NaN
+         */
+        public double getValue(HDBAggregate aggregate, int i) {
+            return buffer.getDouble(i * RECORD_BYTES + valueOffset(aggregate));
+        }
+
+        /**
+         * 第 i 个数据点的某个聚合值的质量。
+         *
+         * @param aggregate 聚合值类型
+         * @param i         数据点下标
+         * @return 质量，{@link HDBAggregate#AVG} 或质量缺失时返回 null
+         */
+        public Quality getQuality(HDBAggregate aggregate, int i) {
+            if (!aggregate.hasQuality()) {
+                return null;
+            }
+            byte quality = buffer.get(i * RECORD_BYTES + qualityOffset(aggregate));
+            return quality == NO_QUALITY ? null : Quality.fromValue(quality);
+        }
+    }
+}
@@ -0,0 +1,556 @@
+package io.github.forget_the_bright.hls.service;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.alibaba.fastjson.JSON;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.core.ConcurrentUtil;
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DatasResult;
+import io.github.forget_the_bright.hls.entity.response.base.BackfillProgress;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+import io.github.forget_the_bright.hls.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 可断点续跑的历史数据批量回填。
+ * <p>
+ * 把（标签 × 时间）的查询空间切分为工作单元：标签按 {@link TagBatchSplitter#currentLimit()} 分批，
+ * 时间范围按 {@link HistorianQueryPlanner#plan(HistorianRequest)} 切分，每个单元都不超过服务端的标签数、时间范围和点数限制。
+ * 工作单元由每次运行专用的有界线程池执行，不占用 {@link ApiClient#getAsyncExecutor()}；查询结果交给 {@link BackfillSink}，写入成功后单元标识追加到本地日志文件并刷盘，
+ * 进程中途退出后以相同的名称和请求重新运行时跳过日志中已完成的单元。
+ * <p>
+ * 并发查询数按加性增、乘性减调整：查询失败时减半，连续成功的次数达到当前并发数时加一，上限为 {@link #setParallelism(int)}。
+ * 失败的单元按指数退避重试，重试耗尽后记为失败，其余单元继续执行，再次运行时重新执行失败的单元。
+ * <p>
+ * 回填查询绕过单飞、分段缓存和本地归档，直接请求 HLS。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public class HistorianBackfill {
+
+    /**
+     * 日志文件格式标识。
+     */
+    private static final String JOURNAL_MAGIC = "HLSBF1";
+
+    /**
+     * 合法的回填名称，直接用作日志文件名。
+     */
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+    /**
+     * 首次重试前的等待时间（毫秒），之后每次翻倍。
+     */
+    private static final long RETRY_BACKOFF_MILLIS = 500L;
+
+    /**
+     * 重试等待时间的上限（毫秒）。
+     */
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30000L;
+
+    /**
+     * 回填名称。
+     */
+    private final String name;
+
+    /**
+     * 完整的回填请求。
+     */
+    private final HistorianRequest request;
+
+    /**
+     * 日志文件。
+     */
+    private final Path journal;
+
+    /**
+     * 数据输出。
+     */
+    private final BackfillSink sink;
+
+    /**
+     * 最大并发查询数。
+     */
+    private int parallelism;
+
+    /**
+     * 单元失败后的最大重试次数。
+     */
+    private int maxRetries = 3;
+
+    /**
+     * 进度日志的输出间隔（毫秒）。
+     */
+    private long progressLogMillis = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * 当前允许的并发查询数。
+     */
+    private int limit;
+
+    /**
+     * 正在执行的查询数。
+     */
+    private int inFlight;
+
+    /**
+     * 当前并发数下连续成功的查询数。
+     */
+    private int successes;
+
+    private final Object limitLock = new Object();
+
+    private volatile boolean stopped;
+
+    private volatile boolean running;
+
+    private volatile int totalUnits;
+
+    private volatile int resumedUnits;
+
+    private final AtomicInteger completedUnits = new AtomicInteger();
+
+    private final AtomicInteger failedUnits = new AtomicInteger();
+
+    private final AtomicLong points = new AtomicLong();
+
+    private volatile long startNanos;
+
+    private final AtomicLong lastLogNanos = new AtomicLong();
+
+    private FileChannel journalChannel;
+
+    /**
+     * 构造函数。
+     *
+     * @param name       回填名称，作为日志文件名，只能包含字母、数字、点、下划线和连字符
+     * @param request    完整的回填请求，必须设置开始时间、结束时间和标签列表
+     * @param journalDir 日志文件所在目录
+     * @param sink       数据输出
+     */
+    public HistorianBackfill(String name, HistorianRequest request, Path journalDir, BackfillSink sink) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new ApiException("回填名称只能包含字母、数字、点、下划线和连字符: " + name);
+        }
+        if (request.getStartTime() == null || request.getEndTime() == null
+                || request.getTagNameList() == null || request.getTagNameList().isEmpty()) {
+            throw new ApiException("回填请求必须设置开始时间、结束时间和标签列表");
+        }
+        this.name = name;
+        this.request = request;
+        this.journal = journalDir.resolve(name + ".journal");
+        this.sink = sink;
+        this.parallelism = ApiClient.getConfig().getFanOutParallelism();
+    }
+
+    /**
+     * 设置最大并发查询数，默认为 {@code fanOutParallelism}。
+     *
+     * @param parallelism 最大并发查询数
+     * @return 当前对象
+     */
+    public HistorianBackfill setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * 设置单元失败后的最大重试次数，默认为 3。
+     *
+     * @param maxRetries 最大重试次数
+     * @return 当前对象
+     */
+    public HistorianBackfill setMaxRetries(int maxRetries) {
+        this.maxRetries = Math.max(0, maxRetries);
+        return this;
+    }
+
+    /**
+     * 设置进度日志的输出间隔，默认为 10 秒，小于等于 0 时不输出。
+     *
+     * @param progressLogSeconds 输出间隔（秒）
+     * @return 当前对象
+     */
+    public HistorianBackfill setProgressLogSeconds(long progressLogSeconds) {
+        this.progressLogMillis = TimeUnit.SECONDS.toMillis(progressLogSeconds);
+        return this;
+    }
+
+    /**
+     * 执行回填，阻塞到全部单元完成、失败或 {@link #stop()}。
+     *
+     * @return 本次运行结束时的进度
+     * @throws ApiException 日志文件无法读写，或日志与当前请求不一致时抛出
+     */
+    public BackfillProgress run() {
+        synchronized (this) {
+            if (running) {
+                throw new ApiException("回填 " + name + " 正在运行");
+            }
+            running = true;
+        }
+        try {
+            stopped = false;
+            completedUnits.set(0);
+            failedUnits.set(0);
+            points.set(0);
+            Set<String> done = new HashSet<>();
+            long[] layout = openJournal(done);
+            List<Unit> units = plan((int) layout[0], layout[1]);
+            Queue<Unit> queue = new ConcurrentLinkedQueue<>();
+            int resumed = 0;
+            for (Unit unit : units) {
+                if (done.contains(unit.key)) {
+                    resumed++;
+                } else {
+                    queue.add(unit);
+                }
+            }
+            totalUnits = units.size();
+            resumedUnits = resumed;
+            synchronized (limitLock) {
+                limit = parallelism;
+                inFlight = 0;
+                successes = 0;
+            }
+            startNanos = System.nanoTime();
+            lastLogNanos.set(startNanos);
+            log.info("回填 {} 开始：共 {} 个单元，已完成 {} 个，最大并发 {}", name, units.size(), resumed, parallelism);
+            List<Supplier<Void>> workers = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(() -> {
+                    Unit unit;
+                    while (!stopped && (unit = queue.poll()) != null) {
+                        runUnit(unit);
+                    }
+                    return null;
+                });
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism - 1),
+                    ThreadFactoryBuilder.create().setNamePrefix("hls-backfill-" + name + "-").setDaemon(true).build());
+            try {
+                ConcurrentUtil.invokeAll(workers, parallelism, executor);
+            } finally {
+                executor.shutdown();
+            }
+            BackfillProgress progress = getProgress();
+            log.info("回填 {} 结束：完成 {} 个，失败 {} 个，写入 {} 个数据点，用时 {} 秒", name, progress.getCompletedUnits(),
+                    progress.getFailedUnits(), progress.getPoints(), TimeUnit.MILLISECONDS.toSeconds(progress.getElapsedMillis()));
+            return progress;
+        } finally {
+            closeJournal();
+            running = false;
+        }
+    }
+
+    /**
+     * 停止回填，正在执行的单元完成后 {@link #run()} 返回，未执行的单元在下次运行时继续。
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * 获取当前进度，可在其他线程中调用。
+     *
+     * @return 当前进度
+     */
+    public BackfillProgress getProgress() {
+        int completed = completedUnits.get();
+        long elapsedMillis = startNanos == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        int remaining = totalUnits - resumedUnits - completed;
+        BackfillProgress progress = new BackfillProgress()
+                .setTotalUnits(totalUnits)
+                .setResumedUnits(resumedUnits)
+                .setCompletedUnits(completed)
+                .setFailedUnits(failedUnits.get())
+                .setPoints(points.get())
+                .setElapsedMillis(elapsedMillis);
+        synchronized (limitLock) {
+            progress.setConcurrency(limit);
+        }
+        if (elapsedMillis > 0) {
+            progress.setPointsPerSecond(points.get() * 1000D / elapsedMillis);
+            progress.setUnitsPerSecond(completed * 1000D / elapsedMillis);
+        }
+        if (remaining <= 0) {
+            progress.setEtaMillis(0);
+        } else if (completed > 0) {
+            progress.setEtaMillis(elapsedMillis * remaining / completed);
+        }
+        return progress;
+    }
+
+    /**
+     * 切分工作单元，顺序固定，同一请求、批次大小和子区间时长每次得到相同的单元标识。
+     */
+    private List<Unit> plan(int batchSize, long chunkMillis) {
+        List<TagNameRequest> tagNameList = request.getTagNameList();
+        List<Date[]> ranges = HistorianQueryPlanner.plan(request, chunkMillis);
+        List<Unit> units = new ArrayList<>();
+        for (int offset = 0; offset < tagNameList.size(); offset += batchSize) {
+            List<TagNameRequest> batch = new ArrayList<>(tagNameList.subList(offset, Math.min(offset + batchSize, tagNameList.size())));
+            HistorianRequest batchRequest = HLSApiInvoker.withTagNameList(request, batch);
+            for (int i = 0; i < ranges.size(); i++) {
+                Date[] range = ranges.get(i);
+                units.add(new Unit(offset, HistorianQueryPlanner.withTimeRange(batchRequest, range[0], range[1]),
+                        i == ranges.size() - 1));
+            }
+        }
+        return units;
+    }
+
+    private void runUnit(Unit unit) {
+        String error = null;
+        for (int attempt = 0; ; attempt++) {
+            acquire();
+            DatasResult result = null;
+            try {
+                result = HLSApiInvoker.getHDBTagValueByTags(unit.request);
+            } catch (RuntimeException e) {
+                error = e.toString();
+            } finally {
+                release(result != null && result.getCode() == StateCode.SUCCESS.getCode());
+            }
+            if (result != null && result.getCode() != StateCode.SUCCESS.getCode()) {
+                error = result.getCode() + " " + result.getMsg();
+            } else if (result != null) {
+                try {
+                    List<HDBTagValue> values = values(unit, result);
+                    sink.write(unit.request, values);
+                    appendJournal(unit.key);
+                    completedUnits.incrementAndGet();
+                    ApiMetrics.increment("backfill.units");
+                    long count = 0;
+                    for (HDBTagValue value : values) {
+                        count += value.getOneTagHDBValueList().size();
+                    }
+                    points.addAndGet(count);
+                    ApiMetrics.add("backfill.points", count);
+                    logProgress();
+                    return;
+                } catch (RuntimeException e) {
+                    error = e.toString();
+                }
+            }
+            if (attempt >= maxRetries || stopped) {
+                failedUnits.incrementAndGet();
+                ApiMetrics.increment("backfill.units.failed");
+                log.warn("回填 {} 单元 {} 失败，已重试 {} 次: {}", name, unit.key, attempt, error);
+                return;
+            }
+            ApiMetrics.increment("backfill.units.retried");
+            log.debug("回填 {} 单元 {} 第 {} 次失败，稍后重试: {}", name, unit.key, attempt + 1, error);
+            try {
+                Thread.sleep(Math.min(MAX_RETRY_BACKOFF_MILLIS, RETRY_BACKOFF_MILLIS << Math.min(attempt, 16)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            }
+        }
+    }
+
+    /**
+     * 取出单元的数据点，还原标签在原始列表中的位置；不是最后一个时间范围的单元不包含结束时间上的数据点，
+     * 由下一个单元返回。
+     */
+    private List<HDBTagValue> values(Unit unit, DatasResult result) {
+        List<HDBTagValue> values = new ArrayList<>();
+        if (result.getData() == null || result.getData().getHdbTagValueList() == null) {
+            return values;
+        }
+        List<TagNameRequest> tagNameList = unit.request.getTagNameList();
+        long end = unit.request.getEndTime().getTime();
+        for (HDBTagValue hdbTagValue : result.getData().getHdbTagValueList()) {
+            int index = ObjectUtil.defaultIfNull(hdbTagValue.getIndex(), 0);
+            List<OneTagHDBValue> points = new ArrayList<>();
+            if (hdbTagValue.getOneTagHDBValueList() != null) {
+                for (OneTagHDBValue point : hdbTagValue.getOneTagHDBValueList()) {
+                    if (unit.last || point.getTagValueTime() == null || point.getTagValueTime().getTime() < end) {
+                        points.add(point);
+                    }
+                }
+            }
+            values.add(new HDBTagValue().setIndex(unit.offset + index).setTagName(tagNameList.get(index).getTagName())
+                    .setTagType(hdbTagValue.getTagType()).setOneTagHDBValueList(points));
+        }
+        return values;
+    }
+
+    private void acquire() {
+        synchronized (limitLock) {
+            while (inFlight >= limit) {
+                try {
+                    limitLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ApiException("等待回填并发许可时被中断", e);
+                }
+            }
+            inFlight++;
+        }
+    }
+
+    private void release(boolean success) {
+        synchronized (limitLock) {
+            inFlight--;
+            if (success) {
+                if (++successes >= limit && limit < parallelism) {
+                    limit++;
+                    successes = 0;
+                }
+            } else if (limit > 1) {
+                limit = Math.max(1, limit / 2);
+                successes = 0;
+                log.debug("回填 {} 查询失败，并发数降为 {}", name, limit);
+            }
+            limitLock.notifyAll();
+        }
+    }
+
+    private void logProgress() {
+        if (progressLogMillis <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastLogNanos.get();
+        if (now - last < TimeUnit.MILLISECONDS.toNanos(progressLogMillis) || !lastLogNanos.compareAndSet(last, now)) {
+            return;
+        }
+        BackfillProgress progress = getProgress();
+        log.info("回填 {} 进度：{}/{} 个单元，失败 {} 个，{} 点/秒，并发 {}，预计剩余 {} 秒", name,
+                progress.getResumedUnits() + progress.getCompletedUnits(), progress.getTotalUnits(), progress.getFailedUnits(),
+                Math.round(progress.getPointsPerSecond()), progress.getConcurrency(),
+                progress.getEtaMillis() < 0 ? "-" : TimeUnit.MILLISECONDS.toSeconds(progress.getEtaMillis()));
+    }
+
+    /**
+     * 打开日志文件，读出已完成的单元标识。
+     * <p>
+     * 日志第一行记录请求的摘要、切分时的批次大小和子区间时长，恢复运行时沿用这两个值，
+     * 即使期间调整了标签数、时间范围或点数限制，单元标识也不变；
+     * 请求与日志不一致时拒绝运行，避免误把其他请求的进度当作已完成。
+     * 旧版本日志没有记录子区间时长，恢复时按当前配置切分。
+     *
+     * @return 切分使用的批次大小和子区间时长（毫秒）
+     */
+    private long[] openJournal(Set<String> done) {
+        String fingerprint = DigestUtil.md5Hex(JSON.toJSONString(request));
+        int batchSize = TagBatchSplitter.currentLimit();
+        long chunkMillis = HistorianQueryPlanner.chunkMillis(request.getInterval());
+        try {
+            Files.createDirectories(journal.getParent());
+            if (Files.exists(journal)) {
+                List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+                if (!lines.isEmpty()) {
+                    String[] header = lines.get(0).split(" ");
+                    if (header.length < 3 || header.length > 4 || !JOURNAL_MAGIC.equals(header[0]) || !fingerprint.equals(header[1])) {
+                        throw new ApiException("回填日志与当前请求不一致，请更换回填名称或删除日志: " + journal);
+                    }
+                    batchSize = Integer.parseInt(header[2]);
+                    if (header.length == 4) {
+                        chunkMillis = Long.parseLong(header[3]);
+                    }
+                    done.addAll(lines.subList(1, lines.size()));
+                }
+            }
+            journalChannel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (journalChannel.size() == 0) {
+                write(JOURNAL_MAGIC + " " + fingerprint + " " + batchSize + " " + chunkMillis);
+            }
+        } catch (IOException e) {
+            closeJournal();
+            throw new ApiException("打开回填日志失败: " + journal, e);
+        }
+        return new long[]{batchSize, chunkMillis};
+    }
+
+    private void appendJournal(String key) {
+        try {
+            write(key);
+        } catch (IOException e) {
+            throw new ApiException("写入回填日志失败: " + journal, e);
+        }
+    }
+
+    private synchronized void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            journalChannel.write(buffer);
+        }
+        journalChannel.force(false);
+    }
+
+    private synchronized void closeJournal() {
+        if (journalChannel == null) {
+            return;
+        }
+        try {
+            journalChannel.close();
+        } catch (IOException e) {
+            log.warn("关闭回填日志失败: {}", journal, e);
+        }
+        journalChannel = null;
+    }
+
+    /**
+     * 工作单元：一批标签在一个时间范围内的查询。
+     */
+    private static final class Unit {
+
+        /**
+         * 该批第一个标签在原始标签列表中的位置。
+         */
+        private final int offset;
+
+        private final HistorianRequest request;
+
+        /**
+         * 是否为最后一个时间范围，最后一个时间范围包含结束时间上的数据点。
+         */
+        private final boolean last;
+
+        /**
+         * 单元标识，记入日志。
+         */
+        private final String key;
+
+        Unit(int offset, HistorianRequest request, boolean last) {
+            this.offset = offset;
+            this.request = request;
+            this.last = last;
+            this.key = offset + "+" + request.getTagNameList().size() + "@"
+                    + request.getStartTime().getTime() + "-" + request.getEndTime().getTime();
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package io.github.forget_the_bright.hls.service;
+
+import io.github.forget_the_bright.hls.constant.common.HDBAggregate;
+import io.github.forget_the_bright.hls.constant.common.Quality;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.constant.common.TagType;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.core.GorillaBlock;
+import io.github.forget_the_bright.hls.core.TagValueDecoder;
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.response.DatasResult;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+import io.github.forget_the_bright.hls.entity.response.base.SeriesStats;
+import io.github.forget_the_bright.hls.entity.response.base.TagSeries;
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压缩存储历史数据的内存时间序列库。
+ * <p>
+ * 每个标签的每个聚合值是一条时间序列，按时间切分为 {@link GorillaBlock} 数据块压缩保存，
+ * 等间隔、缓慢变化的数据每个数据点只占几个比特，远小于 {@link OneTagHDBValue} 对象。
+ * 适合把已查询过的历史数据保留在内存中供交互式下钻反复查询：
+ * <ul>
+ *     <li>{@link #put(DatasResult)} / {@link #load(HistorianRequest)}：写入 {@link HLSApiInvoker#getHDBTagValue(HistorianRequest)} 的结果；</li>
+ *     <li>{@link #range(String, HDBAggregate, Date, Date)}：按时间范围读取原始数据点；</li>
+ *     <li>{@link #aggregate(String, HDBAggregate, Date, Date)} / {@link #aggregate(String, HDBAggregate, Date, Date, long)}：
+ *     按时间范围或固定时间桶聚合，完全落在范围内的数据块直接使用块内的统计值，无需解码。</li>
+ * </ul>
+ * <p>
+ * 写入时，时间已被某个数据块覆盖的数据点视为重复数据跳过，因此重叠区间的重复写入不会产生重复数据点；
+ * 总占用超过上限时淘汰最久未访问的时间序列。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public class HistorianMemoryStore {
+
+    /**
+     * 保存的聚合值类型。
+     */
+    private final Set<HDBAggregate> aggregates;
+
+    /**
+     * 占用内存的上限（字节），小于等于 0 表示不限制。
+     */
+    private final long maxBytes;
+
+    /**
+     * 按标签名称和聚合值类型索引的时间序列。
+     */
+    private final Map<String, Series> seriesMap = new ConcurrentHashMap<>();
+
+    /**
+     * 当前占用的内存（字节）。
+     */
+    private final AtomicLong memoryBytes = new AtomicLong();
+
+    /**
+     * 构造函数。
+     *
+     * @param aggregates 保存的聚合值类型，写入的历史数据中其他聚合值被忽略
+     * @param maxBytes   占用内存的上限（字节），小于等于 0 表示不限制
+     * @throws ApiException 聚合值类型为空时抛出
+     */
+    public HistorianMemoryStore(Collection<HDBAggregate> aggregates, long maxBytes) {
+        if (aggregates == null || aggregates.isEmpty()) {
+            throw new ApiException("内存时间序列库的聚合值类型不能为空");
+        }
+        this.aggregates = EnumSet.copyOf(aggregates);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 查询历史数据并写入，返回查询结果。
+     *
+     * @param historianRequest 包含历史数据请求参数的请求对象
+     * @return 包含 HDB 标签值的 {@link DatasResult} 对象
+     */
+    public DatasResult load(HistorianRequest historianRequest) {
+        DatasResult datasResult = HLSApiInvoker.getHDBTagValue(historianRequest);
+        put(datasResult);
+        return datasResult;
+    }
+
+    /**
+     * 写入历史数据查询结果，状态码非成功或没有数据时忽略。
+     *
+     * @param datasResult 历史数据查询结果
+     */
+    public void put(DatasResult datasResult) {
+        if (datasResult == null || datasResult.getCode() != StateCode.SUCCESS.getCode()
+                || datasResult.getData() == null || datasResult.getData().getHdbTagValueList() == null) {
+            return;
+        }
+        put(datasResult.getData().getHdbTagValueList());
+    }
+
+    /**
+     * 写入多个标签的历史数据。
+     *
+     * @param hdbTagValueList 标签历史数据列表
+     */
+    public void put(List<HDBTagValue> hdbTagValueList) {
+        for (HDBTagValue hdbTagValue : hdbTagValueList) {
+            put(hdbTagValue);
+        }
+    }
+
+    /**
+     * 写入单个标签的历史数据，数据点须按时间升序排列。
+     *
+     * @param hdbTagValue 标签历史数据
+     */
+    public void put(HDBTagValue hdbTagValue) {
+        List<OneTagHDBValue> points = hdbTagValue.getOneTagHDBValueList();
+        if (hdbTagValue.getTagName() == null || points == null || points.isEmpty()) {
+            return;
+        }
+        for (HDBAggregate aggregate : aggregates) {
+            String key = key(hdbTagValue.getTagName(), aggregate);
+            Series series = seriesMap.computeIfAbsent(key, k -> new Series(aggregate));
+            long added = series.insert(points, hdbTagValue.getTagType());
+            if (seriesMap.get(key) == series) {
+                memoryBytes.addAndGet(added);
+            }
+        }
+        evict();
+    }
+
+    /**
+     * 按时间范围读取原始数据点。
+     *
+     * @param tagName   标签名称
+     * @param aggregate 聚合值类型
+     * @param startTime 开始时间（包含），为 null 表示不限制
+     * @param endTime   结束时间（包含），为 null 表示不限制
+     * @return 时间序列，没有数据时各数组长度为 0；聚合值有质量字段时包含质量位图
+     */
+    public TagSeries range(String tagName, HDBAggregate aggregate, Date startTime, Date endTime) {
+        Series series = seriesMap.get(key(tagName, aggregate));
+        TagSeries tagSeries = new TagSeries().setTagName(tagName);
+        if (series == null) {
+            return tagSeries.setTimes(new long[0]).setValues(new double[0]);
+        }
+        return series.range(tagSeries, toMillis(startTime, Long.MIN_VALUE), toMillis(endTime, Long.MAX_VALUE));
+    }
+
+    /**
+     * 按时间范围聚合。
+     *
+     * @param tagName   标签名称
+     * @param aggregate 聚合值类型
+     * @param startTime 开始时间（包含），为 null 表示不限制
+     * @param endTime   结束时间（包含），为 null 表示不限制
+     * @return 聚合结果，没有数据时个数为 0
+     */
+    public SeriesStats aggregate(String tagName, HDBAggregate aggregate, Date startTime, Date endTime) {
+        long start = toMillis(startTime, Long.MIN_VALUE);
+        long end = toMillis(endTime, Long.MAX_VALUE);
+        SeriesStats stats = new SeriesStats().setStartTime(start).setEndTime(end);
+        Series series = seriesMap.get(key(tagName, aggregate));
+        if (series != null) {
+            TreeMap<Long, SeriesStats> buckets = new TreeMap<>();
+            buckets.put(0L, stats);
+            series.aggregate(start, end, Long.MAX_VALUE, buckets);
+        }
+        return stats;
+    }
+
+    /**
+     * 按固定时间桶聚合，时间桶按毫秒时间戳对齐到 {@code bucketMillis} 的整数倍。
+     *
+     * @param tagName      标签名称
+     * @param aggregate    聚合值类型
+     * @param startTime    开始时间（包含），为 null 表示不限制
+     * @param endTime      结束时间（包含），为 null 表示不限制
+     * @param bucketMillis 时间桶长度（毫秒）
+     * @return 按时间顺序排列的非空时间桶的聚合结果
+     * @throws ApiException 时间桶长度不是正数时抛出
+     */
+    public List<SeriesStats> aggregate(String tagName, HDBAggregate aggregate, Date startTime, Date endTime, long bucketMillis) {
+        if (bucketMillis <= 0) {
+            throw new ApiException("时间桶长度必须为正数");
+        }
+        Series series = seriesMap.get(key(tagName, aggregate));
+        if (series == null) {
+            return new ArrayList<>();
+        }
+        TreeMap<Long, SeriesStats> buckets = new TreeMap<>();
+        series.aggregate(toMillis(startTime, Long.MIN_VALUE), toMillis(endTime, Long.MAX_VALUE), bucketMillis, buckets);
+        List<SeriesStats> list = new ArrayList<>(buckets.size());
+        for (SeriesStats stats : buckets.values()) {
+            if (stats.getCount() > 0) {
+                list.add(stats);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 删除某个标签的全部时间序列。
+     *
+     * @param tagName 标签名称
+     */
+    public void remove(String tagName) {
+        for (HDBAggregate aggregate : aggregates) {
+            Series series = seriesMap.remove(key(tagName, aggregate));
+            if (series != null) {
+                memoryBytes.addAndGet(-series.getMemoryBytes());
+            }
+        }
+    }
+
+    /**
+     * 清空全部数据。
+     */
+    public void clear() {
+        for (String key : new ArrayList<>(seriesMap.keySet())) {
+            Series series = seriesMap.remove(key);
+            if (series != null) {
+                memoryBytes.addAndGet(-series.getMemoryBytes());
+            }
+        }
+    }
+
+    /**
+     * 当前占用的内存（估算）。
+     *
+     * @return 字节数
+     */
+    public long getMemoryBytes() {
+        return memoryBytes.get();
+    }
+
+    /**
+     * 当前保存的数据点个数，每个聚合值分别计数。
+     *
+     * @return 数据点个数
+     */
+    public long getPointCount() {
+        long count = 0;
+        for (Series series : seriesMap.values()) {
+            count += series.getPointCount();
+        }
+        return count;
+    }
+
+    /**
+     * 总占用超过上限时，淘汰最久未访问的时间序列。
+     */
+    private void evict() {
+        while (maxBytes > 0 && memoryBytes.get() > maxBytes && seriesMap.size() > 1) {
+            String eldestKey = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<String, Series> entry : seriesMap.entrySet()) {
+                if (entry.getValue().lastAccess < eldestAccess) {
+                    eldestAccess = entry.getValue().lastAccess;
+                    eldestKey = entry.getKey();
+                }
+            }
+            Series series = eldestKey == null ? null : seriesMap.remove(eldestKey);
+            if (series == null) {
+                return;
+            }
+            memoryBytes.addAndGet(-series.getMemoryBytes());
+            ApiMetrics.increment("hdb.store.evictions");
+        }
+    }
+
+    private static String key(String tagName, HDBAggregate aggregate) {
+        return aggregate.name() + '|' + tagName;
+    }
+
+    private static long toMillis(Date date, long defaultValue) {
+        return date == null ? defaultValue : date.getTime();
+    }
+
+    private static void accumulate(SeriesStats stats, long count, double min, double max, double sum) {
+        if (count == 0) {
+            return;
+        }
+        stats.setMin(stats.getCount() == 0 ? min : Math.min(stats.getMin(), min));
+        stats.setMax(stats.getCount() == 0 ? max : Math.max(stats.getMax(), max));
+        stats.setSum(stats.getSum() + sum);
+        stats.setCount(stats.getCount() + count);
+    }
+
+    /**
+     * 一个标签的一个聚合值的时间序列。
+     */
+    private static final class Series {
+
+        private final HDBAggregate aggregate;
+
+        /**
+         * 按第一个数据点的时间索引的数据块，各数据块的时间范围互不重叠。
+         */
+        private final TreeMap<Long, GorillaBlock> blocks = new TreeMap<>();
+
+        private long memoryBytes;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private Series(HDBAggregate aggregate) {
+            this.aggregate = aggregate;
+        }
+
+        /**
+         * 写入数据点，跳过时间已被数据块覆盖的数据点。
+         *
+         * @return 新增占用的内存（字节）
+         */
+        private synchronized long insert(List<OneTagHDBValue> points, TagType tagType) {
+            lastAccess = System.nanoTime();
+            long before = memoryBytes;
+            GorillaBlock target = null;
+            long limit = Long.MAX_VALUE;
+            for (OneTagHDBValue point : points) {
+                if (point.getTagValueTime() == null) {
+                    continue;
+                }
+                long time = point.getTagValueTime().getTime();
+                if (target == null || target.isFull() || time <= target.getLastTime() || time >= limit) {
+                    Map.Entry<Long, GorillaBlock> floor = blocks.floorEntry(time);
+                    if (floor != null && time <= floor.getValue().getLastTime()) {
+                        // 已有数据
+                        target = null;
+                        continue;
+                    }
+                    Long next = blocks.higherKey(time);
+                    limit = next == null ? Long.MAX_VALUE : next;
+                    if (floor != null && !floor.getValue().isFull()) {
+                        target = floor.getValue();
+                    } else {
+                        target = new GorillaBlock(aggregate.hasQuality());
+                        blocks.put(time, target);
+                        memoryBytes += target.getMemoryBytes();
+                    }
+                }
+                long beforeAppend = target.getMemoryBytes();
+                Quality quality = aggregate.getQuality(point);
+                target.append(time, TagValueDecoder.decodeDouble(tagType, aggregate.getValue(point)), quality == Quality.GOOD);
+                memoryBytes += target.getMemoryBytes() - beforeAppend;
+            }
+            return memoryBytes - before;
+        }
+
+        private synchronized TagSeries range(TagSeries tagSeries, long start, long end) {
+            lastAccess = System.nanoTime();
+            long[] times = new long[16];
+            double[] values = new double[16];
+            BitSet goodQuality = aggregate.hasQuality() ? new BitSet() : null;
+            int size = 0;
+            for (GorillaBlock block : overlapping(start, end)) {
+                GorillaBlock.Cursor cursor = block.cursor();
+                while (cursor.next() && cursor.getTime() <= end) {
+                    if (cursor.getTime() < start) {
+                        continue;
+                    }
+                    if (size == times.length) {
+                        times = Arrays.copyOf(times, size << 1);
+                        values = Arrays.copyOf(values, size << 1);
+                    }
+                    times[size] = cursor.getTime();
+                    values[size] = cursor.getValue();
+                    if (goodQuality != null && cursor.isGood()) {
+                        goodQuality.set(size);
+                    }
+                    size++;
+                }
+            }
+            return tagSeries.setTimes(Arrays.copyOf(times, size)).setValues(Arrays.copyOf(values, size)).setGoodQuality(goodQuality);
+        }
+
+        /**
+         * 聚合到时间桶中，{@code bucketMillis} 为 {@link Long#MAX_VALUE} 时全部聚合到键为 0 的桶。
+         */
+        private synchronized void aggregate(long start, long end, long bucketMillis, TreeMap<Long, SeriesStats> buckets) {
+            lastAccess = System.nanoTime();
+            boolean single = bucketMillis == Long.MAX_VALUE;
+            for (GorillaBlock block : overlapping(start, end)) {
+                long firstBucket = single ? 0 : Math.floorDiv(block.getFirstTime(), bucketMillis);
+                long lastBucket = single ? 0 : Math.floorDiv(block.getLastTime(), bucketMillis);
+                if (block.getFirstTime() >= start && block.getLastTime() <= end && firstBucket == lastBucket) {
+                    accumulate(bucket(buckets, firstBucket, bucketMillis, start, end), block.getValueCount(),
+                            block.getMin(), block.getMax(), block.getSum());
+                    continue;
+                }
+                GorillaBlock.Cursor cursor = block.cursor();
+                while (cursor.next() && cursor.getTime() <= end) {
+                    double value = cursor.getValue();
+                    if (cursor.getTime() < start || Double.isNaN(value)) {
+                        continue;
+                    }
+                    long bucket = single ? 0 : Math.floorDiv(cursor.getTime(), bucketMillis);
+                    accumulate(bucket(buckets, bucket, bucketMillis, start, end), 1, value, value, value);
+                }
+            }
+        }
+
+        private SeriesStats bucket(TreeMap<Long, SeriesStats> buckets, long bucket, long bucketMillis, long start, long end) {
+            return buckets.computeIfAbsent(bucket, b -> new SeriesStats()
+                    .setStartTime(Math.max(start, b * bucketMillis))
+                    .setEndTime(Math.min(end, b * bucketMillis + bucketMillis - 1)));
+        }
+
+        /**
+         * 与时间范围有交集的数据块。
+         */
+        private Collection<GorillaBlock> overlapping(long start, long end) {
+            Long from = blocks.floorKey(start);
+            return blocks.subMap(from == null ? Long.MIN_VALUE : from, true, end, true).values();
+        }
+
+        private synchronized long getMemoryBytes() {
+            return memoryBytes;
+        }
+
+        private synchronized long getPointCount() {
+            long count = 0;
+            for (GorillaBlock block : blocks.values()) {
+                count += block.getCount();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package io.github.forget_the_bright.hls.service;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.core.ConcurrentUtil;
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.response.DatasResult;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValueList;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 历史数据查询时间范围规划器。
+ * <p>
+ * 根据 {@code startTime}、{@code endTime} 和 {@code interval} 估算每个标签的点数，将超过
+ * {@link ApiConfig#getMaxQueryTimeRangeSeconds()} 或 {@link ApiConfig#getMaxPointsPerTag()} 的时间范围
+ * 切分为按查询间隔对齐的若干子区间，并行查询后按时间顺序拼接每个标签的 {@code OneTagHDBValueList}。
+ * <p>
+ * 若服务端仍返回 {@link StateCode#QUERY_TIME_RANGE_OVER_MAX_LIMIT} 或
+ * {@link StateCode#QUERY_ONE_TAG_VALUE_COUNT_OVER_MAX_LIMIT}，则将该子区间对半切分重试。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public final class HistorianQueryPlanner {
+
+    private HistorianQueryPlanner() {
+    }
+
+    /**
+     * 按规划执行历史数据查询。
+     *
+     * @param historianRequest 原始请求
+     * @param query            针对单个子区间执行查询的函数；无需切分时传入的就是原始请求
+     * @return 拼接后的查询结果，任一子区间失败时返回该子区间的结果
+     */
+    public static DatasResult execute(HistorianRequest historianRequest, Function<HistorianRequest, DatasResult> query) {
+        List<Date[]> ranges = plan(historianRequest);
+        if (ranges.size() <= 1) {
+            return runRange(historianRequest, query, true).get(0);
+        }
+        ApiMetrics.add("planner.ranges", ranges.size());
+        log.debug("历史数据查询 [{} - {}] 切分为 {} 个子区间", historianRequest.getStartTime(), historianRequest.getEndTime(), ranges.size());
+        List<Supplier<List<DatasResult>>> tasks = new ArrayList<>(ranges.size());
+        for (Date[] range : ranges) {
+            HistorianRequest subRequest = withTimeRange(historianRequest, range[0], range[1]);
+            tasks.add(() -> runRange(subRequest, query, false));
+        }
+        List<DatasResult> results = new ArrayList<>();
+        for (List<DatasResult> rangeResults : ConcurrentUtil.invokeAll(tasks, ApiClient.getConfig().getFanOutParallelism())) {
+            results.addAll(rangeResults);
+        }
+        return stitch(results);
+    }
+
+    /**
+     * 将请求的时间范围切分为合规的子区间。
+     *
+     * @param historianRequest 历史数据请求
+     * @return 按时间顺序排列的子区间（每项为开始、结束时间），无需切分时只包含原始时间范围
+     */
+    public static List<Date[]> plan(HistorianRequest historianRequest) {
+        return plan(historianRequest, chunkMillis(historianRequest.getInterval()));
+    }
+
+    /**
+     * 按指定的子区间时长切分请求的时间范围。
+     *
+     * @param historianRequest 历史数据请求
+     * @param chunkMillis      子区间时长（毫秒），小于等于 0 时不切分
+     * @return 按时间顺序排列的子区间（每项为开始、结束时间），无需切分时只包含原始时间范围
+     */
+    static List<Date[]> plan(HistorianRequest historianRequest, long chunkMillis) {
+        List<Date[]> ranges = new ArrayList<>();
+        Date startTime = historianRequest.getStartTime();
+        Date endTime = historianRequest.getEndTime();
+        if (startTime == null || endTime == null || !endTime.after(startTime)) {
+            ranges.add(new Date[]{startTime, endTime});
+            return ranges;
+        }
+        long start = startTime.getTime();
+        long end = endTime.getTime();
+        if (chunkMillis <= 0 || end - start <= chunkMillis) {
+            ranges.add(new Date[]{startTime, endTime});
+            return ranges;
+        }
+        for (long from = start; from < end; from += chunkMillis) {
+            ranges.add(new Date[]{new Date(from), new Date(Math.min(from + chunkMillis, end))});
+        }
+        return ranges;
+    }
+
+    /**
+     * 计算单个子区间的时长，取时间范围上限与点数上限中较小者，并向下对齐到查询间隔的整数倍。
+     *
+     * @param intervalSeconds 查询间隔（秒），为空或非正数时只受时间范围上限约束
+     * @return 子区间时长（毫秒），不限制时返回 0
+     */
+    static long chunkMillis(Long intervalSeconds) {
+        ApiConfig config = ApiClient.getConfig();
+        long chunk = config.getMaxQueryTimeRangeSeconds() > 0 ? TimeUnit.SECONDS.toMillis(config.getMaxQueryTimeRangeSeconds()) : Long.MAX_VALUE;
+        if (intervalSeconds != null && intervalSeconds > 0) {
+            long intervalMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+            if (config.getMaxPointsPerTag() > 0) {
+                chunk = Math.min(chunk, intervalMillis * config.getMaxPointsPerTag());
+            }
+            if (chunk != Long.MAX_VALUE) {
+                chunk = Math.max(intervalMillis, chunk / intervalMillis * intervalMillis);
+            }
+        }
+        return chunk == Long.MAX_VALUE ? 0 : chunk;
+    }
+
+    private static List<DatasResult> runRange(HistorianRequest request, Function<HistorianRequest, DatasResult> query, boolean original) {
+        DatasResult result = query.apply(request);
+        int code = result.getCode();
+        if (code != StateCode.QUERY_TIME_RANGE_OVER_MAX_LIMIT.getCode() && code != StateCode.QUERY_ONE_TAG_VALUE_COUNT_OVER_MAX_LIMIT.getCode()) {
+            return wrap(result);
+        }
+        long start = request.getStartTime() == null ? 0 : request.getStartTime().getTime();
+        long end = request.getEndTime() == null ? 0 : request.getEndTime().getTime();
+        long intervalMillis = request.getInterval() == null ? 0 : TimeUnit.SECONDS.toMillis(request.getInterval());
+        long half = (end - start) / 2;
+        if (intervalMillis > 0) {
+            half = half / intervalMillis * intervalMillis;
+        }
+        if (half <= 0) {
+            return wrap(result);
+        }
+        ApiMetrics.increment("planner.ranges.split");
+        log.debug("历史数据查询超过服务端限制（{}），子区间 [{} - {}] 对半切分", code, request.getStartTime(), request.getEndTime());
+        Date middle = new Date(start + half);
+        List<DatasResult> results = new ArrayList<>(runRange(withTimeRange(request, request.getStartTime(), middle), query, false));
+        results.addAll(runRange(withTimeRange(request, middle, request.getEndTime()), query, false));
+        return original ? wrap(stitch(results)) : results;
+    }
+
+    private static List<DatasResult> wrap(DatasResult result) {
+        List<DatasResult> results = new ArrayList<>(1);
+        results.add(result);
+        return results;
+    }
+
+    /**
+     * 按时间顺序拼接各子区间结果，子区间边界上重复的时间点只保留一次。
+     *
+     * @param results 按时间顺序排列的子区间结果
+     * @return 拼接后的结果，任一子区间失败时返回该子区间的结果
+     */
+    private static DatasResult stitch(List<DatasResult> results) {
+        Map<Integer, HDBTagValue> tags = new LinkedHashMap<>();
+        for (DatasResult result : results) {
+            if (result.getCode() != StateCode.SUCCESS.getCode()) {
+                return result;
+            }
+            if (result.getData() == null || result.getData().getHdbTagValueList() == null) {
+                continue;
+            }
+            for (HDBTagValue hdbTagValue : result.getData().getHdbTagValueList()) {
+                HDBTagValue merged = tags.get(hdbTagValue.getIndex());
+                if (merged == null) {
+                    merged = new HDBTagValue()
+                            .setIndex(hdbTagValue.getIndex())
+                            .setTagType(hdbTagValue.getTagType())
+                            .setTagName(hdbTagValue.getTagName())
+                            .setOneTagHDBValueList(new ArrayList<>());
+                    tags.put(hdbTagValue.getIndex(), merged);
+                }
+                if (hdbTagValue.getOneTagHDBValueList() != null) {
+                    append(merged.getOneTagHDBValueList(), hdbTagValue.getOneTagHDBValueList());
+                }
+            }
+        }
+        DatasResult datasResult = new DatasResult().setData(new HDBTagValueList().setHdbTagValueList(new ArrayList<>(tags.values())));
+        datasResult.setCode(StateCode.SUCCESS.getCode());
+        datasResult.setMsg(results.get(0).getMsg());
+        return datasResult;
+    }
+
+    private static void append(List<OneTagHDBValue> target, List<OneTagHDBValue> values) {
+        Date last = target.isEmpty() ? null : target.get(target.size() - 1).getTagValueTime();
+        for (OneTagHDBValue value : values) {
+            if (last != null && value.getTagValueTime() != null && !value.getTagValueTime().after(last)) {
+                continue;
+            }
+            target.add(value);
+        }
+    }
+
+    /**
+     * 复制历史数据请求，仅替换时间范围。
+     *
+     * @param historianRequest 原始请求
+     * @param startTime        开始时间
+     * @param endTime          结束时间
+     * @return 新的请求对象
+     */
+    static HistorianRequest withTimeRange(HistorianRequest historianRequest, Date startTime, Date endTime) {
+        return HLSApiInvoker.withTagNameList(historianRequest, historianRequest.getTagNameList())
+                .setStartTime(startTime)
+                .setEndTime(endTime);
+    }
+}
@@ -0,0 +1,390 @@
+package io.github.forget_the_bright.hls.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializeFilter;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alibaba.fastjson.serializer.ValueFilter;
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.core.CacheHolder;
+import io.github.forget_the_bright.hls.core.ConcurrentUtil;
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DatasResult;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValueList;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 历史数据分段缓存。
+ * <p>
+ * 已经过去的历史数据不会再变化。该缓存以（标签，查询间隔，查询标志，分段起点）为键，把按查询间隔对齐的固定长度时间段
+ * 存入 {@link CacheHolder}（本地或 Redis），新的查询被拆分为已缓存的分段和缺口，只请求缺口。
+ * <p>
+ * 只有完全落在查询范围内、且早于 {@link ApiConfig#getHdbCacheMutableEdgeSeconds()} 可变边界的分段才会被缓存；
+ * 当前进程写入或读到的条目数超过 {@link ApiConfig#getHdbCacheMaxSegments()} 时按最近最少使用通过
+ * {@link CacheHolder#evictLocal(Object)} 淘汰本进程的副本。该上限只约束本进程的记录：使用 Redis 时多个节点各自计数，
+ * 共享的分段不删除，只随 {@link ApiConfig#getHdbCacheTtlSeconds()} 过期，需要通过 Redis 的 {@code maxmemory} 策略控制总量。
+ * <p>
+ * 一次查询涉及的所有分段和标签通过 {@link CacheHolder#multiGet(List)} 一次读取；分段数据不会再变化，
+ * 通过 {@link CacheHolder#putImmutable(Object, Object, long)} 写入，不广播近端缓存失效消息。
+ * 查询开始时间未与查询间隔对齐时，数据点时间与分段网格不一致，直接查询不走缓存。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public class HistorianSegmentCache {
+
+    /**
+     * 缓存键前缀。
+     */
+    private static final String KEY_PREFIX = "ge:hdb:";
+
+    /**
+     * 序列化时将日期写为秒级时间戳，与服务端响应格式一致，反序列化时复用实体上的反序列化器。
+     */
+    private static final SerializeFilter SECOND_DATE_FILTER = (ValueFilter) (object, name, value) ->
+            value instanceof Date ? ((Date) value).getTime() / 1000 : value;
+
+    /**
+     * API 配置对象，包含分段长度、可变边界等配置信息。
+     */
+    private static ApiConfig config;
+
+    /**
+     * 缓存持有者实例，用于存储分段数据。
+     */
+    private static CacheHolder<String, String> cacheHolder;
+
+    /**
+     * 本进程分段键的最近使用顺序，超过上限时淘汰最久未使用的分段，访问时需持有该对象的锁。
+     */
+    private static final LinkedHashMap<String, Boolean> LRU = new LinkedHashMap<String, Boolean>(256, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            if (size() > config.getHdbCacheMaxSegments()) {
+                EVICTED.add(eldest.getKey());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * 已移出 {@link #LRU}、尚未从缓存中淘汰的分段键，访问时需持有 {@link #LRU} 的锁。
+     */
+    private static final List<String> EVICTED = new ArrayList<>();
+
+    /**
+     * 构造函数，初始化缓存持有者和 API 配置。
+     *
+     * @param cacheHolder 缓存持有者实例，用于存储分段数据。
+     * @param config      API 配置对象，包含分段长度、可变边界等配置信息。
+     */
+    public HistorianSegmentCache(CacheHolder<String, String> cacheHolder, ApiConfig config) {
+        HistorianSegmentCache.cacheHolder = cacheHolder;
+        HistorianSegmentCache.config = config;
+        synchronized (LRU) {
+            LRU.clear();
+            EVICTED.clear();
+        }
+    }
+
+    /**
+     * 判断分段缓存是否可用。
+     *
+     * @return 已初始化且分段上限大于 0 时返回 true
+     */
+    public static boolean isEnabled() {
+        return cacheHolder != null && config != null && config.getHdbCacheMaxSegments() > 0;
+    }
+
+    /**
+     * 执行查询，已缓存的分段直接读取，缺口通过 {@code query} 请求后写入缓存。
+     *
+     * @param historianRequest 历史数据请求
+     * @param query            实际执行查询的函数
+     * @return 查询结果，任一缺口查询失败时返回该缺口的结果
+     */
+    public static DatasResult execute(HistorianRequest historianRequest, Function<HistorianRequest, DatasResult> query) {
+        Date startTime = historianRequest.getStartTime();
+        Date endTime = historianRequest.getEndTime();
+        Long interval = historianRequest.getInterval();
+        List<TagNameRequest> tagNameList = historianRequest.getTagNameList();
+        if (startTime == null || endTime == null || interval == null || interval <= 0 || tagNameList == null || tagNameList.isEmpty()) {
+            return query.apply(historianRequest);
+        }
+        long intervalMillis = TimeUnit.SECONDS.toMillis(interval);
+        long start = startTime.getTime();
+        long end = endTime.getTime();
+        if (start % intervalMillis != 0 || end <= start) {
+            return query.apply(historianRequest);
+        }
+        long segmentMillis = segmentMillis(intervalMillis);
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(config.getHdbCacheMutableEdgeSeconds());
+        String keyBase = keyBase(historianRequest);
+
+        // 按分段网格切分：可缓存的分段一次批量读取，其余连续部分合并为缺口；
+        // 结束时间上的数据点属于下一分段，末尾分段总是随缺口查询
+        List<Long> cacheable = new ArrayList<>();
+        long segmentStart = Math.floorDiv(start, segmentMillis) * segmentMillis;
+        for (long a = segmentStart; a < end; a += segmentMillis) {
+            long b = a + segmentMillis;
+            if (a >= start && b < end && b <= cutoff) {
+                cacheable.add(a);
+            }
+        }
+        Map<Long, Map<String, HDBTagValue>> segments = readSegments(keyBase, cacheable, tagNameList);
+        List<Piece> pieces = new ArrayList<>();
+        long cursor = start;
+        for (long a : cacheable) {
+            Map<String, HDBTagValue> cached = segments.get(a);
+            if (cached != null) {
+                if (cursor < a) {
+                    pieces.add(Piece.gap(cursor, a));
+                }
+                pieces.add(Piece.cached(a, a + segmentMillis, cached));
+                cursor = a + segmentMillis;
+            }
+        }
+        if (cursor < end) {
+            pieces.add(Piece.gap(cursor, end));
+        }
+        int hits = 0;
+        List<Supplier<DatasResult>> tasks = new ArrayList<>();
+        List<Piece> gaps = new ArrayList<>();
+        for (Piece piece : pieces) {
+            if (piece.cached != null) {
+                hits++;
+                continue;
+            }
+            gaps.add(piece);
+            HistorianRequest gapRequest = HistorianQueryPlanner.withTimeRange(historianRequest, new Date(piece.from), new Date(piece.to));
+            tasks.add(() -> query.apply(gapRequest));
+        }
+        ApiMetrics.add("hdb.cache.segment.hits", hits);
+        ApiMetrics.add("hdb.cache.gaps", gaps.size());
+        if (hits == 0) {
+            // 整个范围都是缺口，直接使用原始请求，结果写入可缓存的分段
+            DatasResult result = query.apply(historianRequest);
+            if (result.getCode() == StateCode.SUCCESS.getCode()) {
+                storeSegments(keyBase, tagNameList, result, start, end, segmentMillis, cutoff);
+            }
+            return result;
+        }
+        List<DatasResult> gapResults = ConcurrentUtil.invokeAll(tasks, config.getFanOutParallelism());
+        for (int i = 0; i < gaps.size(); i++) {
+            DatasResult gapResult = gapResults.get(i);
+            if (gapResult.getCode() != StateCode.SUCCESS.getCode()) {
+                return gapResult;
+            }
+            gaps.get(i).fetched = byTagName(gapResult);
+            storeSegments(keyBase, tagNameList, gapResult, gaps.get(i).from, gaps.get(i).to, segmentMillis, cutoff);
+        }
+        return assemble(tagNameList, pieces, end);
+    }
+
+    /**
+     * 计算分段长度：配置的分段时长向上对齐到查询间隔的整数倍。
+     *
+     * @param intervalMillis 查询间隔，单位为毫秒
+     * @return 分段长度，单位为毫秒
+     */
+    private static long segmentMillis(long intervalMillis) {
+        long configured = Math.max(TimeUnit.SECONDS.toMillis(config.getHdbCacheSegmentSeconds()), intervalMillis);
+        return (configured + intervalMillis - 1) / intervalMillis * intervalMillis;
+    }
+
+    private static String keyBase(HistorianRequest historianRequest) {
+        return KEY_PREFIX + historianRequest.getInterval() + '|'
+                + flag(historianRequest.getNeedQueryBound())
+                + flag(historianRequest.getNeedQueryAVG())
+                + flag(historianRequest.getNeedQueryMIN())
+                + flag(historianRequest.getNeedQueryMAX()) + '|';
+    }
+
+    private static char flag(Boolean value) {
+        return Boolean.TRUE.equals(value) ? '1' : '0';
+    }
+
+    private static String segmentKey(String keyBase, String tagName, long segmentStart) {
+        return keyBase + segmentStart + '|' + tagName;
+    }
+
+    /**
+     * 一次批量读取多个分段内所有标签的缓存数据。
+     *
+     * @return 按分段起点索引、再按标签名称索引的分段数据，任一标签未缓存的分段不包含在内
+     */
+    private static Map<Long, Map<String, HDBTagValue>> readSegments(String keyBase, List<Long> segmentStarts,
+                                                                    List<TagNameRequest> tagNameList) {
+        Map<Long, Map<String, HDBTagValue>> segments = new HashMap<>();
+        if (segmentStarts.isEmpty()) {
+            return segments;
+        }
+        List<String> keys = new ArrayList<>(segmentStarts.size() * tagNameList.size());
+        for (long segmentStart : segmentStarts) {
+            for (TagNameRequest tagNameRequest : tagNameList) {
+                keys.add(segmentKey(keyBase, tagNameRequest.getTagName(), segmentStart));
+            }
+        }
+        List<String> values = cacheHolder.multiGet(keys);
+        int position = 0;
+        for (long segmentStart : segmentStarts) {
+            int from = position;
+            position += tagNameList.size();
+            if (values.subList(from, position).contains(null)) {
+                ApiMetrics.increment("hdb.cache.segment.misses");
+                continue;
+            }
+            Map<String, HDBTagValue> segment = new HashMap<>();
+            touch(keys.subList(from, position));
+            for (int i = 0; i < tagNameList.size(); i++) {
+                segment.put(tagNameList.get(i).getTagName(), JSON.parseObject(values.get(from + i), HDBTagValue.class));
+            }
+            segments.put(segmentStart, segment);
+        }
+        return segments;
+    }
+
+    /**
+     * 将查询结果中完整落在 [from, to] 内且早于可变边界的分段写入缓存。
+     */
+    private static void storeSegments(String keyBase, List<TagNameRequest> tagNameList, DatasResult result,
+                                      long from, long to, long segmentMillis, long cutoff) {
+        Map<String, HDBTagValue> byTagName = byTagName(result);
+        long timeout = TimeUnit.SECONDS.toMillis(config.getHdbCacheTtlSeconds());
+        long first = Math.floorDiv(from + segmentMillis - 1, segmentMillis) * segmentMillis;
+        for (long a = first; a + segmentMillis <= to && a + segmentMillis <= cutoff; a += segmentMillis) {
+            for (TagNameRequest tagNameRequest : tagNameList) {
+                HDBTagValue tagValue = byTagName.get(tagNameRequest.getTagName());
+                if (tagValue == null) {
+                    continue;
+                }
+                HDBTagValue segment = new HDBTagValue()
+                        .setTagType(tagValue.getTagType())
+                        .setOneTagHDBValueList(slice(tagValue.getOneTagHDBValueList(), a, a + segmentMillis, false));
+                String key = segmentKey(keyBase, tagNameRequest.getTagName(), a);
+                cacheHolder.putImmutable(key, JSON.toJSONString(segment, SECOND_DATE_FILTER, SerializerFeature.WriteEnumUsingToString), timeout);
+                touch(Collections.singletonList(key));
+            }
+        }
+    }
+
+    /**
+     * 记录分段键的使用，在锁外淘汰超出上限的分段的本地副本。
+     */
+    private static void touch(List<String> keys) {
+        List<String> evicted;
+        synchronized (LRU) {
+            for (String key : keys) {
+                LRU.put(key, Boolean.TRUE);
+            }
+            if (EVICTED.isEmpty()) {
+                return;
+            }
+            evicted = new ArrayList<>(EVICTED);
+            EVICTED.clear();
+        }
+        for (String key : evicted) {
+            cacheHolder.evictLocal(key);
+        }
+        ApiMetrics.add("hdb.cache.evictions", evicted.size());
+    }
+
+    private static Map<String, HDBTagValue> byTagName(DatasResult result) {
+        Map<String, HDBTagValue> byTagName = new HashMap<>();
+        if (result.getData() != null && result.getData().getHdbTagValueList() != null) {
+            for (HDBTagValue hdbTagValue : result.getData().getHdbTagValueList()) {
+                byTagName.put(hdbTagValue.getTagName(), hdbTagValue);
+            }
+        }
+        return byTagName;
+    }
+
+    /**
+     * 截取时间落在 [from, to) 内的数据点，{@code inclusiveEnd} 为 true 时包含 to。
+     */
+    private static List<OneTagHDBValue> slice(List<OneTagHDBValue> values, long from, long to, boolean inclusiveEnd) {
+        List<OneTagHDBValue> slice = new ArrayList<>();
+        if (values == null) {
+            return slice;
+        }
+        for (OneTagHDBValue value : values) {
+            if (value.getTagValueTime() == null) {
+                continue;
+            }
+            long time = value.getTagValueTime().getTime();
+            if (time >= from && (time < to || inclusiveEnd && time == to)) {
+                slice.add(value);
+            }
+        }
+        return slice;
+    }
+
+    /**
+     * 按时间顺序拼接已缓存分段和缺口的数据点，标签顺序与请求一致。
+     */
+    private static DatasResult assemble(List<TagNameRequest> tagNameList, List<Piece> pieces, long end) {
+        List<HDBTagValue> hdbTagValueList = new ArrayList<>(tagNameList.size());
+        for (int index = 0; index < tagNameList.size(); index++) {
+            String tagName = tagNameList.get(index).getTagName();
+            HDBTagValue merged = new HDBTagValue().setIndex(index).setTagName(tagName).setOneTagHDBValueList(new ArrayList<>());
+            for (Piece piece : pieces) {
+                Map<String, HDBTagValue> source = piece.cached != null ? piece.cached : piece.fetched;
+                HDBTagValue tagValue = source == null ? null : source.get(tagName);
+                if (tagValue == null) {
+                    continue;
+                }
+                if (merged.getTagType() == null) {
+                    merged.setTagType(tagValue.getTagType());
+                }
+                merged.getOneTagHDBValueList().addAll(slice(tagValue.getOneTagHDBValueList(), piece.from, piece.to, piece.to == end));
+            }
+            hdbTagValueList.add(merged);
+        }
+        DatasResult datasResult = new DatasResult().setData(new HDBTagValueList().setHdbTagValueList(hdbTagValueList));
+        datasResult.setCode(StateCode.SUCCESS.getCode());
+        return datasResult;
+    }
+
+    /**
+     * 查询范围中的一段：已缓存的分段或需要请求的缺口。
+     */
+    private static final class Piece {
+
+        private final long from;
+
+        private final long to;
+
+        private final Map<String, HDBTagValue> cached;
+
+        private Map<String, HDBTagValue> fetched;
+
+        private Piece(long from, long to, Map<String, HDBTagValue> cached) {
+            this.from = from;
+            this.to = to;
+            this.cached = cached;
+        }
+
+        private static Piece gap(long from, long to) {
+            return new Piece(from, to, null);
+        }
+
+        private static Piece cached(long from, long to, Map<String, HDBTagValue> cached) {
+            return new Piece(from, to, cached);
+        }
+    }
+}
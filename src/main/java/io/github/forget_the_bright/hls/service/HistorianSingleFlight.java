@@ -0,0 +1,134 @@
+package io.github.forget_the_bright.hls.service;
+
+import cn.hutool.core.bean.BeanUtil;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DatasResult;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValueList;
+import io.github.forget_the_bright.hls.exception.ApiException;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 历史数据查询单飞去重。
+ * <p>
+ * 以规范化后的 {@link HistorianRequest}（开始结束时间、查询间隔、各查询标志、按顺序排列的标签名称）为键，
+ * 同一时刻相同的查询只发出一次请求，其余调用方等待并共享该请求的结果。请求完成后立即移除，不做结果缓存。
+ * <p>
+ * 发起方直接拿到查询结果，共享结果的调用方各自拿到保留全部字段的 {@link DatasResult} 和 {@link HDBTagValue} 副本
+ * 及独立的数据点列表，数据点对象本身是共享的。发起方在其他调用方复制完成前不应修改结果。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+public final class HistorianSingleFlight {
+
+    /**
+     * 进行中的查询，键为规范化后的请求。
+     */
+    private static final Map<String, CompletableFuture<DatasResult>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private HistorianSingleFlight() {
+    }
+
+    /**
+     * 执行查询，相同的查询正在进行时共享其结果。
+     *
+     * @param historianRequest 历史数据请求
+     * @param query            实际执行查询的函数
+     * @return 查询结果
+     * @throws ApiException 共享的查询失败时抛出
+     */
+    public static DatasResult execute(HistorianRequest historianRequest, Function<HistorianRequest, DatasResult> query) {
+        String key = key(historianRequest);
+        CompletableFuture<DatasResult> future = new CompletableFuture<>();
+        CompletableFuture<DatasResult> inFlight = IN_FLIGHT.putIfAbsent(key, future);
+        if (inFlight != null) {
+            ApiMetrics.increment("hdb.singleflight.hits");
+            try {
+                return copy(inFlight.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof ApiException) {
+                    throw (ApiException) e.getCause();
+                }
+                throw new ApiException("共享的历史数据查询失败", e.getCause());
+            }
+        }
+        ApiMetrics.increment("hdb.singleflight.misses");
+        try {
+            DatasResult result = query.apply(historianRequest);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            IN_FLIGHT.remove(key, future);
+        }
+    }
+
+    /**
+     * 生成规范化的请求键，空的查询标志按 false 处理。
+     *
+     * @param historianRequest 历史数据请求
+     * @return 请求键
+     */
+    static String key(HistorianRequest historianRequest) {
+        StringBuilder key = new StringBuilder(64);
+        key.append(time(historianRequest.getStartTime())).append('|')
+                .append(time(historianRequest.getEndTime())).append('|')
+                .append(historianRequest.getInterval()).append('|')
+                .append(flag(historianRequest.getNeedQueryBound()))
+                .append(flag(historianRequest.getNeedQueryAVG()))
+                .append(flag(historianRequest.getNeedQueryMIN()))
+                .append(flag(historianRequest.getNeedQueryMAX()));
+        if (historianRequest.getTagNameList() != null) {
+            for (TagNameRequest tagNameRequest : historianRequest.getTagNameList()) {
+                key.append('\u0001').append(tagNameRequest.getTagName());
+            }
+        }
+        return key.toString();
+    }
+
+    private static String time(Date date) {
+        return date == null ? "" : String.valueOf(date.getTime());
+    }
+
+    private static char flag(Boolean value) {
+        return Boolean.TRUE.equals(value) ? '1' : '0';
+    }
+
+    /**
+     * 复制共享的结果，保留结果、数据列表和每个标签的全部字段，列表重新创建。
+     */
+    private static DatasResult copy(DatasResult source) {
+        DatasResult datasResult = BeanUtil.copyProperties(source, source.getClass());
+        if (source.getData() == null) {
+            return datasResult;
+        }
+        HDBTagValueList data = BeanUtil.copyProperties(source.getData(), source.getData().getClass());
+        datasResult.setData(data);
+        if (source.getData().getHdbTagValueList() == null) {
+            return datasResult;
+        }
+        List<HDBTagValue> hdbTagValueList = new ArrayList<>(source.getData().getHdbTagValueList().size());
+        for (HDBTagValue hdbTagValue : source.getData().getHdbTagValueList()) {
+            HDBTagValue copied = BeanUtil.copyProperties(hdbTagValue, hdbTagValue.getClass());
+            if (hdbTagValue.getOneTagHDBValueList() != null) {
+                copied.setOneTagHDBValueList(new ArrayList<>(hdbTagValue.getOneTagHDBValueList()));
+            }
+            hdbTagValueList.add(copied);
+        }
+        data.setHdbTagValueList(hdbTagValueList);
+        return datasResult;
+    }
+}
@@ -0,0 +1,241 @@
+package io.github.forget_the_bright.hls.service;
+
+import cn.hutool.core.util.ObjectUtil;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.entity.request.HistorianRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DatasResult;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValue;
+import io.github.forget_the_bright.hls.entity.response.base.HDBTagValueList;
+import io.github.forget_the_bright.hls.entity.response.base.OneTagHDBValue;
+import io.github.forget_the_bright.hls.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史数据的增量读取游标。
+ * <p>
+ * 游标为每个标签记录已查询到的时间，即最近一次成功查询的结束时间，没有新数据点的标签也随之前进，
+ * 每次 {@link #poll()} 只查询该时间之后、按查询间隔对齐的新数据，结束时间为当前时间减去 {@link #setLagSeconds(long)}
+ * 并向下对齐到查询间隔，避免读到仍可能变化的数据。
+ * <p>
+ * 读取位置在 {@link #commit()} 后才通过 {@link CheckpointStore} 保存，调用方处理完 {@link #poll()} 的结果后再提交，
+ * 进程在提交前退出时，重新创建的游标会再次返回未提交的数据（至少一次）。
+ * <p>
+ * 游标不是为多个线程同时读取设计的，各方法已加锁，但同名游标只应在一处使用。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public class HistorianTailCursor {
+
+    /**
+     * 游标名称，作为检查点的存储键。
+     */
+    private final String name;
+
+    /**
+     * 查询模板，提供标签列表、查询间隔、聚合值类型，以及没有检查点的标签的起始时间。
+     */
+    private final HistorianRequest template;
+
+    /**
+     * 检查点存储。
+     */
+    private final CheckpointStore store;
+
+    /**
+     * 已提交的检查点，按标签名称索引的毫秒时间戳。
+     */
+    private final Map<String, Long> committed;
+
+    /**
+     * 已读取但未提交的检查点。
+     */
+    private final Map<String, Long> pending;
+
+    /**
+     * 结束时间相对当前时间的延迟（秒），为 null 时使用 {@code hdbCacheMutableEdgeSeconds}。
+     */
+    private Long lagSeconds;
+
+    /**
+     * 构造函数，从检查点存储中恢复读取位置。
+     *
+     * @param name     游标名称，作为检查点的存储键
+     * @param template 查询模板，必须设置标签列表和查询间隔；开始时间为没有检查点的标签的起始时间，结束时间忽略
+     * @param store    检查点存储
+     */
+    public HistorianTailCursor(String name, HistorianRequest template, CheckpointStore store) {
+        if (template.getInterval() == null || template.getInterval() <= 0) {
+            throw new ApiException("增量读取游标的查询间隔必须大于 0");
+        }
+        if (template.getTagNameList() == null || template.getTagNameList().isEmpty()) {
+            throw new ApiException("增量读取游标的标签列表不能为空");
+        }
+        this.name = name;
+        this.template = template;
+        this.store = store;
+        this.committed = new HashMap<>(store.load(name));
+        this.pending = new HashMap<>(committed);
+    }
+
+    /**
+     * 设置结束时间相对当前时间的延迟。
+     *
+     * @param lagSeconds 延迟（秒）
+     * @return 当前游标
+     */
+    public HistorianTailCursor setLagSeconds(long lagSeconds) {
+        this.lagSeconds = lagSeconds;
+        return this;
+    }
+
+    /**
+     * 读取上次读取位置之后的新数据。
+     * <p>
+     * 读取位置相同的标签合并为一次 {@link HLSApiInvoker#getHDBTagValue(HistorianRequest)} 查询，
+     * 返回的 {@link HDBTagValue#getIndex()} 指向查询模板中的标签位置，只包含有新数据点的标签。
+     * 任一查询失败时返回该查询的状态码和消息，读取位置不变。
+     *
+     * @return 包含新数据的 {@link DatasResult} 对象
+     */
+    public synchronized DatasResult poll() {
+        long intervalMillis = TimeUnit.SECONDS.toMillis(template.getInterval());
+        long lag = lagSeconds != null ? lagSeconds : ApiClient.getConfig().getHdbCacheMutableEdgeSeconds();
+        long to = alignDown(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(lag), intervalMillis);
+        List<TagNameRequest> tagNameList = template.getTagNameList();
+        Map<Long, List<Integer>> byStart = new LinkedHashMap<>();
+        for (int i = 0; i < tagNameList.size(); i++) {
+            Long checkpoint = pending.get(tagNameList.get(i).getTagName());
+            long from;
+            if (checkpoint != null) {
+                from = alignDown(checkpoint, intervalMillis) + intervalMillis;
+            } else if (template.getStartTime() != null) {
+                from = alignUp(template.getStartTime().getTime(), intervalMillis);
+            } else {
+                throw new ApiException("标签没有检查点且查询模板未设置开始时间: " + tagNameList.get(i).getTagName());
+            }
+            if (from <= to) {
+                byStart.computeIfAbsent(from, key -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<String, Long> advanced = new HashMap<>();
+        List<HDBTagValue> hdbTagValueList = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : byStart.entrySet()) {
+            List<TagNameRequest> group = new ArrayList<>(entry.getValue().size());
+            for (Integer index : entry.getValue()) {
+                group.add(tagNameList.get(index));
+            }
+            HistorianRequest request = HistorianQueryPlanner.withTimeRange(HLSApiInvoker.withTagNameList(template, group),
+                    new Date(entry.getKey()), new Date(to));
+            DatasResult result = HLSApiInvoker.getHDBTagValue(request);
+            if (result.getCode() != StateCode.SUCCESS.getCode()) {
+                log.warn("增量读取游标 {} 查询失败: {} {}", name, result.getCode(), result.getMsg());
+                return result;
+            }
+            // 查询成功后整个时间范围都已读取，没有返回数据点的标签也前进到结束时间，下次不再重复查询
+            for (TagNameRequest tagNameRequest : group) {
+                advanced.put(tagNameRequest.getTagName(), to);
+            }
+            if (result.getData() == null || result.getData().getHdbTagValueList() == null) {
+                continue;
+            }
+            for (HDBTagValue hdbTagValue : result.getData().getHdbTagValueList()) {
+                int groupIndex = ObjectUtil.defaultIfNull(hdbTagValue.getIndex(), 0);
+                String tagName = group.get(groupIndex).getTagName();
+                Long checkpoint = pending.get(tagName);
+                List<OneTagHDBValue> values = newer(hdbTagValue.getOneTagHDBValueList(),
+                        checkpoint == null ? Long.MIN_VALUE : checkpoint, to);
+                if (values.isEmpty()) {
+                    continue;
+                }
+                hdbTagValueList.add(new HDBTagValue().setIndex(entry.getValue().get(groupIndex)).setTagName(tagName)
+                        .setTagType(hdbTagValue.getTagType()).setOneTagHDBValueList(values));
+            }
+        }
+        pending.putAll(advanced);
+        hdbTagValueList.sort(Comparator.comparing(HDBTagValue::getIndex));
+        DatasResult datasResult = new DatasResult().setData(new HDBTagValueList().setHdbTagValueList(hdbTagValueList));
+        datasResult.setCode(StateCode.SUCCESS.getCode());
+        return datasResult;
+    }
+
+    /**
+     * 保存已读取的位置，调用方处理完 {@link #poll()} 的结果后调用。
+     */
+    public synchronized void commit() {
+        if (pending.equals(committed)) {
+            return;
+        }
+        store.save(name, new HashMap<>(pending));
+        committed.clear();
+        committed.putAll(pending);
+    }
+
+    /**
+     * 放弃未提交的读取位置，下次 {@link #poll()} 重新返回上次提交之后的数据。
+     */
+    public synchronized void rollback() {
+        pending.clear();
+        pending.putAll(committed);
+    }
+
+    /**
+     * 获取某个标签当前的读取位置，包含未提交的部分。
+     *
+     * @param tagName 标签名称
+     * @return 已查询到的时间，尚未读取过时返回 null
+     */
+    public synchronized Date getCheckpoint(String tagName) {
+        Long checkpoint = pending.get(tagName);
+        return checkpoint == null ? null : new Date(checkpoint);
+    }
+
+    /**
+     * 游标名称。
+     *
+     * @return 游标名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 截取时间晚于 after 且不晚于 to 的数据点。
+     */
+    private static List<OneTagHDBValue> newer(List<OneTagHDBValue> values, long after, long to) {
+        List<OneTagHDBValue> newer = new ArrayList<>();
+        if (values == null) {
+            return newer;
+        }
+        for (OneTagHDBValue value : values) {
+            if (value.getTagValueTime() == null) {
+                continue;
+            }
+            long time = value.getTagValueTime().getTime();
+            if (time > after && time <= to) {
+                newer.add(value);
+            }
+        }
+        return newer;
+    }
+
+    private static long alignDown(long time, long intervalMillis) {
+        return Math.floorDiv(time, intervalMillis) * intervalMillis;
+    }
+
+    private static long alignUp(long time, long intervalMillis) {
+        return -Math.floorDiv(-time, intervalMillis) * intervalMillis;
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.forget_the_bright.hls.service;
+
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.core.ConcurrentUtil;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.base.BaseResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 标签列表拆分执行器。
+ * <p>
+ * 查询的标签数超过 {@link ApiConfig#getMaxTagsPerRequest()} 时，将标签列表按顺序拆分为多批，
+ * 以 {@link ApiConfig#getFanOutParallelism()} 为上限并行请求。若服务端仍返回
+ * {@link StateCode#QUERY_TAG_NUMBER_OVER_MAX_LIMIT}，则将该批对半拆分重试，并记住更小的批次大小供后续查询使用。
+ * <p>
+ * 每批结果都带有其在原始标签列表中的偏移量，调用方据此还原标签名称和索引。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public final class TagBatchSplitter {
+
+    /**
+     * 从服务端 3018 响应中学到的批次上限，未学到时为 {@link Integer#MAX_VALUE}
+     */
+    private static final AtomicInteger LEARNED_LIMIT = new AtomicInteger(Integer.MAX_VALUE);
+
+    private TagBatchSplitter() {
+    }
+
+    /**
+     * 拆分标签列表并执行查询。
+     *
+     * @param tagNameList 完整标签列表
+     * @param call        针对一批标签执行查询的函数；标签数未超限时传入的就是 {@code tagNameList} 本身
+     * @param <R>         查询结果类型
+     * @return 按标签顺序排列的批次结果
+     */
+    public static <R extends BaseResult> List<Batch<R>> execute(List<TagNameRequest> tagNameList,
+                                                                Function<List<TagNameRequest>, R> call) {
+        int limit = currentLimit();
+        if (tagNameList == null || tagNameList.size() <= limit) {
+            return runBatch(0, tagNameList, call);
+        }
+        List<Supplier<List<Batch<R>>>> tasks = new ArrayList<>();
+        for (int offset = 0; offset < tagNameList.size(); offset += limit) {
+            int from = offset;
+            List<TagNameRequest> batch = tagNameList.subList(from, Math.min(from + limit, tagNameList.size()));
+            tasks.add(() -> runBatch(from, batch, call));
+        }
+        ApiMetrics.add("fanout.batches", tasks.size());
+        List<Batch<R>> batches = new ArrayList<>();
+        for (List<Batch<R>> result : ConcurrentUtil.invokeAll(tasks, ApiClient.getConfig().getFanOutParallelism())) {
+            batches.addAll(result);
+        }
+        return batches;
+    }
+
+    /**
+     * 获取当前生效的批次大小。
+     *
+     * @return 配置值与学到的服务端上限中较小者
+     */
+    public static int currentLimit() {
+        int configured = ApiClient.getConfig().getMaxTagsPerRequest();
+        return Math.min(configured > 0 ? configured : Integer.MAX_VALUE, LEARNED_LIMIT.get());
+    }
+
+    private static <R extends BaseResult> List<Batch<R>> runBatch(int offset, List<TagNameRequest> batch,
+                                                                  Function<List<TagNameRequest>, R> call) {
+        R result = call.apply(batch);
+        if (result.getCode() != StateCode.QUERY_TAG_NUMBER_OVER_MAX_LIMIT.getCode() || batch == null || batch.size() <= 1) {
+            return Collections.singletonList(new Batch<>(offset, result));
+        }
+        int half = (batch.size() + 1) / 2;
+        LEARNED_LIMIT.accumulateAndGet(half, Math::min);
+        ApiMetrics.increment("fanout.batches.split");
+        log.debug("查询点数超过服务端限制，批次由 {} 拆分为 {}", batch.size(), half);
+        List<Batch<R>> batches = new ArrayList<>(runBatch(offset, batch.subList(0, half), call));
+        batches.addAll(runBatch(offset + half, batch.subList(half, batch.size()), call));
+        return batches;
+    }
+
+    /**
+     * 单批查询结果。
+     *
+     * @param <R> 查询结果类型
+     */
+    public static final class Batch<R> {
+
+        /**
+         * 该批第一个标签在原始标签列表中的位置。
+         */
+        private final int offset;
+
+        /**
+         * 该批查询结果。
+         */
+        private final R result;
+
+        Batch(int offset, R result) {
+            this.offset = offset;
+            this.result = result;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public R getResult() {
+            return result;
+        }
+    }
+}
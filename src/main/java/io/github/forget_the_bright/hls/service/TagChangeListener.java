@@ -0,0 +1,25 @@
+package io.github.forget_the_bright.hls.service;
+
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValue;
+
+import java.util.List;
+
+/**
+ * 标签变化监听器，由 {@link TagSubscriptionEngine} 在订阅的标签发生变化时回调。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@FunctionalInterface
+public interface TagChangeListener {
+
+    /**
+     * 订阅的标签发生变化时调用。
+     * <p>
+     * 在订阅引擎的轮询线程中执行，应尽快返回，耗时的处理请转交给其他线程。
+     * 每个订阅收到的都是标签值的独立副本，监听器修改它们不会影响其他订阅。
+     *
+     * @param changes 本次轮询中发生变化的标签值，首次轮询包含所有订阅的标签
+     */
+    void onChange(List<DDBTagValue> changes);
+}
@@ -0,0 +1,280 @@
+package io.github.forget_the_bright.hls.service;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import io.github.forget_the_bright.hls.constant.common.StateCode;
+import io.github.forget_the_bright.hls.core.ApiClient;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.core.TagValueDecoder;
+import io.github.forget_the_bright.hls.entity.request.TagNameListRequest;
+import io.github.forget_the_bright.hls.entity.request.TagNameRequest;
+import io.github.forget_the_bright.hls.entity.response.DataResult;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValue;
+import io.github.forget_the_bright.hls.exception.ApiException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时库标签订阅引擎。
+ * <p>
+ * 调用方通过 {@link #subscribe(Collection, TagChangeListener, long, double)} 订阅标签，不再各自轮询和比较。
+ * 轮询周期相同的订阅共用一个轮询任务，每个周期只对所有订阅标签的并集读取一次实时库（按
+ * {@code maxTagsPerRequest} 自动拆分），因此订阅方的数量不会增加服务端请求数。
+ * <p>
+ * 每个订阅分别记录上次通知的标签值，新值与其比较：质量变化时通知；死区大于 0 且新旧值都能按标签类型解码为数值时，
+ * 变化量超过死区才通知；否则值或取值时间变化即通知。
+ * <p>
+ * 每个订阅收到的都是标签值的独立副本，监听器修改收到的值不会影响其他订阅和后续比较；
+ * 取消订阅后即使本轮轮询已在进行，也不再回调监听器。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public final class TagSubscriptionEngine {
+
+    /**
+     * 按轮询周期（毫秒）分组的轮询任务。
+     */
+    private static final Map<Long, PollGroup> GROUPS = new HashMap<>();
+
+    /**
+     * 共享的轮询调度线程池，首次订阅时创建。
+     */
+    private static ScheduledExecutorService scheduler;
+
+    private TagSubscriptionEngine() {
+    }
+
+    /**
+     * 订阅标签变化。
+     *
+     * @param tagNames     订阅的标签名称
+     * @param listener     标签变化监听器
+     * @param periodMillis 轮询周期，单位为毫秒
+     * @param deadband     死区，数值变化量不超过该值时不通知，小于等于 0 表示任何变化都通知
+     * @return 订阅句柄，用于取消订阅
+     * @throws ApiException 参数不合法时抛出
+     */
+    public static synchronized Subscription subscribe(Collection<String> tagNames, TagChangeListener listener, long periodMillis, double deadband) {
+        if (tagNames == null || tagNames.isEmpty() || listener == null || periodMillis <= 0) {
+            throw new ApiException("订阅参数不合法：标签不能为空，监听器不能为 null，轮询周期必须大于 0");
+        }
+        Subscription subscription = new Subscription(new LinkedHashSet<>(tagNames), listener, periodMillis, deadband);
+        PollGroup group = GROUPS.get(periodMillis);
+        if (group == null) {
+            group = new PollGroup(periodMillis);
+            GROUPS.put(periodMillis, group);
+            group.subscriptions.add(subscription);
+            PollGroup polling = group;
+            group.task = getScheduler().scheduleWithFixedDelay(polling::poll, 0, periodMillis, TimeUnit.MILLISECONDS);
+        } else {
+            group.subscriptions.add(subscription);
+        }
+        ApiMetrics.increment("subscription.created");
+        return subscription;
+    }
+
+    /**
+     * 取消订阅，轮询周期内没有其他订阅时停止该周期的轮询。
+     *
+     * @param subscription 订阅句柄
+     */
+    private static synchronized void unsubscribe(Subscription subscription) {
+        PollGroup group = GROUPS.get(subscription.periodMillis);
+        if (group == null || !group.subscriptions.remove(subscription)) {
+            return;
+        }
+        if (group.subscriptions.isEmpty()) {
+            group.task.cancel(false);
+            GROUPS.remove(subscription.periodMillis);
+        }
+    }
+
+    /**
+     * 当前的订阅数量。
+     *
+     * @return 所有轮询周期的订阅总数
+     */
+    public static synchronized int getSubscriptionCount() {
+        int count = 0;
+        for (PollGroup group : GROUPS.values()) {
+            count += group.subscriptions.size();
+        }
+        return count;
+    }
+
+    private static ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newScheduledThreadPool(ApiClient.getConfig().getSubscriptionPollThreads(),
+                    ThreadFactoryBuilder.create().setNamePrefix("hls-subscription-").setDaemon(true).build());
+        }
+        return scheduler;
+    }
+
+    /**
+     * 判断新值相对上次通知的值是否需要通知。
+     *
+     * @param previous 上次通知的值，可以为 null
+     * @param current  本次读取的值
+     * @param deadband 死区
+     * @return 需要通知时返回 true
+     */
+    static boolean isChanged(DDBTagValue previous, DDBTagValue current, double deadband) {
+        if (previous == null) {
+            return true;
+        }
+        if (previous.getQuality() != current.getQuality()) {
+            return true;
+        }
+        if (deadband > 0) {
+            double before = TagValueDecoder.decodeDouble(previous.getTagType(), previous.getTagValue());
+            double after = TagValueDecoder.decodeDouble(current.getTagType(), current.getTagValue());
+            if (!Double.isNaN(before) && !Double.isNaN(after)) {
+                return Math.abs(after - before) > deadband;
+            }
+        }
+        return !Objects.equals(previous.getTagValue(), current.getTagValue())
+                || !Objects.equals(previous.getTagValueTime(), current.getTagValueTime());
+    }
+
+    /**
+     * 订阅句柄。
+     */
+    public static final class Subscription {
+
+        private final Set<String> tagNames;
+
+        private final TagChangeListener listener;
+
+        private final long periodMillis;
+
+        private final double deadband;
+
+        /**
+         * 每个标签上次通知的值，只在轮询线程中访问。
+         */
+        private final Map<String, DDBTagValue> lastDelivered = new HashMap<>();
+
+        /**
+         * 是否已取消，轮询线程在回调前检查。
+         */
+        private volatile boolean cancelled;
+
+        private Subscription(Set<String> tagNames, TagChangeListener listener, long periodMillis, double deadband) {
+            this.tagNames = tagNames;
+            this.listener = listener;
+            this.periodMillis = periodMillis;
+            this.deadband = deadband;
+        }
+
+        /**
+         * 取消订阅，之后不再回调监听器。
+         */
+        public void cancel() {
+            cancelled = true;
+            unsubscribe(this);
+        }
+
+        /**
+         * 与本轮读取的值比较，通知发生变化的标签。
+         *
+         * @param values 本轮读取的值，按标签名称索引，所有订阅共用，不会交给监听器
+         */
+        private void deliver(Map<String, DDBTagValue> values) {
+            if (cancelled) {
+                return;
+            }
+            List<DDBTagValue> changes = new ArrayList<>();
+            for (String tagName : tagNames) {
+                DDBTagValue current = values.get(tagName);
+                if (current != null && isChanged(lastDelivered.get(tagName), current, deadband)) {
+                    lastDelivered.put(tagName, current);
+                    changes.add(DDBLastKnownGood.copy(current));
+                }
+            }
+            if (changes.isEmpty() || cancelled) {
+                return;
+            }
+            ApiMetrics.add("subscription.changes", changes.size());
+            try {
+                listener.onChange(changes);
+            } catch (Exception e) {
+                log.warn("标签订阅监听器执行失败", e);
+            }
+        }
+    }
+
+    /**
+     * 同一轮询周期的订阅及其轮询任务。
+     */
+    private static final class PollGroup {
+
+        private final long periodMillis;
+
+        private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+        private ScheduledFuture<?> task;
+
+        private PollGroup(long periodMillis) {
+            this.periodMillis = periodMillis;
+        }
+
+        /**
+         * 读取所有订阅标签的并集，分发给各订阅。
+         */
+        private void poll() {
+            Set<String> union = new LinkedHashSet<>();
+            for (Subscription subscription : subscriptions) {
+                union.addAll(subscription.tagNames);
+            }
+            if (union.isEmpty()) {
+                return;
+            }
+            List<TagNameRequest> tagNameList = new ArrayList<>(union.size());
+            for (String tagName : union) {
+                tagNameList.add(new TagNameRequest().setTagName(tagName));
+            }
+            ApiMetrics.increment("subscription.polls");
+            DataResult dataResult;
+            try {
+                dataResult = HLSApiInvoker.getDDBTagValueUncached(new TagNameListRequest().setTagNameList(tagNameList));
+            } catch (Exception e) {
+                ApiMetrics.increment("subscription.poll.failures");
+                log.warn("标签订阅轮询失败，周期 {} 毫秒: {}", periodMillis, e.getMessage());
+                return;
+            }
+            if (dataResult.getCode() != StateCode.SUCCESS.getCode() || dataResult.getData() == null
+                    || dataResult.getData().getDdbTagValueList() == null) {
+                ApiMetrics.increment("subscription.poll.failures");
+                log.warn("标签订阅轮询失败，周期 {} 毫秒: {}", periodMillis, dataResult.getMsg());
+                return;
+            }
+            Map<String, DDBTagValue> values = new HashMap<>();
+            for (DDBTagValue ddbTagValue : dataResult.getData().getDdbTagValueList()) {
+                values.put(ddbTagValue.getTagName(), ddbTagValue);
+            }
+            for (Subscription subscription : subscriptions) {
+                // 异常逃出调度任务会让线程池停止该周期的轮询，单个订阅的失败不能影响其他订阅
+                try {
+                    subscription.deliver(values);
+                } catch (Exception e) {
+                    ApiMetrics.increment("subscription.deliver.failures");
+                    log.warn("标签订阅分发失败，周期 {} 毫秒", periodMillis, e);
+                }
+            }
+        }
+    }
+}
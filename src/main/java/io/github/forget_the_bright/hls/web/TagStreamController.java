@@ -0,0 +1,47 @@
+package io.github.forget_the_bright.hls.web;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * 实时库标签值 SSE 推送端点。
+ * <p>
+ * 浏览器通过 {@code EventSource} 连接 {@code ${hls.datacollection.sse-path}?tags=A,B}，
+ * 先收到各标签最近一次的值，之后只收到变化，事件名为 {@code tag}，数据为 {@code DDBTagValue} 的 JSON。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@RestController
+public class TagStreamController {
+
+    /**
+     * 推送中心。
+     */
+    private final TagStreamHub tagStreamHub;
+
+    /**
+     * 构造函数。
+     *
+     * @param tagStreamHub 推送中心
+     */
+    public TagStreamController(TagStreamHub tagStreamHub) {
+        this.tagStreamHub = tagStreamHub;
+    }
+
+    /**
+     * 建立推送连接。
+     *
+     * @param tags 关注的标签名称，多个标签用逗号分隔或重复传参
+     * @return SSE 连接
+     */
+    @GetMapping(value = "${hls.datacollection.sse-path:/hls/tags/stream}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam("tags") List<String> tags) {
+        return tagStreamHub.connect(tags);
+    }
+}
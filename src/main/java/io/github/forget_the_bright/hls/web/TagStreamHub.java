@@ -0,0 +1,352 @@
+package io.github.forget_the_bright.hls.web;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.alibaba.fastjson.JSON;
+import io.github.forget_the_bright.hls.config.ApiConfig;
+import io.github.forget_the_bright.hls.core.ApiMetrics;
+import io.github.forget_the_bright.hls.entity.response.base.DDBTagValue;
+import io.github.forget_the_bright.hls.exception.ApiException;
+import io.github.forget_the_bright.hls.service.TagSubscriptionEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 实时库标签值 SSE 推送中心。
+ * <p>
+ * 所有浏览器连接共用 {@link TagSubscriptionEngine} 中的同一个轮询：每个被订阅的标签只订阅一次，
+ * 最后一个关注该标签的连接断开时取消。标签变化时只序列化一次，得到的 JSON 字节被所有关注该标签的连接复用，
+ * 每个连接发送时只包装事件名称和数据类型。
+ * <p>
+ * 每个连接有独立的有界发送队列，由发送线程异步写出，慢连接不会阻塞轮询和其他连接；队列满时按
+ * {@link ApiConfig#getSseDropPolicy()} 丢弃最旧的事件、丢弃新事件或断开该连接。
+ *
+ * @author wanghao (helloworlwh @ 163.com)
+ * @since 2025-03-22
+ */
+@Slf4j
+public class TagStreamHub implements DisposableBean {
+
+    /**
+     * 心跳事件的占位数据，按引用比较，用于及时发现已断开的连接。
+     */
+    private static final byte[] HEARTBEAT = new byte[0];
+
+    /**
+     * API 配置对象，包含轮询周期、发送队列容量等配置信息。
+     */
+    private final ApiConfig config;
+
+    /**
+     * 发送队列满时的处理策略。
+     */
+    private final DropPolicy dropPolicy;
+
+    /**
+     * 按标签名称索引的推送源。
+     */
+    private final Map<String, TagFeed> feeds = new ConcurrentHashMap<>();
+
+    /**
+     * 当前的连接。
+     */
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 发送和心跳线程池。
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * 构造函数，初始化发送线程池和心跳任务。
+     *
+     * @param config API 配置对象，包含轮询周期、发送队列容量等配置信息
+     * @throws ApiException 丢弃策略配置不合法时抛出
+     */
+    public TagStreamHub(ApiConfig config) {
+        this.config = config;
+        this.dropPolicy = DropPolicy.of(config.getSseDropPolicy());
+        this.executor = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                ThreadFactoryBuilder.create().setNamePrefix("hls-sse-").setDaemon(true).build());
+        if (config.getSseHeartbeatSeconds() > 0) {
+            executor.scheduleWithFixedDelay(this::heartbeat, config.getSseHeartbeatSeconds(),
+                    config.getSseHeartbeatSeconds(), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 建立一个推送连接，立即推送各标签最近一次的值，之后只推送变化。
+     *
+     * @param tagNames 关注的标签名称
+     * @return SSE 连接
+     * @throws ApiException 标签为空时抛出
+     */
+    public SseEmitter connect(Collection<String> tagNames) {
+        if (tagNames == null || tagNames.isEmpty()) {
+            throw new ApiException("推送连接的标签不能为空");
+        }
+        SseEmitter emitter = new SseEmitter(0L);
+        Client client = new Client(emitter, new LinkedHashSet<>(tagNames));
+        emitter.onCompletion(() -> disconnect(client));
+        emitter.onTimeout(() -> disconnect(client));
+        emitter.onError(e -> disconnect(client));
+        synchronized (this) {
+            clients.add(client);
+            for (String tagName : client.tagNames) {
+                if (client.closed) {
+                    // 推送最近的值时队列已满，按断开策略已在 disconnect 中退出之前关注的标签，不再关注其余标签
+                    break;
+                }
+                TagFeed feed = feeds.get(tagName);
+                if (feed == null) {
+                    feed = new TagFeed();
+                    feeds.put(tagName, feed);
+                    feed.clients.add(client);
+                    feed.subscription = TagSubscriptionEngine.subscribe(Collections.singleton(tagName),
+                            this::publish, config.getSsePeriodMillis(), 0);
+                } else {
+                    // 与 publish 在同一把锁下读写 last：要么先收到旧值再收到新值，要么直接收到新值
+                    synchronized (feed) {
+                        feed.clients.add(client);
+                        if (feed.last != null) {
+                            client.offer(feed.last);
+                        }
+                    }
+                }
+            }
+        }
+        ApiMetrics.increment("sse.connects");
+        return emitter;
+    }
+
+    /**
+     * 当前的连接数。
+     *
+     * @return 连接数
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * 当前被订阅的标签数。
+     *
+     * @return 标签数
+     */
+    public int getTagCount() {
+        return feeds.size();
+    }
+
+    /**
+     * 将标签变化编码为 JSON 并投递给关注该标签的连接。
+     * <p>
+     * 投递在锁外进行：丢弃策略为断开连接时会进入 {@link #disconnect(Client)}，在锁内投递会与 {@link #connect(Collection)} 死锁。
+     *
+     * @param changes 发生变化的标签值
+     */
+    private void publish(List<DDBTagValue> changes) {
+        for (DDBTagValue change : changes) {
+            TagFeed feed = feeds.get(change.getTagName());
+            if (feed == null) {
+                continue;
+            }
+            byte[] json = JSON.toJSONString(change).getBytes(StandardCharsets.UTF_8);
+            List<Client> targets;
+            synchronized (feed) {
+                feed.last = json;
+                targets = new ArrayList<>(feed.clients);
+            }
+            for (Client client : targets) {
+                client.offer(json);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Client client : clients) {
+            client.offer(HEARTBEAT);
+        }
+    }
+
+    /**
+     * 移除连接，没有其他连接关注的标签取消订阅。
+     *
+     * @param client 连接
+     */
+    private synchronized void disconnect(Client client) {
+        if (!clients.remove(client)) {
+            return;
+        }
+        client.closed = true;
+        for (String tagName : client.tagNames) {
+            TagFeed feed = feeds.get(tagName);
+            if (feed != null && feed.clients.remove(client) && feed.clients.isEmpty()) {
+                feed.subscription.cancel();
+                feeds.remove(tagName);
+            }
+        }
+        ApiMetrics.increment("sse.disconnects");
+    }
+
+    /**
+     * 关闭所有连接并停止发送线程池。
+     */
+    @Override
+    public void destroy() {
+        for (Client client : new ArrayList<>(clients)) {
+            disconnect(client);
+            client.emitter.complete();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * 发送队列满时的处理策略。
+     */
+    private enum DropPolicy {
+
+        /**
+         * 丢弃队列中最旧的事件。
+         */
+        DROP_OLDEST,
+
+        /**
+         * 丢弃新事件。
+         */
+        DROP_NEWEST,
+
+        /**
+         * 断开该连接。
+         */
+        DISCONNECT;
+
+        private static DropPolicy of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (RuntimeException e) {
+                throw new ApiException("不支持的推送丢弃策略: " + value + "，可选 drop-oldest、drop-newest、disconnect");
+            }
+        }
+    }
+
+    /**
+     * 一个标签的推送源。
+     */
+    private static final class TagFeed {
+
+        /**
+         * 关注该标签的连接。
+         */
+        private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+        /**
+         * 订阅引擎中的订阅。
+         */
+        private TagSubscriptionEngine.Subscription subscription;
+
+        /**
+         * 最近一次的标签值 JSON，新连接建立时先推送，读写都需持有当前对象的锁。
+         */
+        private byte[] last;
+    }
+
+    /**
+     * 一个浏览器连接及其发送队列。
+     */
+    private final class Client {
+
+        private final SseEmitter emitter;
+
+        private final Set<String> tagNames;
+
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(config.getSseClientBufferSize());
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        private Client(SseEmitter emitter, Set<String> tagNames) {
+            this.emitter = emitter;
+            this.tagNames = tagNames;
+        }
+
+        /**
+         * 放入发送队列，队列满时按丢弃策略处理。
+         *
+         * @param event 待发送的标签值 JSON，或 {@link #HEARTBEAT}
+         */
+        private void offer(byte[] event) {
+            if (closed) {
+                return;
+            }
+            while (!queue.offer(event)) {
+                ApiMetrics.increment("sse.dropped");
+                if (dropPolicy == DropPolicy.DROP_NEWEST) {
+                    return;
+                }
+                if (dropPolicy == DropPolicy.DISCONNECT) {
+                    close();
+                    return;
+                }
+                queue.poll();
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * 在发送线程中写出队列中的事件，写出失败时断开连接。
+         * <p>
+         * 每轮最多写出进入时已排队的事件，之后重新排队，慢连接不会长期占用发送线程。
+         */
+        private void drain() {
+            try {
+                byte[] event;
+                for (int remaining = queue.size(); remaining > 0 && !closed && (event = queue.poll()) != null; remaining--) {
+                    if (event == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event().name("tag").data(event, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("推送连接写出失败: {}", e.getMessage());
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void close() {
+            disconnect(this);
+            queue.clear();
+            emitter.complete();
+        }
+    }
+}